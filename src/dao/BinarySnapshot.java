@@ -0,0 +1,312 @@
+package dao;
+
+import model.Champ;
+import model.Item;
+import model.SourceTexte;
+import model.Vin;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.Consumer;
+
+/**
+ * Instantané binaire de l'inventaire, lu par projection mémoire pour un démarrage rapide.
+ *
+ * <p>Le fichier JSON reste le format d'échange et d'export ; cet instantané en est une copie
+ * compacte écrite à côté de lui ({@code items.json.bin}) :</p>
+ * <pre>
+ * en-tête    : magique (int), version (int), taille et date du JSON source (long, long), nombre d'items (int)
+ * index      : position de chaque enregistrement (long × nombre d'items)
+ * enregistrement :
+ *   quantite, anneeProduction (int), dateAjout (long, ms), prix, note (double)
+ *   denomination, description, dlc, image, position, phaseVieillissement, cepage, region
+ *   (chaînes : longueur en octets (int, -1 pour null) puis UTF-8)
+ * </pre>
+ *
+ * <p>L'instantané n'est utilisé que s'il correspond exactement au JSON dont il est issu
+ * (taille et date de modification enregistrées dans l'en-tête) et qu'il est plus récent que lui.</p>
+ */
+class BinarySnapshot {
+    /** Nombre magique identifiant le format ("GDB1"). */
+    private static final int MAGIQUE = 0x47444231;
+    /** Version du format. */
+    private static final int VERSION = 1;
+    /** Taille de l'en-tête, en octets. */
+    private static final int TAILLE_ENTETE = 4 + 4 + 8 + 8 + 4;
+    /** Valeur de date représentant une date d'ajout absente. */
+    private static final long DATE_ABSENTE = Long.MIN_VALUE;
+
+    /** Fichier de l'instantané binaire. */
+    private final File fichier;
+    /** Fichier JSON dont l'instantané est la copie. */
+    private final File source;
+
+    /**
+     * Crée l'instantané binaire associé à un fichier JSON.
+     *
+     * @param source le fichier JSON de persistance
+     */
+    BinarySnapshot(File source) {
+        this.source = source;
+        this.fichier = new File(source.getPath() + ".bin");
+    }
+
+    /**
+     * Indique si l'instantané binaire peut remplacer la lecture du JSON.
+     *
+     * @return true si l'instantané existe et est plus récent que le JSON
+     */
+    boolean estUtilisable() {
+        return fichier.isFile() && source.isFile() && fichier.lastModified() >= source.lastModified();
+    }
+
+    /**
+     * Lit l'instantané par projection mémoire.
+     *
+     * @return les items de l'instantané
+     * @throws IOException si le fichier est illisible, d'un autre format ou ne correspond plus au JSON
+     */
+    List<Item> lire() throws IOException {
+        return lire(false);
+    }
+
+    /**
+     * Lit l'instantané par projection mémoire.
+     * En mode différé, la description, la DLC et la phase de vieillissement ne sont pas décodées :
+     * les items les lisent à la demande dans la projection, qui reste ouverte tant qu'ils l'utilisent.
+     *
+     * @param differe vrai pour différer les textes volumineux
+     * @return les items de l'instantané
+     * @throws IOException si le fichier est illisible, d'un autre format ou ne correspond plus au JSON
+     */
+    List<Item> lire(boolean differe) throws IOException {
+        return lire(differe, null);
+    }
+
+    /**
+     * Lit l'instantané par projection mémoire en transmettant chaque item dès qu'il est lu.
+     * Si l'instantané se révèle corrompu en cours de lecture, des items ont déjà pu être transmis.
+     *
+     * @param differe vrai pour différer les textes volumineux
+     * @param chaque reçoit chaque item lu, ou null ; ses exceptions sont propagées telles quelles
+     * @return les items de l'instantané
+     * @throws IOException si le fichier est illisible, d'un autre format ou ne correspond plus au JSON
+     */
+    List<Item> lire(boolean differe, Consumer<Item> chaque) throws IOException {
+        boolean transmission = false;
+        try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer tampon = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+            if (tampon.remaining() < TAILLE_ENTETE || tampon.getInt() != MAGIQUE || tampon.getInt() != VERSION) {
+                throw new IOException("format d'instantané inconnu : " + fichier);
+            }
+            if (tampon.getLong() != source.length() || tampon.getLong() != source.lastModified()) {
+                throw new IOException("instantané périmé : " + fichier);
+            }
+            int nombre = tampon.getInt();
+            List<Item> items = new ArrayList<>(nombre);
+            TextesDifferes textes = differe ? new TextesDifferes(tampon) : null;
+            byte[] octets = new byte[256];
+            // Image, position, cépage et région prennent peu de valeurs distinctes : une seule instance par valeur
+            Map<String, String> partagees = new HashMap<>();
+            // Les enregistrements sont contigus : l'index sert aux accès directs, pas à la lecture complète
+            tampon.position(TAILLE_ENTETE + 8 * nombre);
+            for (int i = 0; i < nombre; i++) {
+                int quantite = tampon.getInt();
+                int anneeProduction = tampon.getInt();
+                long date = tampon.getLong();
+                double prix = tampon.getDouble();
+                double note = tampon.getDouble();
+                String[] chaines = new String[8];
+                int reference = -1;
+                for (int c = 0; c < chaines.length; c++) {
+                    if (c == 1) {
+                        reference = tampon.position();
+                    }
+                    int longueur = tampon.getInt();
+                    if (longueur < 0) {
+                        continue;
+                    }
+                    if (differe && (c == 1 || c == 2 || c == 5)) {
+                        // Texte différé : sauté sans être décodé
+                        tampon.position(tampon.position() + longueur);
+                        continue;
+                    }
+                    if (longueur > octets.length) {
+                        octets = new byte[Math.max(longueur, octets.length * 2)];
+                    }
+                    tampon.get(octets, 0, longueur);
+                    String valeur = new String(octets, 0, longueur, StandardCharsets.UTF_8);
+                    if (c == 3 || c == 4 || c == 6 || c == 7) {
+                        String existante = partagees.putIfAbsent(valeur, valeur);
+                        if (existante != null) {
+                            valeur = existante;
+                        }
+                    }
+                    chaines[c] = valeur;
+                }
+                Vin vin = new Vin(chaines[0], chaines[1], quantite, anneeProduction,
+                        date == DATE_ABSENTE ? null : new Date(date), prix, chaines[6], chaines[7]);
+                vin.setDlc(chaines[2]);
+                vin.setImage(chaines[3]);
+                vin.setPosition(chaines[4]);
+                vin.setPhaseVieillissement(chaines[5]);
+                vin.setNote(note);
+                if (differe) {
+                    vin.differerTextes(textes, reference);
+                }
+                items.add(vin);
+                if (chaque != null) {
+                    transmission = true;
+                    chaque.accept(vin);
+                    transmission = false;
+                }
+            }
+            return items;
+        } catch (RuntimeException e) {
+            if (transmission) {
+                // Erreur du destinataire, pas du fichier
+                throw e;
+            }
+            // BufferUnderflowException, etc. : fichier tronqué
+            throw new IOException("instantané corrompu : " + fichier, e);
+        }
+    }
+
+    /**
+     * Écrit l'instantané correspondant à un état du fichier JSON.
+     * Comme pour le JSON, l'écriture passe par un fichier temporaire renommé atomiquement.
+     *
+     * @param items les items, identiques au contenu du fichier JSON
+     * @param tailleSource la taille du fichier JSON dont les items sont issus
+     * @param dateSource la date de modification de ce fichier JSON
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    void ecrire(List<Item> items, long tailleSource, long dateSource) throws IOException {
+        Path cible = fichier.toPath().toAbsolutePath();
+        Path temporaire = cible.resolveSibling(cible.getFileName() + ".tmp");
+        int nombre = items.size();
+        long[] positions = new long[nombre];
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            canal.position(TAILLE_ENTETE + 8L * nombre);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(canal), 64 * 1024));
+            long position = TAILLE_ENTETE + 8L * nombre;
+            for (int i = 0; i < nombre; i++) {
+                positions[i] = position + out.size();
+                Item item = items.get(i);
+                out.writeInt(item.getQuantite());
+                out.writeInt(item.getAnneeProduction());
+                out.writeLong(item.getDateAjout() != null ? item.getDateAjout().getTime() : DATE_ABSENTE);
+                out.writeDouble(item.getPrix());
+                out.writeDouble(item.getNote());
+                Vin vin = item instanceof Vin ? (Vin) item : null;
+                ecrireChaine(out, item.getDenomination());
+                ecrireChaine(out, item.getDescription());
+                ecrireChaine(out, item.getDlc());
+                ecrireChaine(out, item.getImage());
+                ecrireChaine(out, item.getPosition());
+                ecrireChaine(out, item.getPhaseVieillissement());
+                ecrireChaine(out, vin != null ? vin.getCepage() : null);
+                ecrireChaine(out, vin != null ? vin.getRegion() : null);
+            }
+            out.flush();
+
+            ByteBuffer entete = ByteBuffer.allocate(TAILLE_ENTETE + 8 * nombre);
+            entete.putInt(MAGIQUE).putInt(VERSION).putLong(tailleSource).putLong(dateSource).putInt(nombre);
+            for (long p : positions) {
+                entete.putLong(p);
+            }
+            entete.flip();
+            long ecrit = 0;
+            while (entete.hasRemaining()) {
+                ecrit += canal.write(entete, ecrit);
+            }
+            canal.force(true);
+        }
+        try {
+            Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Écrit une chaîne préfixée par sa longueur en octets UTF-8.
+     *
+     * @param out le flux de sortie
+     * @param valeur la chaîne, éventuellement null
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    private static void ecrireChaine(DataOutputStream out, String valeur) throws IOException {
+        if (valeur == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] octets = valeur.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(octets.length);
+        out.write(octets);
+    }
+
+    /**
+     * Source des textes différés d'un instantané projeté en mémoire.
+     * La référence d'un item est la position de sa description dans la projection ;
+     * les valeurs lues récemment sont gardées dans un cache de taille bornée.
+     */
+    static final class TextesDifferes implements SourceTexte {
+        /** Nombre maximal de textes gardés en cache. */
+        static final int TAILLE_CACHE = 1024;
+
+        /** Projection de l'instantané ; seuls des accès absolus y sont faits. */
+        private final ByteBuffer tampon;
+        /** Textes lus récemment, du moins au plus récemment utilisé. */
+        private final Map<Long, String> cache = new LinkedHashMap<Long, String>(TAILLE_CACHE * 4 / 3 + 1, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > TAILLE_CACHE;
+            }
+        };
+
+        TextesDifferes(ByteBuffer tampon) {
+            this.tampon = tampon;
+        }
+
+        @Override
+        public String lire(long reference, Champ champ) {
+            // Nombre de chaînes à sauter depuis la description (voir l'ordre d'écriture)
+            int sautees;
+            switch (champ) {
+                case DESCRIPTION: sautees = 0; break;
+                case DLC: sautees = 1; break;
+                case PHASE_VIEILLISSEMENT: sautees = 4; break;
+                default: throw new IllegalArgumentException("champ non différé : " + champ);
+            }
+            Long cle = reference * 8 + sautees;
+            synchronized (cache) {
+                String valeur = cache.get(cle);
+                if (valeur != null) {
+                    return valeur;
+                }
+            }
+            int position = (int) reference;
+            for (int i = 0; i < sautees; i++) {
+                position += 4 + Math.max(0, tampon.getInt(position));
+            }
+            int longueur = tampon.getInt(position);
+            if (longueur < 0) {
+                return null;
+            }
+            byte[] octets = new byte[longueur];
+            tampon.get(position + 4, octets);
+            String valeur = new String(octets, StandardCharsets.UTF_8);
+            synchronized (cache) {
+                cache.put(cle, valeur);
+            }
+            return valeur;
+        }
+    }
+}
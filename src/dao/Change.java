@@ -0,0 +1,136 @@
+package dao;
+
+import model.Item;
+
+/**
+ * Modification élémentaire de l'inventaire, appliquée par lot avec {@link ItemDAO#applyBatch(java.util.List)}.
+ *
+ * <p>Les mises à jour et suppressions identifient l'item par son {@linkplain Item#getIdentite() identité},
+ * à défaut par sa dénomination, comme {@link ItemDAO#updateItem(Item)} et {@link ItemDAO#deleteItem(Item)}.
+ * Une modification est {@linkplain #figer() figée} avant d'être mise en attente ou écrite : elle porte
+ * alors une copie de l'item, que l'appelant peut continuer à modifier.</p>
+ */
+public final class Change {
+    /**
+     * Nature de la modification.
+     */
+    public enum Type {
+        /** Ajout d'un item. */
+        INSERT,
+        /** Remplacement d'un item existant. */
+        UPDATE,
+        /** Suppression d'un item. */
+        DELETE
+    }
+
+    /** Nature de la modification. */
+    private final Type type;
+    /** Item concerné. */
+    private final Item item;
+    /** Dénomination sous laquelle l'item était connu, s'il a été renommé ; null sinon. */
+    private final String ancienneDenomination;
+    /** Vrai si l'item est une copie propre à la modification. */
+    private final boolean fige;
+    /**
+     * Rang de l'item parmi les items de même dénomination au moment où la modification a été
+     * appliquée au cache ; le journal s'en sert pour retrouver le même item au rejeu.
+     */
+    private final int rang;
+
+    private Change(Type type, Item item, String ancienneDenomination, boolean fige, int rang) {
+        this.type = type;
+        this.item = item;
+        this.ancienneDenomination = ancienneDenomination;
+        this.fige = fige;
+        this.rang = rang;
+    }
+
+    /**
+     * Crée une insertion.
+     *
+     * @param item l'item à insérer
+     * @return la modification
+     */
+    public static Change insert(Item item) {
+        return new Change(Type.INSERT, item, null, false, 0);
+    }
+
+    /**
+     * Crée une mise à jour.
+     *
+     * @param item l'item à mettre à jour
+     * @return la modification
+     */
+    public static Change update(Item item) {
+        return new Change(Type.UPDATE, item, null, false, 0);
+    }
+
+    /**
+     * Crée une suppression.
+     *
+     * @param item l'item à supprimer
+     * @return la modification
+     */
+    public static Change delete(Item item) {
+        return new Change(Type.DELETE, item, null, false, 0);
+    }
+
+    /**
+     * Crée la mise à jour d'un item renommé sur place.
+     *
+     * @param ancienneDenomination la dénomination sous laquelle l'item était enregistré
+     * @param rang le rang de l'item parmi les items de cette dénomination
+     * @param item l'item renommé
+     * @return la modification
+     */
+    static Change rename(String ancienneDenomination, int rang, Item item) {
+        return new Change(Type.UPDATE, item, ancienneDenomination, true, rang);
+    }
+
+    /**
+     * Retourne la même modification, pour l'item d'un rang donné parmi ses homonymes.
+     *
+     * @param rang le rang de l'item parmi les items de sa dénomination
+     * @return la modification
+     */
+    Change auRang(int rang) {
+        return rang == this.rang ? this : new Change(type, item, ancienneDenomination, fige, rang);
+    }
+
+    /**
+     * Retourne la même modification portant une {@linkplain Item#copie() copie} de l'item, lue
+     * de façon cohérente : les modifications ultérieures de l'item ne la changent plus.
+     *
+     * @return la modification figée, ou celle-ci si elle l'est déjà
+     */
+    Change figer() {
+        return fige ? this : new Change(type, item.copie(), ancienneDenomination, true, rang);
+    }
+
+    /**
+     * Crée une modification de même nature pour un autre état du même item.
+     *
+     * @param type la nature de la modification
+     * @param change la modification figée dont l'item est repris
+     * @return la modification figée
+     */
+    static Change figee(Type type, Change change) {
+        return new Change(type, change.item, null, true, 0);
+    }
+
+    /**
+     * Retourne la nature de la modification.
+     * @return la nature de la modification
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Retourne l'item concerné.
+     * @return l'item
+     */
+    public Item getItem() { return item; }
+
+    String getAncienneDenomination() { return ancienneDenomination; }
+
+    int getRang() { return rang; }
+}
@@ -1,224 +1,665 @@
 package dao;
 
+import metrics.Metriques;
 import model.Item;
-import model.Vin;
 import java.io.*;
-import java.text.SimpleDateFormat;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Classe DAO pour la persistance des items via un fichier JSON.
  *
  * <p>Cette implémentation gère la sérialisation et la désérialisation
- * des items dans un fichier JSON sans utiliser de bibliothèque externe.</p>
+ * des items dans un fichier JSON sans utiliser de bibliothèque externe.
+ * La lecture est confiée à {@link JsonItemReader}, qui parcourt le fichier en une seule passe,
+ * et l'écriture à {@link JsonItemWriter}, qui écrit les items en flux.</p>
+ *
+ * <p>Les modifications ne réécrivent pas le fichier : elles sont ajoutées à un journal
+ * ({@link ItemJournal}) placé à côté de celui-ci, rejoué au chargement. Lorsque le journal
+ * dépasse le seuil de compaction, il est replié en arrière-plan dans un nouvel instantané JSON.</p>
+ *
+ * <p>Les écritures sont sûres en cas d'arrêt brutal : l'instantané est écrit dans un fichier
+ * temporaire, forcé sur disque puis renommé atomiquement sur {@code items.json}, et les
+ * enregistrements du journal sont validés par groupes selon le {@link ModeDurabilite} choisi.</p>
+ *
+ * <p>Pour accélérer le démarrage, une copie binaire de l'instantané ({@link BinarySnapshot}) est
+ * maintenue à côté du JSON et lue par projection mémoire lorsqu'elle est à jour ; le JSON reste
+ * le format d'échange et la source de référence.</p>
+ *
+ * <p>Une instance est destinée à vivre aussi longtemps que l'application : elle conserve
+ * l'inventaire en mémoire et y applique chaque modification avant de l'écrire sur disque
+ * (écriture traversante). Les lectures ne relisent les fichiers que si un autre processus
+ * les a modifiés, ce qui est détecté à partir de leurs tailles et dates de modification.</p>
  */
-public class ItemDAO {
+public class ItemDAO implements ItemStore {
+    private static final Logger LOG = Logger.getLogger(ItemDAO.class.getName());
+
     /** Chemin du fichier JSON de persistance. */
     private static final String FILE_PATH = "items.json";
+    /** Taille du journal (en octets) au-delà de laquelle il est replié dans le fichier JSON. */
+    public static final long SEUIL_COMPACTION = 256 * 1024;
+    /** Intervalle de vidage par défaut des validations groupées, en millisecondes. */
+    public static final long INTERVALLE_VIDAGE = 10;
+    /** Thread de compaction en arrière-plan. */
+    private static final ExecutorService COMPACTEUR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "compaction-items");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Threads de lecture de {@link #chargerParLots(int, int, Consumer)}. */
+    private static final ExecutorService LECTEURS = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "lecture-items");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Fichier JSON de persistance (dernier instantané). */
+    private final File file;
+    /** Journal des modifications depuis le dernier instantané, partagé par fichier ; sert aussi de verrou. */
+    private final ItemJournal journal;
+    /** Copie binaire de l'instantané, lue en priorité lorsqu'elle est à jour. */
+    private final BinarySnapshot binaire;
+    /** Seuil de compaction du journal, en octets. */
+    private final long seuilCompaction;
+    /**
+     * Inventaire en mémoire, indexé par dénomination, ou null tant qu'il n'a pas été chargé.
+     * Ses items ne sortent jamais du DAO, qui ne distribue que des copies : ils ne sont donc jamais
+     * modifiés et peuvent être sérialisés sans verrou, par exemple dans la copie binaire.
+     */
+    private ItemIndex cache;
+    /** Version du journal correspondant au contenu du cache. */
+    private long versionCache;
+    /** Vrai si les textes volumineux des items lus dans la copie binaire sont chargés à la demande. */
+    private volatile boolean lazyLoading;
+
+    /**
+     * Crée un DAO sur le fichier {@code items.json} du répertoire courant.
+     */
+    public ItemDAO() {
+        this(FILE_PATH, SEUIL_COMPACTION);
+    }
+
+    /**
+     * Crée un DAO sur un fichier JSON donné, avec validation groupée des écritures.
+     *
+     * @param filePath chemin du fichier JSON de persistance
+     * @param seuilCompaction taille du journal (en octets) déclenchant sa compaction
+     */
+    public ItemDAO(String filePath, long seuilCompaction) {
+        this(filePath, seuilCompaction, ModeDurabilite.GROUPEE, INTERVALLE_VIDAGE);
+    }
+
+    /**
+     * Crée un DAO sur un fichier JSON donné.
+     *
+     * @param filePath chemin du fichier JSON de persistance
+     * @param seuilCompaction taille du journal (en octets) déclenchant sa compaction
+     * @param mode mode de durabilité des écritures du journal
+     * @param intervalleVidage intervalle de regroupement des écritures, en millisecondes
+     * @throws IllegalStateException si un autre DAO du même fichier a choisi un autre mode
+     *         ou un autre intervalle : le journal, partagé par fichier, garde sa configuration
+     */
+    public ItemDAO(String filePath, long seuilCompaction, ModeDurabilite mode, long intervalleVidage) {
+        this.file = new File(filePath);
+        this.journal = ItemJournal.pour(file, mode, intervalleVidage);
+        this.binaire = new BinarySnapshot(file);
+        this.seuilCompaction = seuilCompaction;
+    }
 
     /**
-     * Récupère la liste des items depuis le fichier JSON.
+     * Active le chargement à la demande des textes volumineux (description, DLC, phase de
+     * vieillissement) des items lus dans la copie binaire de l'instantané : ils restent dans
+     * la projection mémoire du fichier et ne sont décodés qu'à l'appel de leur accesseur,
+     * ce qui réduit fortement la mémoire occupée par un grand inventaire.
+     * S'applique aux chargements suivants ; les items lus dans le JSON restent complets.
      *
-     * @return une liste d'items
+     * @param lazyLoading vrai pour charger les textes à la demande
      */
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
+    /**
+     * Récupère la liste des items depuis le cache, rechargé au préalable si les fichiers
+     * ont été modifiés par ailleurs.
+     *
+     * @return une copie de la liste des items, faite de copies des items du cache
+     */
+    @Override
     public List<Item> getAllItems() {
-        List<Item> items = new ArrayList<>();
-        File file = new File(FILE_PATH);
-        if (!file.exists()) {
-            return items;
+        List<Item> items;
+        synchronized (journal) {
+            refresh();
+            items = cache.copie();
         }
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            StringBuilder sb = new StringBuilder();
-            String line;
-            while((line = br.readLine()) != null) {
-                sb.append(line);
-            }
-            String json = sb.toString().trim();
-            // Traitement simplifié pour un tableau JSON
-            if (json.startsWith("[") && json.endsWith("]")) {
-                json = json.substring(1, json.length() - 1).trim();
-                if (json.isEmpty()) {
-                    return items;
+        items.replaceAll(Item::copie);
+        return items;
+    }
+
+    /**
+     * Charge l'inventaire en le transmettant par lots au fur et à mesure de la lecture, pour que
+     * les premiers items soient utilisables sans attendre la fin du chargement. Les lots grandissent,
+     * du premier lot jusqu'au lot maximal, en doublant : le premier arrive vite, les suivants coûtent peu.
+     *
+     * <p>La copie binaire de l'instantané ou, à défaut, le fichier JSON sont lus en flux. Si le journal
+     * contient des modifications, les items qu'elles concernent sont retenus pendant la lecture, puis
+     * transmis dans leur état final, en dernier, une fois le journal rejoué. Le cache du DAO est ensuite
+     * le même qu'après {@link #getAllItems()}.</p>
+     *
+     * <p>La lecture se fait sous le verrou du DAO, dans un thread de lecture ; les lots sont transmis
+     * depuis le thread appelant, hors du verrou, à mesure qu'ils sont prêts. Le consommateur peut donc
+     * utiliser ce DAO : ses opérations attendent simplement la fin de la lecture.</p>
+     *
+     * @param premierLot le nombre d'items du premier lot
+     * @param lotMax le nombre maximal d'items d'un lot
+     * @param destination reçoit chaque lot, dans l'ordre du fichier ; des copies que le consommateur peut garder et modifier
+     */
+    @Override
+    public void chargerParLots(int premierLot, int lotMax, Consumer<List<Item>> destination) {
+        BlockingQueue<List<Item>> prets = new LinkedBlockingQueue<>();
+        List<Item> fin = new ArrayList<>(0);
+        RuntimeException[] erreur = new RuntimeException[1];
+        LECTEURS.execute(() -> {
+            try {
+                lireParLots(new Lots(premierLot, lotMax, prets::add));
+            } catch (RuntimeException e) {
+                erreur[0] = e;
+            } finally {
+                prets.add(fin);
+            }
+        });
+        try {
+            for (List<Item> lot = prets.take(); lot != fin; lot = prets.take()) {
+                destination.accept(lot);
+            }
+        } catch (InterruptedException e) {
+            // La lecture se poursuit et remplit le cache ; les lots restants ne sont pas transmis
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (erreur[0] != null) {
+            throw erreur[0];
+        }
+    }
+
+    /**
+     * Lit l'inventaire pour {@link #chargerParLots(int, int, Consumer)} et met le cache à jour,
+     * sous le verrou du DAO.
+     *
+     * @param lots reçoit chaque item lu
+     */
+    private void lireParLots(Lots lots) {
+        synchronized (journal) {
+            if (cache != null && versionCache == journal.version() && !journal.estModifieAilleurs()) {
+                cache.copie().forEach(lots);
+                lots.terminer();
+                return;
+            }
+            long debut = System.nanoTime();
+            try {
+                journal.vider();
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Écriture du journal impossible avant rechargement", e);
+            }
+            // Les items que le journal modifie ne sont transmis qu'après son rejeu
+            Set<String> retenues = journal.denominations();
+            lots.retenir(retenues);
+            List<Item> items = null;
+            if (binaire.estUtilisable()) {
+                try {
+                    items = binaire.lire(lazyLoading, lots);
+                } catch (IOException e) {
+                    LOG.warning("Instantané binaire ignoré : " + e.getMessage());
+                    // Les items déjà transmis ne le sont pas une seconde fois
+                    lots.reprendre();
                 }
-                String[] objectStrings = json.split("\\},\\s*\\{");
-                for (int i = 0; i < objectStrings.length; i++) {
-                    String objStr = objectStrings[i];
-                    if (!objStr.startsWith("{")) {
-                        objStr = "{" + objStr;
-                    }
-                    if (!objStr.endsWith("}")) {
-                        objStr = objStr + "}";
-                    }
-                    Item item = parseItem(objStr);
-                    if (item != null) {
-                        items.add(item);
+            }
+            if (items == null) {
+                items = readJson(file, lots);
+                planifierCopieBinaire(items);
+            }
+            ItemIndex index = new ItemIndex(items);
+            if (!retenues.isEmpty()) {
+                journal.rejouer(index);
+                lots.retenir(Collections.emptySet());
+                for (Item item : index.copie()) {
+                    if (retenues.contains(item.getDenomination())) {
+                        lots.accept(item);
                     }
                 }
             }
+            cache = index;
+            journal.marquerLu();
+            versionCache = journal.version();
+            lots.terminer();
+            Metriques.DAO_CHARGEMENT.enregistrer(System.nanoTime() - debut - lots.getDuree());
+        }
+    }
+
+    /**
+     * Recharge le cache s'il n'a jamais été chargé ou s'il n'est plus à jour :
+     * dernier instantané, puis rejeu du journal.
+     * Doit être appelée en détenant le verrou du journal.
+     */
+    private void refresh() {
+        if (cache != null && versionCache == journal.version() && !journal.estModifieAilleurs()) {
+            return;
+        }
+        long debut = System.nanoTime();
+        try {
+            journal.vider();
         } catch (IOException e) {
-            e.printStackTrace();
+            LOG.log(Level.SEVERE, "Écriture du journal impossible avant rechargement", e);
         }
-        return items;
+        ItemIndex items = new ItemIndex(readSnapshot());
+        journal.rejouer(items);
+        journal.marquerLu();
+        cache = items;
+        versionCache = journal.version();
+        Metriques.DAO_CHARGEMENT.enregistrerDepuis(debut);
     }
 
     /**
-     * Sérialise la liste des items en chaîne JSON.
+     * Lit le dernier instantané, sans le journal : la copie binaire si elle est à jour,
+     * sinon le fichier JSON, dont la copie binaire est alors régénérée en arrière-plan.
      *
-     * @param items la liste des items à sérialiser
-     * @return la chaîne JSON représentant les items
+     * @return les items de l'instantané
      */
-    private String serializeItems(List<Item> items) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("[\n");
-        for (int i = 0; i < items.size(); i++) {
-            sb.append(serializeItem(items.get(i)));
-            if (i < items.size() - 1) {
-                sb.append(",\n");
+    private List<Item> readSnapshot() {
+        if (binaire.estUtilisable()) {
+            try {
+                return binaire.lire(lazyLoading);
+            } catch (IOException e) {
+                LOG.warning("Instantané binaire ignoré : " + e.getMessage());
             }
         }
-        sb.append("\n]");
-        return sb.toString();
+        List<Item> items = readJson();
+        planifierCopieBinaire(items);
+        return items;
     }
 
     /**
-     * Sérialise un item en une chaîne JSON.
-     * Pour cet exemple, on suppose que l'item est un Vin.
+     * Régénère en arrière-plan la copie binaire de l'instantané JSON qui vient d'être lu.
+     * Les items eux-mêmes ne sont pas copiés : destinés au cache, ils ne seront jamais modifiés
+     * (le cache n'en distribue que des copies), et la copie binaire reflète donc exactement le JSON.
      *
-     * @param item l'item à sérialiser
-     * @return la chaîne JSON représentant l'item
+     * @param items les items lus dans le JSON, pas encore publiés
      */
-    private String serializeItem(Item item) {
-        StringBuilder sb = new StringBuilder();
-        sb.append("  {");
-        sb.append("\"denomination\":\"").append(item.getDenomination()).append("\",");
-        sb.append("\"description\":\"").append(item.getDescription()).append("\",");
-        sb.append("\"quantite\":").append(item.getQuantite()).append(",");
-        sb.append("\"anneeProduction\":").append(item.getAnneeProduction()).append(",");
-        String dateStr = new SimpleDateFormat("yyyy-MM-dd").format(item.getDateAjout());
-        sb.append("\"dateAjout\":\"").append(dateStr).append("\",");
-        sb.append("\"prix\":").append(item.getPrix()).append(",");
-        sb.append("\"dlc\":\"").append(item.getDlc() != null ? item.getDlc() : "").append("\",");
-        sb.append("\"image\":\"").append(item.getImage() != null ? item.getImage() : "").append("\",");
-        sb.append("\"position\":\"").append(item.getPosition() != null ? item.getPosition() : "").append("\",");
-        sb.append("\"phaseVieillissement\":\"").append(item.getPhaseVieillissement() != null ? item.getPhaseVieillissement() : "").append("\",");
-        sb.append("\"note\":").append(item.getNote()).append(",");
-        if (item instanceof Vin) {
-            Vin vin = (Vin) item;
-            sb.append("\"cepage\":\"").append(vin.getCepage() != null ? vin.getCepage() : "").append("\",");
-            sb.append("\"region\":\"").append(vin.getRegion() != null ? vin.getRegion() : "").append("\"");
-        } else {
-            sb.append("\"cepage\":\"\",");
-            sb.append("\"region\":\"\"");
+    private void planifierCopieBinaire(List<Item> items) {
+        if (file.exists()) {
+            List<Item> copie = new ArrayList<>(items);
+            long taille = file.length();
+            long date = file.lastModified();
+            COMPACTEUR.execute(() -> writeBinarySnapshot(copie, taille, date));
         }
-        sb.append("}");
-        return sb.toString();
     }
 
     /**
-     * Sauvegarde la liste complète des items dans le fichier JSON.
+     * Écrit la copie binaire d'un instantané JSON, si celui-ci n'a pas changé entre-temps.
      *
-     * @param items la liste des items à sauvegarder
+     * @param items les items lus dans le JSON
+     * @param taille la taille du JSON lu
+     * @param date la date de modification du JSON lu
      */
-    private void saveAllItems(List<Item> items) {
-        try (BufferedWriter bw = new BufferedWriter(new FileWriter(FILE_PATH))) {
-            bw.write(serializeItems(items));
-        } catch (IOException e) {
-            e.printStackTrace();
+    private void writeBinarySnapshot(List<Item> items, long taille, long date) {
+        synchronized (journal) {
+            if (file.length() != taille || file.lastModified() != date) {
+                return;
+            }
+            try {
+                binaire.ecrire(items, taille, date);
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Écriture de l'instantané binaire impossible", e);
+            }
         }
     }
 
     /**
-     * Parse une chaîne JSON représentant un item.
+     * Lit le fichier JSON.
+     *
+     * @return les items du fichier JSON
+     */
+    private List<Item> readJson() {
+        return readJson(file);
+    }
+
+    /**
+     * Lit un fichier JSON d'items.
      *
-     * @param jsonObject la chaîne JSON de l'item
-     * @return l'item parsé, ou null en cas d'erreur
+     * @param fichier le fichier à lire
+     * @return les items du fichier, vide s'il n'existe pas
      */
-    private Item parseItem(String jsonObject) {
-        jsonObject = jsonObject.trim();
-        if (jsonObject.startsWith("{") && jsonObject.endsWith("}")) {
-            jsonObject = jsonObject.substring(1, jsonObject.length()-1);
+    static List<Item> readJson(File fichier) {
+        return readJson(fichier, null);
+    }
+
+    /**
+     * Lit un fichier JSON d'items en transmettant éventuellement les items par lots au fil de la lecture.
+     *
+     * @param fichier le fichier à lire
+     * @param lots reçoit chaque item lu, ou null
+     * @return les items du fichier, vide s'il n'existe pas
+     */
+    private static List<Item> readJson(File fichier, Lots lots) {
+        List<Item> items = new ArrayList<>();
+        if (!fichier.exists()) {
+            return items;
         }
-        String[] fields = jsonObject.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
-        Map<String, String> map = new HashMap<>();
-        for (String field : fields) {
-            String[] parts = field.split(":", 2);
-            if (parts.length == 2) {
-                String key = parts[0].trim();
-                String value = parts[1].trim();
-                if (key.startsWith("\"") && key.endsWith("\"")) {
-                    key = key.substring(1, key.length()-1);
-                }
-                if (value.startsWith("\"") && value.endsWith("\"")) {
-                    value = value.substring(1, value.length()-1);
+        // Lecture objet par objet : en cas d'erreur, les items déjà lus sont conservés
+        long debut = System.nanoTime();
+        long publication = lots == null ? 0 : lots.getDuree();
+        try (JsonItemReader reader = new JsonItemReader(new FileReader(fichier, StandardCharsets.UTF_8))) {
+            if (reader.beginArray()) {
+                while (reader.hasNext()) {
+                    Item item = reader.nextItem();
+                    if (item != null) {
+                        items.add(item);
+                        if (lots != null) {
+                            lots.accept(item);
+                        }
+                    }
                 }
-                map.put(key, value);
+                reader.endArray();
+            }
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Lecture interrompue de " + fichier + " après " + items.size() + " item(s)", e);
+        }
+        if (!items.isEmpty()) {
+            // Le temps passé par le destinataire des lots n'est pas compté dans l'analyse
+            if (lots != null) {
+                publication = lots.getDuree() - publication;
+            }
+            Metriques.DAO_ANALYSE_ITEM.enregistrer((System.nanoTime() - debut - publication) / items.size());
+        }
+        return items;
+    }
+
+    /**
+     * Sauvegarde la liste complète des items dans le fichier JSON.
+     * Le document est écrit dans un fichier temporaire, forcé sur disque, puis renommé
+     * atomiquement sur le fichier de persistance : celui-ci n'est jamais tronqué.
+     *
+     * @param items la liste des items à sauvegarder
+     * @throws IOException en cas d'erreur d'écriture ; le fichier existant est alors intact
+     */
+    private void saveAllItems(List<Item> items) throws IOException {
+        writeJson(file, items);
+    }
+
+    /**
+     * Écrit des items dans un fichier JSON, de façon atomique (voir {@link #saveAllItems(List)}).
+     *
+     * @param fichier le fichier à écrire
+     * @param items les items à écrire
+     * @throws IOException en cas d'erreur d'écriture ; le fichier existant est alors intact
+     */
+    static void writeJson(File fichier, Iterable<Item> items) throws IOException {
+        Path cible = fichier.toPath().toAbsolutePath();
+        Path temporaire = cible.resolveSibling(cible.getFileName() + ".tmp");
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Écriture en flux : aucun document intermédiaire en mémoire
+            Writer w = new BufferedWriter(Channels.newWriter(canal, StandardCharsets.UTF_8), 64 * 1024);
+            JsonItemWriter json = new JsonItemWriter(w);
+            json.beginArray();
+            for (Item item : items) {
+                json.writeItem(item);
             }
+            json.endArray();
+            w.flush();
+            canal.force(true);
         }
         try {
-            String denomination = map.get("denomination");
-            String description = map.get("description");
-            int quantite = Integer.parseInt(map.get("quantite"));
-            int anneeProduction = Integer.parseInt(map.get("anneeProduction"));
-            String dateStr = map.get("dateAjout");
-            Date dateAjout = new SimpleDateFormat("yyyy-MM-dd").parse(dateStr);
-            double prix = Double.parseDouble(map.get("prix"));
-            String dlc = map.get("dlc");
-            String image = map.get("image");
-            String position = map.get("position");
-            String phaseVieillissement = map.get("phaseVieillissement");
-            double note = Double.parseDouble(map.get("note"));
-            String cepage = map.get("cepage");
-            String region = map.get("region");
-            Vin vin = new Vin(denomination, description, quantite, anneeProduction, dateAjout, prix, cepage, region);
-            vin.setDlc(dlc);
-            vin.setImage(image);
-            vin.setPosition(position);
-            vin.setPhaseVieillissement(phaseVieillissement);
-            vin.setNote(note);
-            return vin;
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    /**
-     * Insère un nouvel item dans le fichier JSON.
+            Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaire, cible, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Insère un nouvel item : il est ajouté au cache et un enregistrement est ajouté au journal.
      *
      * @param item l'item à insérer
      */
     public void insertItem(Item item) {
-        List<Item> items = getAllItems();
-        items.add(item);
-        saveAllItems(items);
+        applyBatch(Collections.singletonList(Change.insert(item)));
     }
 
     /**
-     * Met à jour un item existant dans le fichier JSON.
-     * L'item est identifié par sa dénomination.
+     * Met à jour un item existant.
+     * L'item est identifié par son {@linkplain Item#getIdentite() identité}, ce qui couvre les copies
+     * et les items renommés, ou à défaut par sa dénomination.
      *
      * @param item l'item à mettre à jour
      */
     public void updateItem(Item item) {
-        List<Item> items = getAllItems();
-        for (int i = 0; i < items.size(); i++) {
-            if (items.get(i).getDenomination().equals(item.getDenomination())) {
-                items.set(i, item);
-                break;
-            }
-        }
-        saveAllItems(items);
+        applyBatch(Collections.singletonList(Change.update(item)));
     }
 
     /**
-     * Supprime un item du fichier JSON.
-     * L'item est identifié par sa dénomination.
+     * Supprime un item.
+     * L'item est identifié par son {@linkplain Item#getIdentite() identité}, ou à défaut par sa
+     * dénomination : ses homonymes sont conservés.
      *
      * @param item l'item à supprimer
      */
     public void deleteItem(Item item) {
-        List<Item> items = getAllItems();
-        items.removeIf(i -> i.getDenomination().equals(item.getDenomination()));
-        saveAllItems(items);
+        applyBatch(Collections.singletonList(Change.delete(item)));
+    }
+
+    /**
+     * Insère plusieurs items en une seule opération.
+     *
+     * @param items les items à insérer
+     */
+    public void insertAll(Collection<? extends Item> items) {
+        List<Change> changes = new ArrayList<>(items.size());
+        for (Item item : items) {
+            changes.add(Change.insert(item));
+        }
+        applyBatch(changes);
+    }
+
+    /**
+     * Met à jour plusieurs items en une seule opération.
+     *
+     * @param items les items à mettre à jour
+     */
+    public void updateAll(Collection<? extends Item> items) {
+        List<Change> changes = new ArrayList<>(items.size());
+        for (Item item : items) {
+            changes.add(Change.update(item));
+        }
+        applyBatch(changes);
+    }
+
+    /**
+     * Supprime plusieurs items en une seule opération.
+     *
+     * @param items les items à supprimer
+     */
+    public void deleteAll(Collection<? extends Item> items) {
+        List<Change> changes = new ArrayList<>(items.size());
+        for (Item item : items) {
+            changes.add(Change.delete(item));
+        }
+        applyBatch(changes);
+    }
+
+    /**
+     * Applique un lot de modifications en une seule opération : le cache est mis à jour
+     * grâce à son index par dénomination, puis tout le lot est validé par une seule écriture
+     * du journal. Le coût est proportionnel à la taille du lot, pas à celle de l'inventaire.
+     * Une compaction est planifiée si le journal dépasse le seuil.
+     *
+     * @param changes les modifications, appliquées dans l'ordre
+     */
+    public void applyBatch(List<Change> changes) {
+        try {
+            write(changes);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Écriture de " + changes.size() + " modification(s) impossible", e);
+        }
+    }
+
+    /**
+     * Applique un lot de modifications (voir {@link #applyBatch(List)}) en signalant les erreurs.
+     * Le cache est modifié même si l'écriture du journal échoue : une compaction est alors
+     * planifiée pour écrire l'inventaire complet depuis le cache.
+     *
+     * @param changes les modifications, appliquées dans l'ordre
+     * @throws IOException si l'écriture du journal a échoué
+     */
+    @Override
+    public void write(List<Change> changes) throws IOException {
+        long debut = System.nanoTime();
+        // Copies prises hors du verrou : le cache ne garde jamais un item que l'appelant peut encore modifier
+        List<Change> figees = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            figees.add(change.figer());
+        }
+        CompletableFuture<Void> attente;
+        synchronized (journal) {
+            refresh();
+            List<Change> journalisees = new ArrayList<>(figees.size());
+            for (Change change : figees) {
+                journalisees.add(apply(change));
+            }
+            try {
+                attente = journal.ajouter(journalisees);
+            } catch (IOException e) {
+                Metriques.DAO_ECHECS.incrementer();
+                planifierCompaction();
+                throw e;
+            } finally {
+                versionCache = journal.version();
+            }
+            if (journal.taille() > seuilCompaction) {
+                planifierCompaction();
+            }
+        }
+        // Attente de la validation groupée en dehors du verrou, pour que d'autres écritures la rejoignent
+        try {
+            ItemJournal.attendre(attente);
+        } catch (IOException e) {
+            Metriques.DAO_ECHECS.incrementer();
+            synchronized (journal) {
+                planifierCompaction();
+            }
+            throw e;
+        }
+        Metriques.DAO_SAUVEGARDE.enregistrerDepuis(debut);
+        compter(changes);
+    }
+
+    /**
+     * Compte les modifications écrites, par nature.
+     *
+     * @param changes les modifications
+     */
+    private static void compter(List<Change> changes) {
+        for (Change change : changes) {
+            switch (change.getType()) {
+                case INSERT:
+                    Metriques.DAO_INSERTIONS.incrementer();
+                    break;
+                case DELETE:
+                    Metriques.DAO_SUPPRESSIONS.incrementer();
+                    break;
+                default:
+                    Metriques.DAO_MISES_A_JOUR.incrementer();
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Planifie une compaction en arrière-plan, si aucune n'est déjà prévue.
+     * Doit être appelée en détenant le verrou du journal.
+     */
+    private void planifierCompaction() {
+        if (!journal.compactionPlanifiee) {
+            journal.compactionPlanifiee = true;
+            COMPACTEUR.execute(this::compact);
+        }
+    }
+
+    /**
+     * Applique une modification au cache.
+     *
+     * @param change la modification
+     * @return la modification à journaliser, avec le rang de l'item parmi ses homonymes
+     *         (un renommage si l'item a été renommé sur place)
+     */
+    private Change apply(Change change) {
+        Item item = change.getItem();
+        if (change.getType() == Change.Type.INSERT) {
+            cache.inserer(item);
+            return change;
+        }
+        int position = cache.trouver(item);
+        if (position < 0) {
+            return change;
+        }
+        // Rang lu avant la modification : c'est celui que retrouvera le rejeu
+        int rang = cache.rang(position);
+        if (change.getType() == Change.Type.DELETE) {
+            cache.retirer(position);
+            return change.auRang(rang);
+        }
+        String ancienne = cache.get(position).getDenomination();
+        cache.remplacer(position, item);
+        if (!Objects.equals(ancienne, item.getDenomination())) {
+            return Change.rename(ancienne, rang, item);
+        }
+        return change.auRang(rang);
+    }
+
+    /**
+     * Écrit immédiatement les modifications en attente de validation groupée.
+     */
+    @Override
+    public void flush() {
+        try {
+            journal.vider();
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Écriture du journal impossible", e);
+        }
+    }
+
+    /**
+     * Replie le journal dans un nouvel instantané JSON, puis vide le journal.
+     * Le journal n'est vidé que si l'instantané a été entièrement écrit.
+     */
+    public void compact() {
+        synchronized (journal) {
+            journal.compactionPlanifiee = false;
+            refresh();
+            List<Item> items = cache.copie();
+            long debut = System.nanoTime();
+            try {
+                // Les enregistrements en attente sont écrits avant d'être repliés dans l'instantané
+                journal.vider();
+                saveAllItems(items);
+                writeBinarySnapshot(items, file.length(), file.lastModified());
+                journal.reinitialiser();
+                Metriques.DAO_SAUVEGARDE.enregistrerDepuis(debut);
+            } catch (IOException e) {
+                Metriques.DAO_ECHECS.incrementer();
+                LOG.log(Level.SEVERE, "Compaction de " + file + " impossible", e);
+            }
+        }
     }
 }
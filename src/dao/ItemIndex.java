@@ -0,0 +1,262 @@
+package dao;
+
+import model.Item;
+import java.util.*;
+
+/**
+ * Liste d'items indexée par dénomination et par identité, utilisée pour le cache d'{@link ItemDAO}
+ * et le rejeu du journal.
+ *
+ * <p>Les mises à jour et suppressions se font en temps constant grâce aux index.
+ * Une suppression laisse un emplacement vide dans la liste, pour ne pas décaler
+ * les positions indexées ; les emplacements vides sont récupérés lorsqu'ils deviennent
+ * trop nombreux. Plusieurs items peuvent partager une dénomination : l'index des dénominations
+ * désigne alors le premier dans l'ordre de la liste, et les suivants se retrouvent par leur
+ * {@linkplain #rang(int) rang} parmi les homonymes. Un item est d'abord cherché par son
+ * {@linkplain Item#getIdentite() identité}, ce qui le distingue de ses homonymes et le retrouve
+ * après un renommage.</p>
+ *
+ * <p>Les positions ne restent valables que jusqu'à la modification suivante.</p>
+ */
+class ItemIndex {
+    /** Items, dans l'ordre d'insertion ; null pour un emplacement libéré. */
+    private final List<Item> items;
+    /** Position de la première occurrence de chaque dénomination. */
+    private final Map<String, Integer> index;
+    /** Position de chaque item, par identité. */
+    private final Map<Object, Integer> parIdentite;
+    /** Nombre d'emplacements libérés. */
+    private int trous;
+    /** Vrai si plusieurs items ont partagé une dénomination. */
+    private boolean doublons;
+
+    /**
+     * Indexe une liste d'items, qui est ensuite modifiée sur place.
+     *
+     * @param items les items à indexer
+     */
+    ItemIndex(List<Item> items) {
+        this.items = items;
+        this.index = new HashMap<>(Math.max(16, items.size() * 4 / 3 + 1));
+        this.parIdentite = new IdentityHashMap<>(items.size());
+        reindexer();
+    }
+
+    /**
+     * Reconstruit les index à partir de la liste.
+     */
+    private void reindexer() {
+        index.clear();
+        parIdentite.clear();
+        doublons = false;
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            parIdentite.put(item.getIdentite(), i);
+            indexerNom(i, item.getDenomination());
+        }
+    }
+
+    /**
+     * Enregistre une position sous sa dénomination, si elle en est la première occurrence.
+     *
+     * @param position la position
+     * @param denomination la dénomination de l'item à cette position
+     */
+    private void indexerNom(int position, String denomination) {
+        Integer premiere = index.putIfAbsent(denomination, position);
+        if (premiere != null) {
+            doublons = true;
+            if (position < premiere) {
+                index.put(denomination, position);
+            }
+        }
+    }
+
+    /**
+     * Retire une position de l'index des dénominations ; l'homonyme suivant la remplace.
+     *
+     * @param position la position
+     * @param denomination la dénomination sous laquelle elle est indexée
+     */
+    private void desindexerNom(int position, String denomination) {
+        Integer premiere = index.get(denomination);
+        if (premiere == null || premiere != position) {
+            return;
+        }
+        index.remove(denomination);
+        if (doublons) {
+            for (int i = position + 1; i < items.size(); i++) {
+                Item item = items.get(i);
+                if (item != null && Objects.equals(item.getDenomination(), denomination)) {
+                    index.put(denomination, i);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Ajoute un item en fin de liste.
+     *
+     * @param item l'item à ajouter
+     */
+    void inserer(Item item) {
+        items.add(item);
+        parIdentite.put(item.getIdentite(), items.size() - 1);
+        indexerNom(items.size() - 1, item.getDenomination());
+    }
+
+    /**
+     * Cherche un item par son identité, ou à défaut le premier item de même dénomination.
+     *
+     * @param item l'item, éventuellement une copie ou un item renommé
+     * @return sa position, ou -1 s'il est absent
+     */
+    int trouver(Item item) {
+        int position = positionDe(item);
+        return position >= 0 ? position : trouver(item.getDenomination(), 0);
+    }
+
+    /**
+     * Cherche un item par son identité uniquement.
+     *
+     * @param item l'item, éventuellement une copie ou un item renommé
+     * @return sa position, ou -1 s'il est absent
+     */
+    int positionDe(Item item) {
+        Integer position = parIdentite.get(item.getIdentite());
+        return position == null ? -1 : position;
+    }
+
+    /**
+     * Cherche un item par sa dénomination et son rang parmi les items de cette dénomination.
+     *
+     * @param denomination la dénomination
+     * @param rang le rang parmi les homonymes, 0 pour le premier
+     * @return sa position, ou -1 s'il est absent
+     */
+    int trouver(String denomination, int rang) {
+        Integer premiere = index.get(denomination);
+        if (premiere == null || rang == 0) {
+            return premiere == null ? -1 : premiere;
+        }
+        if (doublons) {
+            for (int i = premiere + 1; i < items.size(); i++) {
+                Item item = items.get(i);
+                if (item != null && Objects.equals(item.getDenomination(), denomination) && --rang == 0) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retourne le rang d'un item parmi les items de même dénomination, dans l'ordre de la liste.
+     *
+     * @param position la position de l'item
+     * @return le nombre d'homonymes qui le précèdent
+     */
+    int rang(int position) {
+        if (!doublons) {
+            return 0;
+        }
+        String denomination = items.get(position).getDenomination();
+        int rang = 0;
+        for (int i = index.get(denomination); i < position; i++) {
+            Item item = items.get(i);
+            if (item != null && Objects.equals(item.getDenomination(), denomination)) {
+                rang++;
+            }
+        }
+        return rang;
+    }
+
+    /**
+     * Retourne l'item d'une position.
+     *
+     * @param position la position, occupée
+     * @return l'item
+     */
+    Item get(int position) {
+        return items.get(position);
+    }
+
+    /**
+     * Remplace l'item d'une position par un nouvel état, éventuellement renommé.
+     *
+     * @param position la position, occupée
+     * @param item le nouvel état de l'item
+     */
+    void remplacer(int position, Item item) {
+        Item ancien = items.set(position, item);
+        parIdentite.remove(ancien.getIdentite());
+        parIdentite.put(item.getIdentite(), position);
+        if (!Objects.equals(ancien.getDenomination(), item.getDenomination())) {
+            desindexerNom(position, ancien.getDenomination());
+            indexerNom(position, item.getDenomination());
+        }
+    }
+
+    /**
+     * Supprime l'item d'une position.
+     *
+     * @param position la position, occupée
+     */
+    void retirer(int position) {
+        Item item = items.set(position, null);
+        trous++;
+        parIdentite.remove(item.getIdentite());
+        desindexerNom(position, item.getDenomination());
+        if (trous > 64 && trous > items.size() / 2) {
+            compacter();
+        }
+    }
+
+    /**
+     * Supprime tous les items d'une dénomination.
+     *
+     * @param denomination la dénomination à supprimer
+     */
+    void supprimer(String denomination) {
+        int position;
+        while ((position = trouver(denomination, 0)) >= 0) {
+            retirer(position);
+        }
+    }
+
+    /**
+     * Récupère les emplacements libérés et reconstruit les index.
+     */
+    void compacter() {
+        if (trous > 0) {
+            items.removeIf(Objects::isNull);
+            trous = 0;
+            reindexer();
+        }
+    }
+
+    /**
+     * Retourne le nombre d'items.
+     *
+     * @return le nombre d'items
+     */
+    int taille() {
+        return items.size() - trous;
+    }
+
+    /**
+     * Retourne une copie de la liste des items, sans emplacement vide.
+     *
+     * @return la liste des items
+     */
+    List<Item> copie() {
+        List<Item> copie = new ArrayList<>(taille());
+        for (Item item : items) {
+            if (item != null) {
+                copie.add(item);
+            }
+        }
+        return copie;
+    }
+}
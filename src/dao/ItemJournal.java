@@ -0,0 +1,512 @@
+package dao;
+
+import model.Item;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Journal des modifications appliquées au fichier JSON de persistance.
+ *
+ * <p>Chaque insertion, mise à jour ou suppression est ajoutée en fin de fichier sous forme
+ * d'un petit enregistrement, ce qui rend le coût d'une modification indépendant de la taille
+ * de l'inventaire. Au chargement, le journal est rejoué par-dessus le dernier instantané
+ * (le fichier JSON), puis il est replié dans un nouvel instantané par {@link ItemDAO}
+ * lorsqu'il dépasse un seuil.</p>
+ *
+ * <p>Format (une ligne par enregistrement) :</p>
+ * <pre>
+ * &#64; taille date      en-tête : instantané sur lequel s'appuie le journal
+ * + {...}                insertion d'un item
+ * ~ [n] {...}            mise à jour d'un item (identifié par sa dénomination)
+ * - n "denomination"     suppression d'un item
+ * > [n] "ancienne" {...} mise à jour d'un item renommé
+ * </pre>
+ *
+ * <p>{@code n} est le rang de l'item parmi les items de même dénomination, dans l'ordre de la
+ * liste, omis lorsqu'il vaut 0 ; il distingue des homonymes. Une suppression sans rang, écrite
+ * par une version antérieure, supprime tous les items de la dénomination.</p>
+ *
+ * <p>L'en-tête permet d'ignorer un journal déjà replié : si l'application s'arrête entre
+ * l'écriture du nouvel instantané et la remise à zéro du journal, l'instantané ne correspond
+ * plus à l'en-tête et le journal n'est pas rejoué une seconde fois.</p>
+ *
+ * <p>Les écritures sont validées par groupes selon le {@link ModeDurabilite} : les enregistrements
+ * arrivant dans le même intervalle de vidage sont écrits en une fois et forcés sur disque par un
+ * seul {@code fsync}. Des enregistrements dont l'écriture a échoué restent en attente et sont
+ * réécrits au vidage suivant ; en mode {@link ModeDurabilite#DIFFEREE}, où personne n'attend la
+ * validation, l'échec est signalé à l'ajout suivant. Un journal unique est partagé par fichier
+ * (voir {@link #pour(File, ModeDurabilite, long)}), configuré à sa création ; son moniteur sert
+ * aussi de verrou à {@link ItemDAO} pour toutes les opérations sur ces fichiers.</p>
+ */
+class ItemJournal {
+    private static final Logger LOG = Logger.getLogger(ItemJournal.class.getName());
+
+    /** Marqueur d'en-tête. */
+    static final char ENTETE = '@';
+    /** Marqueur d'insertion. */
+    static final char INSERTION = '+';
+    /** Marqueur de mise à jour. */
+    static final char MISE_A_JOUR = '~';
+    /** Marqueur de suppression. */
+    static final char SUPPRESSION = '-';
+    /** Marqueur de mise à jour d'un item renommé. */
+    static final char RENOMMAGE = '>';
+
+    /** Journaux ouverts, un par fichier de persistance. */
+    private static final Map<String, ItemJournal> JOURNAUX = new HashMap<>();
+    /** Thread de vidage des validations groupées. */
+    private static final ScheduledExecutorService VIDAGE = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "vidage-journal-items");
+        t.setDaemon(true);
+        return t;
+    });
+
+    /** Fichier du journal. */
+    private final File fichier;
+    /** Instantané sur lequel s'appuie le journal. */
+    private final File instantane;
+    /** Enregistrements en attente de validation. */
+    private final StringBuilder enAttente = new StringBuilder();
+    /** Rédacteur des enregistrements dans le tampon d'attente. */
+    private final JsonItemWriter redacteur = new JsonItemWriter(enAttente);
+    /** Appelants attendant la prochaine validation groupée. */
+    private final List<CompletableFuture<Void>> attentes = new ArrayList<>();
+    /** Vrai si un vidage est déjà planifié. */
+    private boolean vidagePlanifie;
+    /** Vrai si une compaction est déjà planifiée par {@link ItemDAO}. */
+    boolean compactionPlanifiee;
+    /** Nombre de lots ajoutés depuis l'ouverture du journal. */
+    private long version;
+    /** Taille du journal après sa dernière lecture ou écriture par ce processus. */
+    private long tailleConnue = -1;
+    /** Taille de l'instantané lors de la dernière lecture ou écriture par ce processus. */
+    private long tailleInstantaneConnue = -1;
+    /** Date de l'instantané lors de la dernière lecture ou écriture par ce processus. */
+    private long dateInstantaneConnue = -1;
+    /** Mode de durabilité des écritures. */
+    private final ModeDurabilite mode;
+    /** Intervalle de vidage des validations groupées, en millisecondes. */
+    private final long intervalleVidage;
+    /** Échec d'un vidage en mode différé, pas encore signalé ; null après un vidage réussi. */
+    private IOException erreurDifferee;
+
+    /**
+     * Crée le journal associé à un instantané JSON.
+     * Le journal est placé à côté de l'instantané, avec l'extension {@code .log}.
+     *
+     * @param instantane le fichier JSON de persistance
+     * @param mode le mode de durabilité
+     * @param intervalleVidage l'intervalle de vidage des validations groupées, en millisecondes
+     */
+    private ItemJournal(File instantane, ModeDurabilite mode, long intervalleVidage) {
+        this.instantane = instantane;
+        this.fichier = new File(instantane.getPath() + ".log");
+        this.mode = mode;
+        this.intervalleVidage = intervalleVidage;
+        // Les enregistrements encore en attente sont écrits à l'arrêt normal de l'application
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try {
+                vider();
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Écriture du journal impossible à l'arrêt", e);
+            }
+        }, "arret-journal-items"));
+    }
+
+    /**
+     * Retourne le journal partagé associé à un instantané JSON, créé avec la configuration donnée
+     * s'il n'est pas encore ouvert. Un journal ouvert n'est jamais reconfiguré : ses écritures
+     * en cours reposent sur sa configuration.
+     *
+     * @param instantane le fichier JSON de persistance
+     * @param mode le mode de durabilité
+     * @param intervalleVidage l'intervalle de vidage des validations groupées, en millisecondes
+     * @return le journal de ce fichier
+     * @throws IllegalStateException si le journal est déjà ouvert avec une autre configuration
+     */
+    static synchronized ItemJournal pour(File instantane, ModeDurabilite mode, long intervalleVidage) {
+        ItemJournal journal = JOURNAUX.computeIfAbsent(instantane.getAbsolutePath(),
+                chemin -> new ItemJournal(instantane, mode, intervalleVidage));
+        if (journal.mode != mode || journal.intervalleVidage != intervalleVidage) {
+            throw new IllegalStateException("journal de " + instantane + " déjà ouvert en mode "
+                    + journal.mode + " (vidage toutes les " + journal.intervalleVidage + " ms)");
+        }
+        return journal;
+    }
+
+    /**
+     * Retourne la taille du journal en octets.
+     *
+     * @return la taille du journal
+     */
+    long taille() {
+        return fichier.length();
+    }
+
+    /**
+     * Ajoute des enregistrements en fin de journal, selon le mode de durabilité configuré.
+     * Un lot est toujours validé en une seule écriture. En mode {@link ModeDurabilite#GROUPEE},
+     * l'appelant doit ensuite attendre la validation avec {@link #attendre(CompletableFuture)},
+     * de préférence après avoir relâché le verrou.
+     *
+     * @param changes les modifications à journaliser
+     * @return la validation à attendre, ou null s'il n'y a rien à attendre
+     * @throws IOException en cas d'erreur d'écriture (mode synchrone), ou si un vidage différé
+     *         a échoué depuis l'ajout précédent ; les enregistrements restent en attente
+     */
+    synchronized CompletableFuture<Void> ajouter(List<Change> changes) throws IOException {
+        if (changes.isEmpty()) {
+            return null;
+        }
+        for (Change change : changes) {
+            enregistrer(change);
+        }
+        version++;
+        if (mode == ModeDurabilite.SYNCHRONE) {
+            vider();
+            return null;
+        }
+        CompletableFuture<Void> attente = null;
+        if (mode == ModeDurabilite.GROUPEE) {
+            attente = new CompletableFuture<>();
+            attentes.add(attente);
+        }
+        if (!vidagePlanifie) {
+            vidagePlanifie = true;
+            VIDAGE.schedule(this::viderEnArrierePlan, intervalleVidage, TimeUnit.MILLISECONDS);
+        }
+        if (erreurDifferee != null) {
+            IOException erreur = erreurDifferee;
+            erreurDifferee = null;
+            throw new IOException("écriture différée du journal impossible", erreur);
+        }
+        return attente;
+    }
+
+    /**
+     * Attend la validation groupée d'un enregistrement.
+     *
+     * @param attente la validation renvoyée par {@link #ajouter(List)}, éventuellement null
+     * @throws IOException si l'écriture groupée a échoué
+     */
+    static void attendre(CompletableFuture<Void> attente) throws IOException {
+        if (attente == null) {
+            return;
+        }
+        try {
+            attente.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("validation du journal interrompue");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof IOException
+                    ? (IOException) e.getCause() : new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Retourne le nombre de lots ajoutés depuis l'ouverture du journal, toutes instances
+     * d'{@link ItemDAO} confondues.
+     *
+     * @return la version courante du journal
+     */
+    synchronized long version() {
+        return version;
+    }
+
+    /**
+     * Mémorise l'état des fichiers tel qu'il vient d'être lu, pour détecter ensuite
+     * les modifications faites par un autre processus.
+     */
+    synchronized void marquerLu() {
+        tailleConnue = fichier.length();
+        tailleInstantaneConnue = instantane.length();
+        dateInstantaneConnue = instantane.lastModified();
+    }
+
+    /**
+     * Indique si les fichiers ont été modifiés par un autre processus depuis la dernière lecture
+     * ou la dernière écriture de ce journal. Seules leurs tailles et dates sont consultées.
+     *
+     * @return true si le journal ou l'instantané ont changé sur disque
+     */
+    synchronized boolean estModifieAilleurs() {
+        return fichier.length() != tailleConnue
+                || instantane.length() != tailleInstantaneConnue
+                || instantane.lastModified() != dateInstantaneConnue;
+    }
+
+    /**
+     * Vidage planifié des enregistrements en attente.
+     */
+    private void viderEnArrierePlan() {
+        try {
+            vider();
+        } catch (IOException e) {
+            // L'erreur a été transmise aux appelants en attente, ou le sera au prochain ajout
+            LOG.log(Level.SEVERE, "Validation groupée du journal impossible", e);
+        }
+    }
+
+    /**
+     * Écrit les enregistrements en attente en une seule écriture, force le journal sur disque,
+     * puis libère les appelants qui attendaient cette validation.
+     * En cas d'échec, les enregistrements restent en attente pour le vidage suivant, et ce qui
+     * a pu être écrit de ce vidage est retiré du fichier.
+     *
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    synchronized void vider() throws IOException {
+        vidagePlanifie = false;
+        if (enAttente.length() == 0) {
+            return;
+        }
+        List<CompletableFuture<Void>> valides = new ArrayList<>(attentes);
+        attentes.clear();
+        try {
+            // Un journal périmé (déjà replié) est remplacé avant d'y ajouter quoi que ce soit
+            boolean nouveau = fichier.length() == 0 || !estAJour();
+            CharSequence texte = nouveau ? entete() + enAttente : enAttente;
+            ByteBuffer octets = StandardCharsets.UTF_8.encode(CharBuffer.wrap(texte));
+            try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, nouveau ? StandardOpenOption.TRUNCATE_EXISTING : StandardOpenOption.APPEND)) {
+                long fin = canal.size();
+                try {
+                    while (octets.hasRemaining()) {
+                        canal.write(octets);
+                    }
+                    canal.force(false);
+                } catch (IOException e) {
+                    // Un enregistrement partiel empêcherait de rejouer ceux qui seront réécrits après lui
+                    try {
+                        canal.truncate(fin);
+                    } catch (IOException suppression) {
+                        e.addSuppressed(suppression);
+                    }
+                    throw e;
+                }
+            }
+            enAttente.setLength(0);
+            tailleConnue = fichier.length();
+            erreurDifferee = null;
+        } catch (IOException e) {
+            if (mode == ModeDurabilite.DIFFEREE) {
+                erreurDifferee = e;
+            }
+            for (CompletableFuture<Void> attente : valides) {
+                attente.completeExceptionally(e);
+            }
+            throw e;
+        }
+        for (CompletableFuture<Void> attente : valides) {
+            attente.complete(null);
+        }
+    }
+
+    /**
+     * Retourne les dénominations concernées par les enregistrements à rejouer sur l'instantané
+     * courant : celles des items insérés, mis à jour ou supprimés, avant et après un renommage.
+     * Les items de l'instantané qui n'en portent aucune sont identiques après le rejeu.
+     *
+     * @return les dénominations, vide si le journal est vide ou déjà replié
+     */
+    synchronized Set<String> denominations() {
+        Set<String> denominations = new HashSet<>();
+        if (fichier.length() == 0) {
+            return denominations;
+        }
+        try (JsonItemReader reader = new JsonItemReader(new FileReader(fichier, StandardCharsets.UTF_8))) {
+            if (reader.nextMarker() != ENTETE) {
+                throw new IOException("en-tête du journal absent");
+            }
+            long taille = (long) reader.nextNumber();
+            long date = (long) reader.nextNumber();
+            if (taille != instantane.length() || date != instantane.lastModified()) {
+                return denominations;
+            }
+            int marqueur;
+            while ((marqueur = reader.nextMarker()) != -1) {
+                if (marqueur != INSERTION && marqueur != MISE_A_JOUR && marqueur != SUPPRESSION && marqueur != RENOMMAGE) {
+                    break;
+                }
+                if (marqueur != INSERTION) {
+                    lireRang(reader);
+                }
+                if (marqueur == SUPPRESSION || marqueur == RENOMMAGE) {
+                    denominations.add(reader.nextString());
+                }
+                if (marqueur != SUPPRESSION) {
+                    Item item = reader.nextItem();
+                    if (item != null) {
+                        denominations.add(item.getDenomination());
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Le rejeu s'arrêtera au même enregistrement
+        }
+        return denominations;
+    }
+
+    /**
+     * Rejoue le journal sur les items issus de l'instantané.
+     * Un enregistrement tronqué en fin de fichier (arrêt brutal pendant l'écriture) est ignoré.
+     *
+     * @param items les items indexés de l'instantané, modifiés sur place
+     * @return le nombre d'enregistrements rejoués
+     * @see #denominations()
+     */
+    synchronized int rejouer(ItemIndex items) {
+        if (fichier.length() == 0) {
+            return 0;
+        }
+        int rejoues = 0;
+        try (JsonItemReader reader = new JsonItemReader(new FileReader(fichier, StandardCharsets.UTF_8))) {
+            if (reader.nextMarker() != ENTETE) {
+                throw new IOException("en-tête du journal absent");
+            }
+            long taille = (long) reader.nextNumber();
+            long date = (long) reader.nextNumber();
+            if (taille != instantane.length() || date != instantane.lastModified()) {
+                // Journal antérieur à l'instantané courant : déjà replié
+                return 0;
+            }
+            int marqueur;
+            while ((marqueur = reader.nextMarker()) != -1) {
+                switch (marqueur) {
+                    case INSERTION: inserer(items, reader.nextItem()); break;
+                    case MISE_A_JOUR: mettreAJour(items, lireRang(reader), reader.nextItem()); break;
+                    case SUPPRESSION: supprimer(items, reader); break;
+                    case RENOMMAGE: renommer(items, lireRang(reader), reader.nextString(), reader.nextItem()); break;
+                    default: throw new IOException("enregistrement inconnu : " + (char) marqueur);
+                }
+                rejoues++;
+            }
+        } catch (IOException e) {
+            LOG.warning("Journal interrompu après " + rejoues + " enregistrement(s) : " + e.getMessage());
+        }
+        return rejoues;
+    }
+
+    private static void inserer(ItemIndex items, Item item) {
+        if (item != null) {
+            items.inserer(item);
+        }
+    }
+
+    /**
+     * Lit le rang facultatif qui suit le marqueur d'un enregistrement.
+     *
+     * @param reader le lecteur du journal
+     * @return le rang lu, 0 s'il est omis
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private static int lireRang(JsonItemReader reader) throws IOException {
+        return reader.hasNumber() ? (int) reader.nextNumber() : 0;
+    }
+
+    private static void mettreAJour(ItemIndex items, int rang, Item item) {
+        int position = item == null ? -1 : items.trouver(item.getDenomination(), rang);
+        if (position >= 0) {
+            items.remplacer(position, item);
+        }
+    }
+
+    private static void renommer(ItemIndex items, int rang, String ancienne, Item item) {
+        int position = item == null ? -1 : items.trouver(ancienne, rang);
+        if (position >= 0) {
+            items.remplacer(position, item);
+        }
+    }
+
+    private static void supprimer(ItemIndex items, JsonItemReader reader) throws IOException {
+        if (!reader.hasNumber()) {
+            // Format antérieur : tous les items de la dénomination
+            items.supprimer(reader.nextString());
+            return;
+        }
+        int rang = (int) reader.nextNumber();
+        int position = items.trouver(reader.nextString(), rang);
+        if (position >= 0) {
+            items.retirer(position);
+        }
+    }
+
+    /**
+     * Vide le journal après son repli dans un nouvel instantané.
+     * Le nouvel en-tête référence l'instantané qui vient d'être écrit.
+     *
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    synchronized void reinitialiser() throws IOException {
+        try (FileChannel canal = FileChannel.open(fichier.toPath(), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            canal.write(StandardCharsets.UTF_8.encode(entete()));
+            canal.force(false);
+        }
+        // Le nouvel instantané et le journal vide sont l'état connu de ce processus
+        marquerLu();
+    }
+
+    /**
+     * Vérifie que l'en-tête du journal référence l'instantané courant.
+     *
+     * @return true si le journal s'applique à l'instantané courant
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private boolean estAJour() throws IOException {
+        try (BufferedReader br = new BufferedReader(new FileReader(fichier, StandardCharsets.UTF_8))) {
+            return entete().trim().equals(br.readLine());
+        }
+    }
+
+    /**
+     * Construit l'en-tête référençant l'instantané courant.
+     *
+     * @return la ligne d'en-tête
+     */
+    private String entete() {
+        return ENTETE + " " + instantane.length() + " " + instantane.lastModified() + "\n";
+    }
+
+    /**
+     * Écrit la ligne d'un enregistrement dans le tampon d'attente.
+     *
+     * @param change la modification à journaliser
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    private void enregistrer(Change change) throws IOException {
+        Item item = change.getItem();
+        switch (change.getType()) {
+            case INSERT:
+                enAttente.append(INSERTION).append(' ');
+                redacteur.writeItem(item);
+                break;
+            case DELETE:
+                // Rang toujours écrit : sans lui, la suppression viserait tous les homonymes
+                enAttente.append(SUPPRESSION).append(' ').append(change.getRang()).append(' ');
+                redacteur.writeString(item.getDenomination());
+                break;
+            default:
+                enAttente.append(change.getAncienneDenomination() != null ? RENOMMAGE : MISE_A_JOUR).append(' ');
+                if (change.getRang() > 0) {
+                    enAttente.append(change.getRang()).append(' ');
+                }
+                if (change.getAncienneDenomination() != null) {
+                    redacteur.writeString(change.getAncienneDenomination());
+                    enAttente.append(' ');
+                }
+                redacteur.writeItem(item);
+                break;
+        }
+        enAttente.append('\n');
+    }
+}
@@ -0,0 +1,49 @@
+package dao;
+
+import model.Item;
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Stockage persistant de l'inventaire, utilisé par {@link PersistenceService} et l'interface graphique.
+ *
+ * <p>Deux implémentations : {@link ItemDAO}, un fichier JSON et son journal, et
+ * {@link ShardedItemStore}, un fichier JSON par segment de l'inventaire. Dans les deux cas,
+ * les items transmis sont des copies que l'appelant peut modifier sans toucher au stockage,
+ * et les modifications sont {@linkplain Change#figer() figées} avant d'être enregistrées.</p>
+ */
+public interface ItemStore {
+
+    /**
+     * Retourne tous les items.
+     *
+     * @return des copies des items, que l'appelant peut garder et modifier
+     */
+    List<Item> getAllItems();
+
+    /**
+     * Transmet l'inventaire par lots, pour que les premiers items soient utilisables sans attendre
+     * la fin du chargement. Par défaut, l'inventaire est transmis en un seul lot.
+     *
+     * @param premierLot le nombre d'items du premier lot
+     * @param lotMax le nombre maximal d'items d'un lot
+     * @param destination reçoit chaque lot ; des copies que le consommateur peut garder et modifier
+     */
+    default void chargerParLots(int premierLot, int lotMax, Consumer<List<Item>> destination) {
+        destination.accept(getAllItems());
+    }
+
+    /**
+     * Applique un lot de modifications et l'enregistre.
+     *
+     * @param changes les modifications, appliquées dans l'ordre
+     * @throws IOException si l'enregistrement a échoué
+     */
+    void write(List<Change> changes) throws IOException;
+
+    /**
+     * Écrit immédiatement les modifications acceptées mais pas encore enregistrées, s'il y en a.
+     */
+    void flush();
+}
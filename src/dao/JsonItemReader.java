@@ -0,0 +1,682 @@
+package dao;
+
+import model.Item;
+import model.Vin;
+import java.io.*;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.logging.Logger;
+
+/**
+ * Lecteur JSON en flux pour les items.
+ *
+ * <p>Le document est parcouru caractère par caractère depuis un {@link Reader}, en une seule passe :
+ * chaque objet du tableau est directement converti en {@link Vin}, sans copie intermédiaire
+ * du document ni {@link Map} par objet. Les chaînes échappées (guillemets, antislashs,
+ * séquences {@code &#92;uXXXX}) ainsi que les virgules à l'intérieur des descriptions sont
+ * correctement prises en charge.</p>
+ *
+ * <p>Utilisation typique :</p>
+ * <pre>
+ * try (JsonItemReader reader = new JsonItemReader(new FileReader(file))) {
+ *     List&lt;Item&gt; items = reader.readAll();
+ * }
+ * </pre>
+ */
+public class JsonItemReader implements Closeable {
+    private static final Logger LOG = Logger.getLogger(JsonItemReader.class.getName());
+
+    /** Marqueur de fin de flux. */
+    private static final int EOF = -1;
+    /** Clés reconnues dans un objet item, dans l'ordre des constantes ci-dessous. */
+    private static final String[] CLES = {
+        "denomination", "description", "quantite", "anneeProduction", "dateAjout", "prix",
+        "dlc", "image", "position", "phaseVieillissement", "note", "cepage", "region"
+    };
+    private static final int DENOMINATION = 0, DESCRIPTION = 1, QUANTITE = 2, ANNEE = 3, DATE_AJOUT = 4,
+            PRIX = 5, DLC = 6, IMAGE = 7, POSITION = 8, PHASE = 9, NOTE = 10, CEPAGE = 11, REGION = 12;
+    /** Puissances de dix exactement représentables en double (chemin rapide de conversion). */
+    private static final double[] PUISSANCES_DIX = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** Flux source. */
+    private final Reader reader;
+    /** Tampon de lecture. */
+    private final char[] buffer = new char[8192];
+    /** Position courante dans le tampon de lecture. */
+    private int position;
+    /** Nombre de caractères valides dans le tampon de lecture. */
+    private int limite;
+    /** Nombre de caractères consommés avant le tampon courant (pour les messages d'erreur). */
+    private long decalage;
+    /** Vrai si une erreur de syntaxe a interrompu la lecture d'une chaîne. */
+    private boolean chaineOuverte;
+    /** Tampon réutilisé pour lire les clés, les chaînes et les nombres. */
+    private final StringBuilder tampon = new StringBuilder(128);
+    /** Fuseau utilisé pour convertir les dates d'ajout, comme le faisait {@code SimpleDateFormat}. */
+    private final ZoneId zone = ZoneId.systemDefault();
+
+    /**
+     * Crée un lecteur sur le flux donné.
+     *
+     * @param reader le flux contenant le document JSON
+     */
+    public JsonItemReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * Lit l'intégralité du tableau JSON.
+     * Un document vide donne une liste vide ; les objets incomplets sont ignorés.
+     *
+     * @return la liste des items lus
+     * @throws IOException en cas d'erreur de lecture ou de syntaxe
+     */
+    public List<Item> readAll() throws IOException {
+        List<Item> items = new ArrayList<>();
+        if (!beginArray()) {
+            return items;
+        }
+        while (hasNext()) {
+            Item item = nextItem();
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        endArray();
+        return items;
+    }
+
+    /**
+     * Consomme le crochet ouvrant du tableau.
+     *
+     * @return false si le document est vide
+     * @throws IOException si le document ne commence pas par un tableau
+     */
+    public boolean beginArray() throws IOException {
+        int c = sauterEspaces();
+        if (c == EOF) {
+            return false;
+        }
+        attendre('[');
+        return true;
+    }
+
+    /**
+     * Indique s'il reste un objet à lire dans le tableau.
+     *
+     * @return true si un objet suit
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public boolean hasNext() throws IOException {
+        int c = sauterEspaces();
+        if (c == ',') {
+            position++;
+            c = sauterEspaces();
+        }
+        return c != ']' && c != EOF;
+    }
+
+    /**
+     * Consomme le crochet fermant du tableau.
+     *
+     * @throws IOException si le tableau n'est pas correctement fermé
+     */
+    public void endArray() throws IOException {
+        sauterEspaces();
+        attendre(']');
+    }
+
+    /**
+     * Lit l'objet suivant et le convertit en {@link Vin}.
+     * Un objet dont un champ est syntaxiquement invalide est ignoré en entier : la lecture reprend
+     * après sa fin, sans perdre les objets suivants.
+     *
+     * @return le vin lu, ou null si un champ obligatoire est absent ou invalide
+     * @throws IOException en cas d'erreur de lecture, ou si la valeur lue n'est pas un objet
+     */
+    public Item nextItem() throws IOException {
+        sauterEspaces();
+        attendre('{');
+        try {
+            return lireObjet();
+        } catch (ErreurSyntaxe e) {
+            LOG.warning("Item ignoré (" + e.getMessage() + ")");
+            resynchroniser();
+            return null;
+        }
+    }
+
+    /**
+     * Lit les champs d'un objet dont l'accolade ouvrante vient d'être consommée.
+     *
+     * @return le vin lu, ou null si un champ obligatoire est absent
+     * @throws IOException en cas d'erreur de lecture ou de syntaxe
+     */
+    private Item lireObjet() throws IOException {
+        String denomination = null, description = null, dlc = null, image = null, emplacement = null;
+        String phaseVieillissement = null, cepage = null, region = null;
+        int quantite = 0, anneeProduction = 0;
+        double prix = 0, note = 0;
+        Date dateAjout = null;
+        // Champs numériques et date obligatoires, comme dans le format historique ; la date peut être null
+        boolean aQuantite = false, aAnnee = false, aPrix = false, aNote = false, aDate = false;
+
+        int c = sauterEspaces();
+        while (c != '}') {
+            if (c == ',') {
+                position++;
+                c = sauterEspaces();
+                continue;
+            }
+            lireChaine();
+            int cle = indexCle();
+            sauterEspaces();
+            attendre(':');
+            sauterEspaces();
+            switch (cle) {
+                case DENOMINATION: denomination = lireChaineOuNull(); break;
+                case DESCRIPTION: description = lireChaineOuNull(); break;
+                case QUANTITE: quantite = (int) lireNombre(); aQuantite = true; break;
+                case ANNEE: anneeProduction = (int) lireNombre(); aAnnee = true; break;
+                case DATE_AJOUT: dateAjout = lireDate(); aDate = true; break;
+                case PRIX: prix = lireNombre(); aPrix = true; break;
+                case DLC: dlc = lireChaineOuNull(); break;
+                case IMAGE: image = lireChaineOuNull(); break;
+                case POSITION: emplacement = lireChaineOuNull(); break;
+                case PHASE: phaseVieillissement = lireChaineOuNull(); break;
+                case NOTE: note = lireNombre(); aNote = true; break;
+                case CEPAGE: cepage = lireChaineOuNull(); break;
+                case REGION: region = lireChaineOuNull(); break;
+                default: sauterValeur(); break;
+            }
+            c = sauterEspaces();
+            if (c == EOF) {
+                throw erreur("objet non terminé");
+            }
+        }
+        position++;
+
+        if (!aQuantite || !aAnnee || !aPrix || !aNote || !aDate) {
+            LOG.warning("Item ignoré (champ obligatoire manquant) : " + denomination);
+            return null;
+        }
+        Vin vin = new Vin(denomination, description, quantite, anneeProduction, dateAjout, prix, cepage, region);
+        vin.setDlc(dlc);
+        vin.setImage(image);
+        vin.setPosition(emplacement);
+        vin.setPhaseVieillissement(phaseVieillissement);
+        vin.setNote(note);
+        return vin;
+    }
+
+    /**
+     * Consomme le prochain caractère significatif du flux.
+     * Utilisé pour lire les marqueurs d'enregistrement du journal ({@link ItemJournal}).
+     *
+     * @return le caractère lu, ou -1 en fin de flux
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public int nextMarker() throws IOException {
+        sauterEspaces();
+        return lire();
+    }
+
+    /**
+     * Lit une valeur chaîne isolée.
+     *
+     * @return la chaîne lue, ou null pour le littéral {@code null}
+     * @throws IOException en cas d'erreur de syntaxe
+     */
+    public String nextString() throws IOException {
+        sauterEspaces();
+        return lireChaineOuNull();
+    }
+
+    /**
+     * Indique si la prochaine valeur est un nombre, sans la consommer.
+     * Utilisé pour les champs facultatifs des enregistrements du journal ({@link ItemJournal}).
+     *
+     * @return vrai si le prochain caractère significatif est un chiffre ou un signe moins
+     * @throws IOException en cas d'erreur de lecture
+     */
+    public boolean hasNumber() throws IOException {
+        int c = sauterEspaces();
+        return c == '-' || (c >= '0' && c <= '9');
+    }
+
+    /**
+     * Lit une valeur numérique isolée.
+     *
+     * @return la valeur lue
+     * @throws IOException en cas d'erreur de syntaxe
+     */
+    public double nextNumber() throws IOException {
+        sauterEspaces();
+        return lireNombre();
+    }
+
+    /**
+     * Ferme le flux sous-jacent.
+     *
+     * @throws IOException en cas d'erreur à la fermeture
+     */
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    /**
+     * Recherche la clé contenue dans le tampon parmi les clés connues.
+     *
+     * @return l'indice de la clé, ou -1 si elle est inconnue
+     */
+    private int indexCle() {
+        for (int i = 0; i < CLES.length; i++) {
+            if (CLES[i].contentEquals(tampon)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Lit une chaîne JSON, ou le littéral {@code null}.
+     *
+     * @return la chaîne lue, ou null
+     * @throws IOException en cas d'erreur de syntaxe
+     */
+    private String lireChaineOuNull() throws IOException {
+        if (peek() == 'n') {
+            lireLitteral("null");
+            return null;
+        }
+        lireChaine();
+        return tampon.toString();
+    }
+
+    /**
+     * Lit une chaîne JSON dans le tampon réutilisable en décodant les séquences d'échappement.
+     * Les séquences inconnues (ex : chemins Windows écrits sans échappement) sont conservées telles quelles.
+     *
+     * @throws IOException en cas d'erreur de syntaxe
+     */
+    private void lireChaine() throws IOException {
+        attendre('"');
+        tampon.setLength(0);
+        while (true) {
+            if (position >= limite && !remplir()) {
+                throw erreur("chaîne non terminée");
+            }
+            // Copie en bloc des caractères ordinaires
+            int debut = position;
+            while (position < limite) {
+                char c = buffer[position];
+                if (c == '"' || c == '\\') {
+                    break;
+                }
+                position++;
+            }
+            tampon.append(buffer, debut, position - debut);
+            if (position >= limite) {
+                continue;
+            }
+            char c = buffer[position++];
+            if (c == '"') {
+                return;
+            }
+            int e = lire();
+            switch (e) {
+                case '"': tampon.append('"'); break;
+                case '\\': tampon.append('\\'); break;
+                case '/': tampon.append('/'); break;
+                case 'b': tampon.append('\b'); break;
+                case 'f': tampon.append('\f'); break;
+                case 'n': tampon.append('\n'); break;
+                case 'r': tampon.append('\r'); break;
+                case 't': tampon.append('\t'); break;
+                case 'u': tampon.append(lireUnicode()); break;
+                case EOF: throw erreur("chaîne non terminée");
+                default: tampon.append('\\').append((char) e); break;
+            }
+        }
+    }
+
+    /**
+     * Avance jusqu'après la fin de l'objet en cours, après une erreur de syntaxe : les chaînes
+     * sont sautées, et les objets et tableaux imbriqués comptés.
+     *
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private void resynchroniser() throws IOException {
+        boolean chaine = chaineOuverte;
+        chaineOuverte = false;
+        int profondeur = 1;
+        int c;
+        while ((c = lire()) != EOF) {
+            if (chaine) {
+                if (c == '\\') {
+                    lire();
+                } else if (c == '"') {
+                    chaine = false;
+                }
+            } else if (c == '"') {
+                chaine = true;
+            } else if (c == '{' || c == '[') {
+                profondeur++;
+            } else if ((c == '}' || c == ']') && --profondeur == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lit les quatre chiffres hexadécimaux d'une séquence {@code &#92;uXXXX}.
+     *
+     * @return le caractère décodé
+     * @throws IOException si la séquence est invalide
+     */
+    private char lireUnicode() throws IOException {
+        int valeur = 0;
+        for (int i = 0; i < 4; i++) {
+            int c = lire();
+            int chiffre = Character.digit(c, 16);
+            if (chiffre < 0) {
+                // La chaîne reste ouverte, sauf si c'est son guillemet fermant qui manquait de chiffres
+                chaineOuverte = c != '"';
+                throw erreur("séquence \\u invalide");
+            }
+            valeur = (valeur << 4) | chiffre;
+        }
+        return (char) valeur;
+    }
+
+    /**
+     * Lit un nombre JSON.
+     * Les décimaux courants (prix, notes) sont convertis sans passer par une chaîne.
+     * Le littéral {@code null}, écrit pour une valeur non finie, donne {@code NaN} ; {@code NaN},
+     * {@code Infinity} et {@code -Infinity}, hors de JSON mais écrits par les versions antérieures,
+     * sont aussi acceptés.
+     *
+     * @return la valeur lue
+     * @throws IOException si la valeur n'est pas un nombre
+     */
+    private double lireNombre() throws IOException {
+        tampon.setLength(0);
+        int c = peek();
+        if (c == 'n') {
+            lireLitteral("null");
+            return Double.NaN;
+        }
+        if (c == 'N') {
+            lireLitteral("NaN");
+            return Double.NaN;
+        }
+        while (c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E' || (c >= '0' && c <= '9')) {
+            tampon.append((char) c);
+            position++;
+            c = peek();
+        }
+        if (c == 'I' && (tampon.length() == 0 || (tampon.length() == 1 && tampon.charAt(0) == '-'))) {
+            boolean negatif = tampon.length() == 1;
+            lireLitteral("Infinity");
+            return negatif ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        }
+        if (tampon.length() == 0) {
+            throw erreur("nombre attendu");
+        }
+        try {
+            return convertirNombre(tampon);
+        } catch (NumberFormatException e) {
+            throw erreur("nombre invalide : " + tampon);
+        }
+    }
+
+    /**
+     * Convertit un décimal simple (sans exposant, au plus 2^53 en mantisse et 22 décimales)
+     * par une seule division, correctement arrondie. Les autres formes sont déléguées
+     * à {@link Double#parseDouble(String)}.
+     *
+     * @param s le texte du nombre
+     * @return la valeur convertie
+     */
+    static double convertirNombre(CharSequence s) {
+        int n = s.length();
+        int i = 0;
+        boolean negatif = false;
+        if (s.charAt(0) == '-') {
+            negatif = true;
+            i++;
+        }
+        long mantisse = 0;
+        int decimales = 0;
+        boolean point = false;
+        boolean chiffre = false;
+        for (; i < n; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantisse = mantisse * 10 + (c - '0');
+                chiffre = true;
+                if (point) {
+                    decimales++;
+                }
+                if (mantisse >= (1L << 53) || decimales >= PUISSANCES_DIX.length) {
+                    return Double.parseDouble(s.toString());
+                }
+            } else if (c == '.' && !point) {
+                point = true;
+            } else {
+                return Double.parseDouble(s.toString());
+            }
+        }
+        if (!chiffre) {
+            throw new NumberFormatException(s.toString());
+        }
+        double valeur = mantisse / PUISSANCES_DIX[decimales];
+        return negatif ? -valeur : valeur;
+    }
+
+    /**
+     * Lit une date au format {@code yyyy-MM-dd}.
+     *
+     * @return la date à minuit dans le fuseau par défaut, ou null (date absente) pour le littéral
+     *         {@code null} ou une chaîne vide
+     * @throws IOException si la date est invalide
+     */
+    private Date lireDate() throws IOException {
+        if (peek() == 'n') {
+            lireLitteral("null");
+            return null;
+        }
+        lireChaine();
+        if (tampon.length() == 0) {
+            return null;
+        }
+        try {
+            LocalDate date;
+            if (tampon.length() == 10 && tampon.charAt(4) == '-' && tampon.charAt(7) == '-') {
+                date = LocalDate.of(chiffres(0, 4), chiffres(5, 7), chiffres(8, 10));
+            } else {
+                date = LocalDate.parse(tampon);
+            }
+            return Date.from(date.atStartOfDay(zone).toInstant());
+        } catch (DateTimeException | NumberFormatException e) {
+            throw erreur("date invalide : " + tampon);
+        }
+    }
+
+    /**
+     * Convertit une plage de chiffres du tampon en entier.
+     *
+     * @param debut indice de début (inclus)
+     * @param fin indice de fin (exclu)
+     * @return la valeur entière
+     */
+    private int chiffres(int debut, int fin) {
+        int valeur = 0;
+        for (int i = debut; i < fin; i++) {
+            char c = tampon.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(tampon.toString());
+            }
+            valeur = valeur * 10 + (c - '0');
+        }
+        return valeur;
+    }
+
+    /**
+     * Ignore une valeur quelconque (champ inconnu), y compris les objets et tableaux imbriqués.
+     *
+     * @throws IOException en cas d'erreur de syntaxe
+     */
+    private void sauterValeur() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            lireChaine();
+        } else if (c == '{' || c == '[') {
+            int profondeur = 0;
+            do {
+                c = sauterEspaces();
+                if (c == '"') {
+                    lireChaine();
+                    continue;
+                }
+                if (c == EOF) {
+                    throw erreur("valeur non terminée");
+                }
+                if (c == '{' || c == '[') {
+                    profondeur++;
+                } else if (c == '}' || c == ']') {
+                    profondeur--;
+                }
+                position++;
+            } while (profondeur > 0);
+        } else if (c == 't') {
+            lireLitteral("true");
+        } else if (c == 'f') {
+            lireLitteral("false");
+        } else if (c == 'n') {
+            lireLitteral("null");
+        } else {
+            lireNombre();
+        }
+    }
+
+    /**
+     * Consomme exactement le littéral donné.
+     *
+     * @param litteral le littéral attendu
+     * @throws IOException si le flux ne correspond pas
+     */
+    private void lireLitteral(String litteral) throws IOException {
+        for (int i = 0; i < litteral.length(); i++) {
+            if (lire() != litteral.charAt(i)) {
+                throw erreur("littéral " + litteral + " attendu");
+            }
+        }
+    }
+
+    /**
+     * Consomme le caractère attendu.
+     *
+     * @param attendu le caractère attendu
+     * @throws IOException si le caractère courant est différent
+     */
+    private void attendre(char attendu) throws IOException {
+        int c = lire();
+        if (c != attendu) {
+            throw erreur("'" + attendu + "' attendu");
+        }
+    }
+
+    /**
+     * Avance jusqu'au prochain caractère significatif sans le consommer.
+     *
+     * @return ce caractère, ou {@link #EOF}
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private int sauterEspaces() throws IOException {
+        while (true) {
+            if (position >= limite && !remplir()) {
+                return EOF;
+            }
+            char c = buffer[position];
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t' && c != '\uFEFF') {
+                return c;
+            }
+            position++;
+        }
+    }
+
+    /**
+     * Retourne le caractère courant sans le consommer.
+     *
+     * @return le caractère courant, ou {@link #EOF}
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private int peek() throws IOException {
+        if (position >= limite && !remplir()) {
+            return EOF;
+        }
+        return buffer[position];
+    }
+
+    /**
+     * Consomme et retourne le caractère courant.
+     *
+     * @return le caractère courant, ou {@link #EOF}
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private int lire() throws IOException {
+        if (position >= limite && !remplir()) {
+            return EOF;
+        }
+        return buffer[position++];
+    }
+
+    /**
+     * Recharge le tampon de lecture depuis le flux.
+     *
+     * @return false en fin de flux
+     * @throws IOException en cas d'erreur de lecture
+     */
+    private boolean remplir() throws IOException {
+        decalage += limite;
+        position = 0;
+        limite = 0;
+        int lus;
+        do {
+            lus = reader.read(buffer, 0, buffer.length);
+        } while (lus == 0);
+        if (lus < 0) {
+            return false;
+        }
+        limite = lus;
+        return true;
+    }
+
+    /**
+     * Construit une exception de syntaxe indiquant la position courante.
+     *
+     * @param message la description de l'erreur
+     * @return l'exception à lever
+     */
+    private IOException erreur(String message) {
+        return new ErreurSyntaxe("JSON invalide (caractère " + (decalage + position) + ") : " + message);
+    }
+
+    /**
+     * Erreur de syntaxe, distinguée des erreurs de lecture du flux.
+     */
+    private static final class ErreurSyntaxe extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        ErreurSyntaxe(String message) {
+            super(message);
+        }
+    }
+}
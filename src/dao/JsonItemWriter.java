@@ -0,0 +1,178 @@
+package dao;
+
+import model.Item;
+import model.Vin;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+
+/**
+ * Rédacteur JSON en flux pour les items, pendant de {@link JsonItemReader}.
+ *
+ * <p>Chaque item est écrit directement sur la sortie (un {@link java.io.Writer} tamponné
+ * sur un fichier ou un canal, ou un {@link StringBuilder}), sans construire le document
+ * en mémoire : l'occupation mémoire reste constante quelle que soit la taille de l'inventaire.
+ * Les chaînes sont échappées selon la norme JSON et les dates sont formatées avec un
+ * unique {@link DateTimeFormatter}, sûr entre threads.</p>
+ */
+public class JsonItemWriter {
+    /** Format des dates d'ajout ({@code yyyy-MM-dd}), partagé et sûr entre threads. */
+    static final DateTimeFormatter FORMAT_DATE = DateTimeFormatter.ISO_LOCAL_DATE;
+    /** Chiffres hexadécimaux pour les séquences {@code &#92;uXXXX}. */
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    /** Sortie. */
+    private final Appendable out;
+    /** Fuseau utilisé pour convertir les dates d'ajout. */
+    private final ZoneId zone = ZoneId.systemDefault();
+    /** Vrai entre {@link #beginArray()} et {@link #endArray()}. */
+    private boolean dansTableau;
+    /** Vrai tant qu'aucun item n'a été écrit dans le tableau courant. */
+    private boolean premier;
+    /** Dernière date formatée (les items ajoutés le même jour sont fréquents). */
+    private long derniereDate = Long.MIN_VALUE;
+    /** Texte de la dernière date formatée. */
+    private String derniereDateTexte;
+
+    /**
+     * Crée un rédacteur sur la sortie donnée.
+     *
+     * @param out la sortie ; un {@link java.io.Writer} doit être tamponné par l'appelant
+     */
+    public JsonItemWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Ouvre le tableau d'items.
+     *
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void beginArray() throws IOException {
+        out.append("[\n");
+        dansTableau = true;
+        premier = true;
+    }
+
+    /**
+     * Ferme le tableau d'items.
+     *
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void endArray() throws IOException {
+        out.append("\n]");
+        dansTableau = false;
+    }
+
+    /**
+     * Écrit un item. Dans un tableau, les items sont séparés par une virgule et un saut de ligne,
+     * comme dans {@code items.json} ; hors tableau, l'objet est écrit seul sur la sortie.
+     *
+     * @param item l'item à écrire
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void writeItem(Item item) throws IOException {
+        if (dansTableau) {
+            if (!premier) {
+                out.append(",\n");
+            }
+            premier = false;
+            out.append("  ");
+        }
+        out.append("{\"denomination\":");
+        writeString(item.getDenomination());
+        out.append(",\"description\":");
+        writeString(item.getDescription());
+        out.append(",\"quantite\":").append(String.valueOf(item.getQuantite()));
+        out.append(",\"anneeProduction\":").append(String.valueOf(item.getAnneeProduction()));
+        // Une date absente est écrite null ; le lecteur l'accepte, comme la chaîne vide des fichiers plus anciens
+        out.append(",\"dateAjout\":");
+        if (item.getDateAjout() == null) {
+            out.append("null");
+        } else {
+            out.append('"').append(formaterDate(item.getDateAjout())).append('"');
+        }
+        out.append(",\"prix\":");
+        writeDecimal(item.getPrix());
+        out.append(",\"dlc\":");
+        writeString(item.getDlc());
+        out.append(",\"image\":");
+        writeString(item.getImage());
+        out.append(",\"position\":");
+        writeString(item.getPosition());
+        out.append(",\"phaseVieillissement\":");
+        writeString(item.getPhaseVieillissement());
+        out.append(",\"note\":");
+        writeDecimal(item.getNote());
+        Vin vin = item instanceof Vin ? (Vin) item : null;
+        out.append(",\"cepage\":");
+        writeString(vin != null ? vin.getCepage() : null);
+        out.append(",\"region\":");
+        writeString(vin != null ? vin.getRegion() : null);
+        out.append('}');
+    }
+
+    /**
+     * Écrit une chaîne JSON entre guillemets, en échappant les caractères spéciaux.
+     * Une valeur null est écrite comme une chaîne vide, comme dans le format historique.
+     *
+     * @param valeur la chaîne à écrire
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void writeString(String valeur) throws IOException {
+        out.append('"');
+        if (valeur != null) {
+            int debut = 0;
+            int n = valeur.length();
+            for (int i = 0; i < n; i++) {
+                char c = valeur.charAt(i);
+                if (c != '"' && c != '\\' && c >= 0x20) {
+                    continue;
+                }
+                // Copie en bloc des caractères ordinaires précédents
+                out.append(valeur, debut, i);
+                debut = i + 1;
+                switch (c) {
+                    case '"': out.append("\\\""); break;
+                    case '\\': out.append("\\\\"); break;
+                    case '\n': out.append("\\n"); break;
+                    case '\r': out.append("\\r"); break;
+                    case '\t': out.append("\\t"); break;
+                    default:
+                        out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xF]);
+                        break;
+                }
+            }
+            out.append(valeur, debut, n);
+        }
+        out.append('"');
+    }
+
+    /**
+     * Écrit un nombre décimal. JSON n'a pas de valeur pour {@code NaN} ni les infinis :
+     * ils sont écrits {@code null}, que le lecteur relit comme {@code NaN}.
+     *
+     * @param valeur le nombre à écrire
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void writeDecimal(double valeur) throws IOException {
+        out.append(Double.isFinite(valeur) ? String.valueOf(valeur) : "null");
+    }
+
+    /**
+     * Formate une date d'ajout au format {@code yyyy-MM-dd}.
+     *
+     * @param date la date
+     * @return le texte de la date
+     */
+    private String formaterDate(Date date) {
+        long millis = date.getTime();
+        if (millis != derniereDate) {
+            derniereDateTexte = FORMAT_DATE.format(Instant.ofEpochMilli(millis).atZone(zone).toLocalDate());
+            derniereDate = millis;
+        }
+        return derniereDateTexte;
+    }
+}
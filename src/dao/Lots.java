@@ -0,0 +1,115 @@
+package dao;
+
+import model.Item;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Regroupe des items lus un à un en lots transmis à un consommateur, pour
+ * {@link ItemDAO#chargerParLots(int, int, Consumer)}.
+ *
+ * <p>Les lots grandissent en doublant, du premier lot jusqu'au lot maximal : le premier lot
+ * arrive vite, les suivants coûtent peu au consommateur. Chaque lot est une nouvelle liste
+ * de {@linkplain Item#copie() copies} des items lus, que le consommateur peut garder et modifier
+ * sans toucher au cache du DAO.</p>
+ *
+ * <p>Les items de certaines dénominations peuvent être {@linkplain #retenir(Set) retenus} :
+ * ils ne sont pas transmis, l'appelant transmettant plus tard leur état définitif.</p>
+ */
+final class Lots implements Consumer<Item> {
+    private final int lotMax;
+    private final Consumer<List<Item>> destination;
+    /** Taille du lot en cours. */
+    private int taille;
+    private List<Item> courant;
+    /** Dénominations des items à ne pas transmettre. */
+    private Set<String> retenues = Collections.emptySet();
+    /** Nombre de premiers items à ignorer, déjà traités par une lecture précédente. */
+    private int aIgnorer;
+    /** Nombre d'items reçus, retenus compris. */
+    private int lus;
+    /** Nombre d'items reçus jusqu'au dernier lot transmis, retenus compris. */
+    private int lusTransmis;
+    /** Temps passé dans le consommateur, en nanosecondes. */
+    private long duree;
+
+    /**
+     * Crée un regroupement en lots.
+     *
+     * @param premierLot le nombre d'items du premier lot
+     * @param lotMax le nombre maximal d'items d'un lot
+     * @param destination reçoit chaque lot
+     */
+    Lots(int premierLot, int lotMax, Consumer<List<Item>> destination) {
+        this.taille = Math.max(1, premierLot);
+        this.lotMax = Math.max(taille, lotMax);
+        this.destination = destination;
+        this.courant = new ArrayList<>(taille);
+    }
+
+    /**
+     * Retient les items de certaines dénominations, qui ne seront pas transmis.
+     *
+     * @param denominations les dénominations à retenir, vide pour tout transmettre
+     */
+    void retenir(Set<String> denominations) {
+        this.retenues = denominations;
+    }
+
+    @Override
+    public void accept(Item item) {
+        if (aIgnorer > 0) {
+            aIgnorer--;
+            return;
+        }
+        lus++;
+        if (!retenues.isEmpty() && retenues.contains(item.getDenomination())) {
+            return;
+        }
+        courant.add(item.copie());
+        if (courant.size() == taille) {
+            transmettre();
+            taille = Math.min(taille * 2, lotMax);
+        }
+    }
+
+    /**
+     * Transmet le dernier lot, incomplet. À appeler une fois tous les items lus.
+     */
+    void terminer() {
+        if (!courant.isEmpty()) {
+            transmettre();
+        }
+    }
+
+    /**
+     * Prépare une nouvelle lecture après une lecture interrompue : ses premiers items, déjà traités,
+     * sont ignorés. Les items lus mais pas encore transmis sont abandonnés.
+     */
+    void reprendre() {
+        courant = new ArrayList<>(taille);
+        aIgnorer = lusTransmis;
+        lus = lusTransmis;
+    }
+
+    private void transmettre() {
+        long debut = System.nanoTime();
+        List<Item> lot = courant;
+        courant = new ArrayList<>(Math.min(taille * 2, lotMax));
+        lusTransmis = lus;
+        destination.accept(lot);
+        duree += System.nanoTime() - debut;
+    }
+
+    /**
+     * Retourne le temps passé dans le consommateur, à déduire des mesures de lecture.
+     *
+     * @return la durée en nanosecondes
+     */
+    long getDuree() {
+        return duree;
+    }
+}
@@ -0,0 +1,22 @@
+package dao;
+
+/**
+ * Mode de durabilité des écritures du journal des items.
+ *
+ * <p>Le mode choisit le compromis entre la latence d'une modification et la quantité
+ * de données qu'un arrêt brutal peut faire perdre.</p>
+ */
+public enum ModeDurabilite {
+    /** Chaque modification est écrite et forcée sur disque avant de rendre la main. */
+    SYNCHRONE,
+    /**
+     * Les modifications arrivant dans le même intervalle de vidage sont écrites ensemble
+     * et forcées sur disque en une seule fois ; l'appelant attend cette validation groupée.
+     */
+    GROUPEE,
+    /**
+     * L'appelant n'attend pas : les modifications sont écrites et forcées sur disque à la fin
+     * de l'intervalle de vidage. Un arrêt brutal peut perdre le dernier intervalle.
+     */
+    DIFFEREE
+}
@@ -0,0 +1,17 @@
+package dao;
+
+/**
+ * Interface pour observer l'état du service de persistance en arrière-plan.
+ * Les notifications sont émises depuis le thread d'écriture : une interface graphique
+ * doit les retransmettre à son propre thread.
+ */
+public interface PersistenceObserver {
+    /**
+     * Méthode appelée lorsque l'état des écritures change.
+     *
+     * @param enAttente le nombre de modifications pas encore écrites
+     * @param echecs le nombre de lots dont l'écriture a échoué depuis le démarrage
+     * @param derniereErreur l'erreur d'écriture du dernier lot, ou null si ce lot a été écrit
+     */
+    void update(int enAttente, int echecs, Exception derniereErreur);
+}
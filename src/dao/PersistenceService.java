@@ -0,0 +1,278 @@
+package dao;
+
+import model.Item;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Service de persistance asynchrone des modifications de l'inventaire.
+ *
+ * <p>Les modifications soumises par l'interface graphique sont placées dans une file et écrites
+ * par un thread dédié, en lots comme avec {@link ItemDAO#applyBatch(List)} : le thread de l'interface ne
+ * bloque jamais sur le disque. Chaque modification est {@linkplain Change#figer() figée} à sa soumission :
+ * elle porte une copie de l'item, lue de façon cohérente, que le thread d'écriture peut enregistrer
+ * pendant que l'interface continue de modifier l'item. Les modifications successives d'un même item
+ * ({@linkplain Item#getIdentite() identité}) encore en attente sont fusionnées (par exemple, une insertion
+ * suivie de deux mises à jour n'écrit qu'une insertion de l'état final) ; celles d'items différents
+ * ne le sont jamais, même s'ils portent la même dénomination.</p>
+ *
+ * <p>L'état des écritures (modifications en attente, échecs) est publié aux
+ * {@link PersistenceObserver} enregistrés.</p>
+ */
+public class PersistenceService implements AutoCloseable {
+    private static final Logger LOG = Logger.getLogger(PersistenceService.class.getName());
+
+    /** Délai par défaut pendant lequel les modifications sont regroupées, en millisecondes. */
+    public static final long DELAI_REGROUPEMENT = 50;
+
+    /** Stockage utilisé pour l'écriture. */
+    private final ItemStore dao;
+    /** Délai de regroupement, en millisecondes. */
+    private final long delaiRegroupement;
+    /** Modifications en attente, par identité d'item, dans l'ordre de leur première soumission. */
+    private final Map<Object, List<Change>> enAttente = new LinkedHashMap<>();
+    /** Observateurs de l'état des écritures. */
+    private final List<PersistenceObserver> observers = new CopyOnWriteArrayList<>();
+    /** Thread d'écriture. */
+    private final Thread ecrivain;
+    /** Nombre de modifications en attente, y compris le lot en cours d'écriture. */
+    private int nombreEnAttente;
+    /** Nombre de lots dont l'écriture a échoué. */
+    private int echecs;
+    /** Erreur d'écriture du dernier lot, ou null s'il a été écrit. */
+    private Exception derniereErreur;
+    /** Vrai après {@link #close()}. */
+    private boolean ferme;
+
+    /**
+     * Crée et démarre le service avec le délai de regroupement par défaut.
+     *
+     * @param dao le stockage utilisé pour l'écriture, {@link ItemDAO} ou {@link ShardedItemStore}
+     */
+    public PersistenceService(ItemStore dao) {
+        this(dao, DELAI_REGROUPEMENT);
+    }
+
+    /**
+     * Crée et démarre le service.
+     *
+     * @param dao le stockage utilisé pour l'écriture
+     * @param delaiRegroupement délai pendant lequel les modifications sont regroupées, en millisecondes
+     */
+    public PersistenceService(ItemStore dao, long delaiRegroupement) {
+        this.dao = dao;
+        this.delaiRegroupement = delaiRegroupement;
+        this.ecrivain = new Thread(this::boucler, "persistance-items");
+        this.ecrivain.setDaemon(true);
+        this.ecrivain.start();
+    }
+
+    /**
+     * Ajoute un observateur de l'état des écritures.
+     *
+     * @param observer l'observateur à ajouter
+     */
+    public void addObserver(PersistenceObserver observer) {
+        observers.add(observer);
+    }
+
+    /**
+     * Supprime un observateur.
+     *
+     * @param observer l'observateur à supprimer
+     */
+    public void removeObserver(PersistenceObserver observer) {
+        observers.remove(observer);
+    }
+
+    /**
+     * Soumet une modification, écrite ensuite en arrière-plan.
+     *
+     * @param change la modification
+     */
+    public void submit(Change change) {
+        // Copie prise avant le verrou du service : elle peut attendre la fin d'une modification de l'item
+        Change figee = change.figer();
+        synchronized (this) {
+            if (ferme) {
+                throw new IllegalStateException("service de persistance arrêté");
+            }
+            Object identite = figee.getItem().getIdentite();
+            List<Change> file = enAttente.computeIfAbsent(identite, k -> new ArrayList<>(2));
+            int avant = file.size();
+            fusionner(file, figee);
+            nombreEnAttente += file.size() - avant;
+            if (file.isEmpty()) {
+                enAttente.remove(identite);
+            }
+            notifyAll();
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Fusionne une modification avec celles déjà en attente pour le même item.
+     * Une mise à jour absorbe la modification précédente, sauf après une suppression (où elle
+     * n'aurait aucun effet). Une suppression absorbe la mise à jour qui la précède ; si l'item
+     * avait été inséré dans l'attente, il n'y a plus rien à écrire.
+     *
+     * @param file les modifications en attente pour cet item
+     * @param change la nouvelle modification, figée
+     */
+    private static void fusionner(List<Change> file, Change change) {
+        Change derniere = file.isEmpty() ? null : file.get(file.size() - 1);
+        if (derniere == null) {
+            file.add(change);
+            return;
+        }
+        switch (change.getType()) {
+            case UPDATE:
+                if (derniere.getType() == Change.Type.INSERT) {
+                    file.set(file.size() - 1, Change.figee(Change.Type.INSERT, change));
+                } else if (derniere.getType() == Change.Type.UPDATE) {
+                    file.set(file.size() - 1, change);
+                }
+                break;
+            case DELETE:
+                if (derniere.getType() == Change.Type.UPDATE) {
+                    file.remove(file.size() - 1);
+                    derniere = file.isEmpty() ? null : file.get(file.size() - 1);
+                }
+                if (derniere != null && derniere.getType() == Change.Type.INSERT) {
+                    file.remove(file.size() - 1);
+                } else {
+                    file.add(change);
+                }
+                break;
+            default:
+                file.add(change);
+                break;
+        }
+    }
+
+    /**
+     * Boucle du thread d'écriture : attend des modifications, laisse le délai de regroupement
+     * s'écouler, puis écrit tout ce qui est en attente en un seul lot.
+     */
+    private void boucler() {
+        while (true) {
+            List<Change> lot;
+            synchronized (this) {
+                try {
+                    while (enAttente.isEmpty() && !ferme) {
+                        wait();
+                    }
+                    if (enAttente.isEmpty()) {
+                        return;
+                    }
+                    long echeance = System.currentTimeMillis() + delaiRegroupement;
+                    long reste;
+                    while (!ferme && (reste = echeance - System.currentTimeMillis()) > 0) {
+                        wait(reste);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+                lot = new ArrayList<>(nombreEnAttente);
+                for (List<Change> file : enAttente.values()) {
+                    lot.addAll(file);
+                }
+                enAttente.clear();
+            }
+            ecrire(lot);
+        }
+    }
+
+    /**
+     * Écrit un lot et publie le nouvel état.
+     *
+     * @param lot les modifications à écrire
+     */
+    private void ecrire(List<Change> lot) {
+        Exception erreur = null;
+        try {
+            dao.write(lot);
+        } catch (IOException | RuntimeException e) {
+            erreur = e;
+        }
+        synchronized (this) {
+            nombreEnAttente -= lot.size();
+            if (erreur != null) {
+                echecs++;
+            }
+            // Un lot écrit avec succès efface l'erreur précédente
+            derniereErreur = erreur;
+            notifyAll();
+        }
+        if (erreur != null) {
+            LOG.log(Level.SEVERE, "Écriture de " + lot.size() + " modification(s) impossible", erreur);
+        }
+        notifyObservers();
+    }
+
+    /**
+     * Retourne le nombre de modifications pas encore écrites.
+     *
+     * @return le nombre de modifications en attente
+     */
+    public synchronized int getPendingCount() {
+        return nombreEnAttente;
+    }
+
+    /**
+     * Retourne le nombre de lots dont l'écriture a échoué.
+     *
+     * @return le nombre d'échecs
+     */
+    public synchronized int getFailureCount() {
+        return echecs;
+    }
+
+    /**
+     * Attend que toutes les modifications soumises aient été écrites.
+     *
+     * @throws InterruptedException si l'attente est interrompue
+     */
+    public synchronized void awaitIdle() throws InterruptedException {
+        while (nombreEnAttente > 0) {
+            wait();
+        }
+    }
+
+    /**
+     * Écrit les modifications encore en attente puis arrête le thread d'écriture.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            ferme = true;
+            notifyAll();
+        }
+        try {
+            ecrivain.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        dao.flush();
+    }
+
+    /**
+     * Notifie les observateurs de l'état courant.
+     */
+    private void notifyObservers() {
+        int attente;
+        int nbEchecs;
+        Exception erreur;
+        synchronized (this) {
+            attente = nombreEnAttente;
+            nbEchecs = echecs;
+            erreur = derniereErreur;
+        }
+        for (PersistenceObserver observer : observers) {
+            observer.update(attente, nbEchecs, erreur);
+        }
+    }
+}
@@ -0,0 +1,585 @@
+package dao;
+
+import model.Item;
+import model.Vin;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Stockage de l'inventaire réparti en segments, un fichier JSON par valeur d'une clé
+ * choisie (préfixe de la position, région...).
+ *
+ * <p>Contrairement à {@link ItemDAO}, qui réécrit tout {@code items.json} à chaque compaction,
+ * seuls les segments modifiés sont réécrits. Un manifeste ({@code manifest.txt}) associe chaque
+ * clé à son fichier et à un numéro de version, tiré d'un compteur global (première ligne) à chaque
+ * réécriture. Au rechargement, seuls les segments dont la version a changé sont relus, en parallèle :</p>
+ * <pre>
+ * &#64; 7
+ * = "Cellier A" "segment-Cellier_A-1f3a09c2-7.json" 7
+ * = "Cellier B" "segment-Cellier_B-1f3a09c3-4.json" 4
+ * </pre>
+ *
+ * <p>Chaque version d'un segment est écrite dans un nouveau fichier, dont le nom porte la version ;
+ * le renommage atomique du manifeste bascule ensuite d'un coup tous les segments d'un lot, et les
+ * fichiers remplacés ne sont supprimés qu'après. Un arrêt brutal laisse donc l'ancien ou le nouvel
+ * état complet, jamais un mélange des deux ; il peut seulement laisser des fichiers que le manifeste
+ * ne désigne pas, sans effet.</p>
+ *
+ * <p>Comme {@link ItemDAO}, le stockage ne distribue que des copies de ses items et fige les
+ * modifications avant de les appliquer : ses items ne sont jamais modifiés hors de lui, et leur
+ * clé de répartition ne change pas à son insu. Les écritures sont synchrones.</p>
+ *
+ * <p>Les segments sont des tableaux JSON au format de {@code items.json}. Une instance n'est pas
+ * prévue pour être partagée entre plusieurs processus écrivant en même temps. L'interface graphique
+ * l'utilise à la place d'{@link ItemDAO} lorsqu'elle est lancée avec {@code -Dstockage.segments=<répertoire>}.</p>
+ */
+public class ShardedItemStore implements ItemStore {
+    private static final Logger LOG = Logger.getLogger(ShardedItemStore.class.getName());
+
+    /** Nom du fichier manifeste. */
+    private static final String MANIFESTE = "manifest.txt";
+    /** Marqueur du compteur de versions du manifeste. */
+    private static final char COMPTEUR = '@';
+    /** Marqueur d'une entrée du manifeste. */
+    private static final char ENTREE = '=';
+    /** Clé des items dont la valeur de répartition est absente. */
+    private static final String CLE_VIDE = "_";
+    /** Threads de lecture parallèle des segments. */
+    private static final ExecutorService LECTEURS = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), r -> {
+                Thread t = new Thread(r, "lecture-segments");
+                t.setDaemon(true);
+                return t;
+            });
+
+    /**
+     * Segment de l'inventaire.
+     */
+    private static final class Segment {
+        /** Valeur de la clé de répartition. */
+        final String cle;
+        /** Nom du fichier de la version courante, relatif au répertoire. */
+        String fichier;
+        /** Version du fichier chargée ou écrite en dernier. */
+        long version;
+        /** Items du segment, indexés par dénomination. */
+        ItemIndex items = new ItemIndex(new ArrayList<>());
+        /** Vrai si le segment a été modifié depuis sa dernière écriture. */
+        boolean modifie;
+
+        Segment(String cle, String fichier, long version) {
+            this.cle = cle;
+            this.fichier = fichier;
+            this.version = version;
+        }
+    }
+
+    /** Répertoire des segments. */
+    private final File repertoire;
+    /** Fonction donnant la clé de répartition d'un item. */
+    private final Function<Item, String> cle;
+    /** Segments, par clé. */
+    private final Map<String, Segment> segments = new TreeMap<>();
+    /** Segment contenant chaque dénomination (première occurrence). */
+    private final Map<String, Segment> emplacements = new HashMap<>();
+    /** Segments vidés dont le fichier reste à supprimer. */
+    private final List<Segment> supprimes = new ArrayList<>();
+    /** Dernière version attribuée ; un segment recréé ne reprend jamais une ancienne version. */
+    private long derniereVersion;
+    /** Compteur de versions du dernier manifeste lu. */
+    private long versionManifeste;
+    /** Taille et date du manifeste lors du dernier chargement ou de la dernière écriture. */
+    private long tailleManifeste = -1;
+    private long dateManifeste;
+
+    /**
+     * Crée un stockage réparti.
+     *
+     * @param repertoire répertoire des segments, créé au besoin
+     * @param cle fonction donnant la clé de répartition d'un item,
+     *            par exemple {@code ShardedItemStore::clePosition}
+     */
+    public ShardedItemStore(String repertoire, Function<Item, String> cle) {
+        this.repertoire = new File(repertoire);
+        this.cle = cle;
+    }
+
+    /**
+     * Clé de répartition par emplacement : la partie de la position qui précède le premier
+     * séparateur ({@code "Cellier A - Rangée 3"} donne {@code "Cellier A"}).
+     *
+     * @param item l'item
+     * @return le préfixe de sa position
+     */
+    public static String clePosition(Item item) {
+        String position = item.getPosition();
+        if (position == null) {
+            return CLE_VIDE;
+        }
+        int fin = position.length();
+        for (int i = 0; i < position.length(); i++) {
+            char c = position.charAt(i);
+            if (c == '-' || c == '/' || c == ',' || c == ':' || c == ';') {
+                fin = i;
+                break;
+            }
+        }
+        String prefixe = position.substring(0, fin).trim();
+        return prefixe.isEmpty() ? CLE_VIDE : prefixe;
+    }
+
+    /**
+     * Clé de répartition par région (vins uniquement).
+     *
+     * @param item l'item
+     * @return sa région
+     */
+    public static String cleRegion(Item item) {
+        String region = item instanceof Vin ? ((Vin) item).getRegion() : null;
+        return region == null || region.trim().isEmpty() ? CLE_VIDE : region.trim();
+    }
+
+    /**
+     * Retourne tous les items, après avoir relu les segments modifiés par ailleurs.
+     *
+     * @return des copies des items, segment par segment
+     */
+    @Override
+    public List<Item> getAllItems() {
+        List<Item> items = new ArrayList<>();
+        synchronized (this) {
+            refresh();
+            for (Segment segment : segments.values()) {
+                items.addAll(segment.items.copie());
+            }
+        }
+        items.replaceAll(Item::copie);
+        return items;
+    }
+
+    /**
+     * Relit le manifeste s'il a changé, puis les segments dont la version diffère de celle
+     * chargée, en parallèle. Les segments qui ont disparu du manifeste sont oubliés.
+     *
+     * @return le nombre de segments relus
+     */
+    public synchronized int refresh() {
+        File manifeste = new File(repertoire, MANIFESTE);
+        if (manifeste.length() == tailleManifeste && manifeste.lastModified() == dateManifeste) {
+            return 0;
+        }
+        Map<String, Segment> lus;
+        try {
+            lus = lireManifeste(manifeste);
+            derniereVersion = Math.max(derniereVersion, versionManifeste);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Lecture du manifeste impossible : " + manifeste, e);
+            return 0;
+        }
+        List<Segment> aRelire = new ArrayList<>();
+        for (Map.Entry<String, Segment> entree : lus.entrySet()) {
+            Segment lu = entree.getValue();
+            Segment actuel = segments.get(lu.cle);
+            if (actuel != null && actuel.version == lu.version && actuel.fichier.equals(lu.fichier)) {
+                // Segment inchangé : conservé tel quel
+                entree.setValue(actuel);
+            } else {
+                aRelire.add(lu);
+            }
+        }
+        List<Callable<List<Item>>> lectures = new ArrayList<>(aRelire.size());
+        for (Segment segment : aRelire) {
+            File fichier = new File(repertoire, segment.fichier);
+            lectures.add(() -> ItemDAO.readJson(fichier));
+        }
+        try {
+            List<Future<List<Item>>> resultats = LECTEURS.invokeAll(lectures);
+            for (int i = 0; i < aRelire.size(); i++) {
+                aRelire.get(i).items = new ItemIndex(resultats.get(i).get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        } catch (ExecutionException e) {
+            LOG.log(Level.SEVERE, "Lecture d'un segment impossible", e.getCause());
+            return 0;
+        }
+        segments.clear();
+        segments.putAll(lus);
+        reindexer();
+        tailleManifeste = manifeste.length();
+        dateManifeste = manifeste.lastModified();
+        return aRelire.size();
+    }
+
+    /**
+     * Reconstruit l'emplacement de chaque dénomination.
+     */
+    private void reindexer() {
+        emplacements.clear();
+        for (Segment segment : segments.values()) {
+            for (Item item : segment.items.copie()) {
+                emplacements.putIfAbsent(item.getDenomination(), segment);
+            }
+        }
+    }
+
+    /**
+     * Insère un item et réécrit son segment.
+     *
+     * @param item l'item à insérer
+     */
+    public void insertItem(Item item) {
+        applyBatch(Collections.singletonList(Change.insert(item)));
+    }
+
+    /**
+     * Met à jour un item et réécrit son segment (les deux segments s'il en change).
+     *
+     * @param item l'item à mettre à jour
+     */
+    public void updateItem(Item item) {
+        applyBatch(Collections.singletonList(Change.update(item)));
+    }
+
+    /**
+     * Supprime un item, identifié par son identité ou à défaut par sa dénomination, et réécrit son segment.
+     *
+     * @param item l'item à supprimer
+     */
+    public void deleteItem(Item item) {
+        applyBatch(Collections.singletonList(Change.delete(item)));
+    }
+
+    /**
+     * Applique un lot de modifications, puis réécrit une seule fois chaque segment touché.
+     * Une erreur d'écriture est journalisée ; {@link #write(List)} la signale à l'appelant.
+     *
+     * @param changes les modifications, appliquées dans l'ordre
+     */
+    public void applyBatch(List<Change> changes) {
+        try {
+            write(changes);
+        } catch (IOException e) {
+            LOG.log(Level.SEVERE, "Sauvegarde des segments impossible : " + repertoire, e);
+        }
+    }
+
+    /**
+     * Applique un lot de modifications, puis réécrit une seule fois chaque segment touché.
+     * Si l'écriture échoue, les modifications restent appliquées en mémoire et les segments
+     * touchés sont réécrits à l'écriture suivante.
+     *
+     * @param changes les modifications, appliquées dans l'ordre
+     * @throws IOException si un segment ou le manifeste n'a pas pu être écrit
+     */
+    @Override
+    public void write(List<Change> changes) throws IOException {
+        // Copies prises hors du verrou : le stockage ne garde jamais un item que l'appelant peut encore modifier
+        List<Change> figees = new ArrayList<>(changes.size());
+        for (Change change : changes) {
+            figees.add(change.figer());
+        }
+        synchronized (this) {
+            appliquer(figees);
+        }
+    }
+
+    /**
+     * Écritures synchrones : rien n'est en attente.
+     */
+    @Override
+    public void flush() {
+    }
+
+    private void appliquer(List<Change> changes) throws IOException {
+        refresh();
+        for (Change change : changes) {
+            Item item = change.getItem();
+            switch (change.getType()) {
+                case INSERT:
+                    inserer(item);
+                    break;
+                case UPDATE:
+                    mettreAJour(item);
+                    break;
+                case DELETE:
+                    supprimer(item);
+                    break;
+                default:
+                    break;
+            }
+        }
+        sauvegarder();
+    }
+
+    /**
+     * Remplace tout le contenu du stockage, par exemple pour migrer depuis {@code items.json}.
+     *
+     * @param items les items à enregistrer, copiés
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public synchronized void saveAllItems(List<Item> items) throws IOException {
+        refresh();
+        for (Segment segment : segments.values()) {
+            segment.items = new ItemIndex(new ArrayList<>());
+            segment.modifie = true;
+        }
+        emplacements.clear();
+        for (Item item : items) {
+            inserer(item.copie());
+        }
+        sauvegarder();
+    }
+
+    private void inserer(Item item) {
+        Segment segment = segmentPour(item);
+        segment.items.inserer(item);
+        segment.modifie = true;
+        emplacements.putIfAbsent(item.getDenomination(), segment);
+    }
+
+    /**
+     * Cherche le segment d'un item par son identité, segment par segment (copie ou item renommé),
+     * puis par sa dénomination.
+     *
+     * @param item l'item
+     * @return son segment, ou null s'il est absent
+     */
+    private Segment segmentDe(Item item) {
+        for (Segment candidat : segments.values()) {
+            if (candidat.items.positionDe(item) >= 0) {
+                return candidat;
+            }
+        }
+        return emplacements.get(item.getDenomination());
+    }
+
+    private void mettreAJour(Item item) {
+        Segment segment = segmentDe(item);
+        if (segment == null) {
+            return;
+        }
+        int position = segment.items.trouver(item);
+        String ancienne = segment.items.get(position).getDenomination();
+        segment.modifie = true;
+        Segment cible = segmentPour(item);
+        if (cible == segment) {
+            segment.items.remplacer(position, item);
+        } else {
+            // La clé de répartition a changé : l'item change de segment
+            segment.items.retirer(position);
+            cible.items.inserer(item);
+            cible.modifie = true;
+        }
+        if (cible != segment || !Objects.equals(ancienne, item.getDenomination())) {
+            localiser(ancienne);
+            localiser(item.getDenomination());
+        }
+    }
+
+    /**
+     * Recherche le segment de la première occurrence d'une dénomination.
+     *
+     * @param denomination la dénomination
+     */
+    private void localiser(String denomination) {
+        emplacements.remove(denomination);
+        for (Segment segment : segments.values()) {
+            if (segment.items.trouver(denomination, 0) >= 0) {
+                emplacements.put(denomination, segment);
+                return;
+            }
+        }
+    }
+
+    private void supprimer(Item item) {
+        Segment segment = segmentDe(item);
+        if (segment == null) {
+            return;
+        }
+        int position = segment.items.trouver(item);
+        String denomination = segment.items.get(position).getDenomination();
+        segment.items.retirer(position);
+        segment.modifie = true;
+        // Un homonyme, dans ce segment ou un autre, devient la première occurrence
+        localiser(denomination);
+    }
+
+    /**
+     * Retourne le segment d'un item, créé au besoin.
+     *
+     * @param item l'item
+     * @return son segment
+     */
+    private Segment segmentPour(Item item) {
+        String valeur = cle.apply(item);
+        Segment segment = segments.get(valeur);
+        if (segment == null) {
+            segment = new Segment(valeur, null, 0);
+            segments.put(valeur, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Construit un nom de fichier lisible et sans collision pour une version d'un segment.
+     *
+     * @param valeur la clé
+     * @param version la version du segment
+     * @return le nom du fichier de segment
+     */
+    private static String nomFichier(String valeur, long version) {
+        StringBuilder nom = new StringBuilder("segment-");
+        for (int i = 0; i < valeur.length() && i < 32; i++) {
+            char c = valeur.charAt(i);
+            nom.append(c < 128 && Character.isLetterOrDigit(c) ? c : '_');
+        }
+        return nom.append('-').append(String.format("%08x", valeur.hashCode()))
+                .append('-').append(version).append(".json").toString();
+    }
+
+    /**
+     * Écrit les segments modifiés dans de nouveaux fichiers, retire les segments vides, puis bascule
+     * vers les nouveaux fichiers en écrivant le manifeste. Les fichiers remplacés ne sont supprimés
+     * qu'ensuite. En cas d'échec, les nouveaux fichiers sont supprimés et les segments restent
+     * à réécrire.
+     *
+     * @throws IOException en cas d'erreur d'écriture ; les fichiers du manifeste sont alors intacts
+     */
+    private void sauvegarder() throws IOException {
+        boolean changement = !supprimes.isEmpty();
+        for (Iterator<Segment> it = segments.values().iterator(); it.hasNext(); ) {
+            Segment segment = it.next();
+            if (segment.items.taille() == 0) {
+                it.remove();
+                supprimes.add(segment);
+                changement = true;
+            }
+        }
+        // Nouvelles versions, puis anciens fichiers, dans l'ordre des segments réécrits
+        List<Segment> reecrits = new ArrayList<>();
+        List<String> nouveaux = new ArrayList<>();
+        List<String> anciens = new ArrayList<>();
+        List<Long> anciennesVersions = new ArrayList<>();
+        try {
+            for (Segment segment : segments.values()) {
+                if (!segment.modifie) {
+                    continue;
+                }
+                if (!repertoire.isDirectory() && !repertoire.mkdirs()) {
+                    throw new IOException("impossible de créer " + repertoire);
+                }
+                long version = ++derniereVersion;
+                String fichier = nomFichier(segment.cle, version);
+                segment.items.compacter();
+                nouveaux.add(fichier);
+                ItemDAO.writeJson(new File(repertoire, fichier), segment.items.copie());
+                reecrits.add(segment);
+                anciens.add(segment.fichier);
+                anciennesVersions.add(segment.version);
+                segment.fichier = fichier;
+                segment.version = version;
+            }
+            if (!changement && reecrits.isEmpty()) {
+                return;
+            }
+            ecrireManifeste();
+        } catch (IOException e) {
+            for (int i = 0; i < reecrits.size(); i++) {
+                reecrits.get(i).fichier = anciens.get(i);
+                reecrits.get(i).version = anciennesVersions.get(i);
+            }
+            for (String fichier : nouveaux) {
+                new File(repertoire, fichier).delete();
+            }
+            throw e;
+        }
+        for (Segment segment : reecrits) {
+            segment.modifie = false;
+        }
+        // Les fichiers remplacés ou vidés ne sont supprimés qu'une fois le manifeste à jour
+        for (String fichier : anciens) {
+            if (fichier != null) {
+                new File(repertoire, fichier).delete();
+            }
+        }
+        for (Segment segment : supprimes) {
+            if (segment.fichier != null) {
+                new File(repertoire, segment.fichier).delete();
+            }
+        }
+        supprimes.clear();
+    }
+
+    /**
+     * Écrit le manifeste de façon atomique.
+     *
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    private void ecrireManifeste() throws IOException {
+        File manifeste = new File(repertoire, MANIFESTE);
+        File temporaire = new File(repertoire, MANIFESTE + ".tmp");
+        try (FileOutputStream sortie = new FileOutputStream(temporaire)) {
+            Writer w = new BufferedWriter(new OutputStreamWriter(sortie, StandardCharsets.UTF_8));
+            JsonItemWriter json = new JsonItemWriter(w);
+            w.append(COMPTEUR).append(' ').append(Long.toString(derniereVersion)).append('\n');
+            for (Segment segment : segments.values()) {
+                w.append(ENTREE).append(' ');
+                json.writeString(segment.cle);
+                w.append(' ');
+                json.writeString(segment.fichier);
+                w.append(' ').append(Long.toString(segment.version)).append('\n');
+            }
+            w.flush();
+            sortie.getFD().sync();
+        }
+        try {
+            Files.move(temporaire.toPath(), manifeste.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaire.toPath(), manifeste.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        tailleManifeste = manifeste.length();
+        dateManifeste = manifeste.lastModified();
+    }
+
+    /**
+     * Lit le manifeste ; le compteur de versions lu est placé dans {@link #versionManifeste}.
+     *
+     * @param manifeste le fichier manifeste
+     * @return les segments décrits, sans leurs items, par clé
+     * @throws IOException si le manifeste est illisible
+     */
+    private Map<String, Segment> lireManifeste(File manifeste) throws IOException {
+        Map<String, Segment> lus = new TreeMap<>();
+        versionManifeste = 0;
+        if (!manifeste.isFile()) {
+            return lus;
+        }
+        try (JsonItemReader reader = new JsonItemReader(new FileReader(manifeste, StandardCharsets.UTF_8))) {
+            int marqueur = reader.nextMarker();
+            if (marqueur == COMPTEUR) {
+                versionManifeste = (long) reader.nextNumber();
+                marqueur = reader.nextMarker();
+            }
+            for (; marqueur == ENTREE; marqueur = reader.nextMarker()) {
+                String valeur = reader.nextString();
+                String fichier = reader.nextString();
+                long version = (long) reader.nextNumber();
+                lus.put(valeur, new Segment(valeur, fichier, version));
+                versionManifeste = Math.max(versionManifeste, version);
+            }
+            if (marqueur != -1) {
+                throw new IOException("manifeste invalide : " + manifeste);
+            }
+        }
+        return lus;
+    }
+}
@@ -0,0 +1,137 @@
+package main;
+
+import model.Champ;
+import model.Contenant;
+import model.Item;
+import model.Vin;
+import java.util.*;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Banc d'essai comparant les agrégats d'un contenant colonnaire, calculés sur des tableaux
+ * primitifs, aux mêmes agrégats calculés en parcourant les objets {@link Item}.
+ *
+ * <p>Les items sont ajoutés dans un ordre aléatoire, pour que leur ordre dans le contenant
+ * ne suive pas leur ordre d'allocation, comme pour un inventaire constitué au fil du temps.
+ * Usage : {@code java -cp bin main.AgregationBenchmark [nombre d'items]}</p>
+ */
+public class AgregationBenchmark {
+    /** Nombre d'itérations de chauffe avant la mesure. */
+    private static final int CHAUFFE = 5;
+    /** Nombre d'itérations mesurées. */
+    private static final int MESURES = 9;
+    /** Nombre de classes des histogrammes. */
+    private static final int CLASSES = 50;
+
+    public static void main(String[] args) {
+        int taille = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Logger.getLogger(Contenant.class.getName()).setLevel(Level.SEVERE);
+        List<Item> vins = new ArrayList<>(taille);
+        Random aleatoire = new Random(42);
+        for (int i = 0; i < taille; i++) {
+            vins.add(new Vin("Vin " + i, "", 1 + aleatoire.nextInt(24), 1960 + aleatoire.nextInt(65), new Date(),
+                    5 + aleatoire.nextInt(50_000) / 100.0, "", ""));
+        }
+        Collections.shuffle(vins, aleatoire);
+        Contenant contenant = new Contenant(taille, 12, 70, true);
+        contenant.ajouterTous(vins);
+        List<Item> items = contenant.getItems();
+
+        System.out.printf("%d items%n%-28s %12s %12s %8s%n", taille, "agrégat", "objets (ms)", "colonnes (ms)", "gain");
+        comparer("valeur totale", () -> valeurObjets(items), contenant::calculerValeurTotale);
+        comparer("moyenne des prix", () -> moyenneObjets(items), () -> contenant.moyenne(Champ.PRIX));
+        comparer("histogramme des prix", () -> histogrammeObjets(items)[CLASSES / 2],
+                () -> contenant.histogramme(Champ.PRIX, 5, 505, CLASSES)[CLASSES / 2]);
+        comparer("somme des années", () -> anneesObjets(items), () -> contenant.somme(Champ.ANNEE_PRODUCTION));
+    }
+
+    /**
+     * Mesure les deux calculs d'un agrégat et vérifie qu'ils concordent.
+     *
+     * @param nom le nom de l'agrégat
+     * @param objets le calcul par parcours des objets
+     * @param colonnes le calcul sur les colonnes
+     */
+    private static void comparer(String nom, Calcul objets, Calcul colonnes) {
+        double attendu = objets.calculer();
+        double obtenu = colonnes.calculer();
+        if (Math.abs(attendu - obtenu) > 1e-9 * Math.max(1, Math.abs(attendu))) {
+            throw new IllegalStateException(nom + " : " + obtenu + " au lieu de " + attendu);
+        }
+        double tObjets = mesurer(objets);
+        double tColonnes = mesurer(colonnes);
+        System.out.printf("%-28s %12.2f %12.2f %7.1fx%n", nom, tObjets, tColonnes, tObjets / tColonnes);
+    }
+
+    /**
+     * Mesure le temps médian d'un calcul.
+     *
+     * @param calcul le calcul
+     * @return le temps médian en millisecondes
+     */
+    private static double mesurer(Calcul calcul) {
+        double puits = 0;
+        for (int i = 0; i < CHAUFFE; i++) {
+            puits += calcul.calculer();
+        }
+        double[] temps = new double[MESURES];
+        for (int i = 0; i < MESURES; i++) {
+            long debut = System.nanoTime();
+            puits += calcul.calculer();
+            temps[i] = (System.nanoTime() - debut) / 1e6;
+        }
+        if (puits == 42) {
+            System.out.println();
+        }
+        Arrays.sort(temps);
+        return temps[MESURES / 2];
+    }
+
+    private static double valeurObjets(List<Item> items) {
+        double s = 0;
+        double c = 0;
+        for (Item item : items) {
+            double y = item.getPrix() * item.getQuantite() - c;
+            double t = s + y;
+            c = (t - s) - y;
+            s = t;
+        }
+        return s;
+    }
+
+    private static double moyenneObjets(List<Item> items) {
+        double s = 0;
+        for (Item item : items) {
+            s += item.getPrix();
+        }
+        return items.isEmpty() ? 0 : s / items.size();
+    }
+
+    private static int[] histogrammeObjets(List<Item> items) {
+        int[] effectifs = new int[CLASSES];
+        double facteur = CLASSES / 500.0;
+        for (Item item : items) {
+            double prix = item.getPrix();
+            if (prix >= 5 && prix <= 505) {
+                effectifs[Math.min((int) ((prix - 5) * facteur), CLASSES - 1)]++;
+            }
+        }
+        return effectifs;
+    }
+
+    private static double anneesObjets(List<Item> items) {
+        long s = 0;
+        for (Item item : items) {
+            s += item.getAnneeProduction();
+        }
+        return s;
+    }
+
+    /**
+     * Calcul d'un agrégat.
+     */
+    private interface Calcul {
+        double calculer();
+    }
+}
@@ -0,0 +1,299 @@
+package main;
+
+import model.Contenant;
+import model.ContenantEvent;
+import model.Item;
+import model.Vin;
+import java.io.PrintStream;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Test de charge d'un {@link Contenant} partagé entre plusieurs threads.
+ *
+ * <p>Pour chaque nombre de threads, la moitié des threads ajoute et supprime des vins pendant que
+ * l'autre moitié les recherche, exécute des requêtes et lit les statistiques. Le débit est affiché
+ * par nombre de threads ; à la fin de chaque mesure, la capacité, les totaux, les index et l'ordre
+ * des événements sont vérifiés. Deux derniers essais font remplir un contenant par tous les threads à la
+ * fois pour vérifier que sa capacité n'est jamais dépassée, puis modifier par tous les threads les
+ * mêmes items pour vérifier que les totaux et les index restent exacts.
+ * Usage : {@code java -cp bin main.ContenantStress [duree en ms] [nombres de threads...]}</p>
+ */
+public class ContenantStress {
+    /** Capacité du contenant mesuré. */
+    private static final int CAPACITE = 20_000;
+    /** Régions des vins générés. */
+    private static final String[] REGIONS = {"Bordeaux", "Bourgogne", "Alsace", "Loire", "Rhône", "Champagne"};
+
+    public static void main(String[] args) throws Exception {
+        long duree = args.length > 0 ? Long.parseLong(args[0]) : 1_000;
+        int[] nombres = {1, 2, 4, 8};
+        if (args.length > 1) {
+            nombres = Arrays.stream(args, 1, args.length).mapToInt(Integer::parseInt).toArray();
+        }
+        PrintStream sortie = System.out;
+        // Le remplissage volontaire d'un contenant plein produit des avertissements : la console fausserait la mesure
+        Logger journal = Logger.getLogger(Contenant.class.getName());
+        Level niveau = journal.getLevel();
+        journal.setLevel(Level.SEVERE);
+        try {
+            sortie.printf("%8s %15s %15s %15s%n", "threads", "écritures/s", "lectures/s", "total/s");
+            for (int nombre : nombres) {
+                mesurer(nombre, duree / 3); // chauffe
+                double[] debits = mesurer(nombre, duree);
+                sortie.printf("%8d %15.0f %15.0f %15.0f%n", nombre, debits[0], debits[1], debits[0] + debits[1]);
+            }
+            verifierCapacite(Math.max(2, nombres[nombres.length - 1]));
+            verifierModifications(Math.max(2, nombres[nombres.length - 1]));
+            sortie.println("Invariants vérifiés.");
+        } finally {
+            journal.setLevel(niveau);
+        }
+    }
+
+    /**
+     * Mesure le débit d'un contenant à moitié plein, partagé par des producteurs et des lecteurs.
+     *
+     * @param nombre le nombre de threads
+     * @param duree la durée de la mesure, en millisecondes
+     * @return les écritures et lectures par seconde
+     */
+    private static double[] mesurer(int nombre, long duree) throws InterruptedException {
+        Contenant contenant = new Contenant(CAPACITE, 12, 70);
+        VerificateurOrdre ordre = new VerificateurOrdre();
+        contenant.addObserver(ordre);
+        List<Item> initiaux = new ArrayList<>();
+        for (int i = 0; i < CAPACITE / 2; i++) {
+            initiaux.add(vin("initial-" + i, i));
+        }
+        contenant.ajouterTous(initiaux);
+
+        int producteurs = Math.max(1, nombre / 2);
+        int lecteurs = nombre - producteurs;
+        LongAdder ecritures = new LongAdder();
+        LongAdder lectures = new LongAdder();
+        AtomicBoolean arret = new AtomicBoolean();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < producteurs; t++) {
+            int numero = t;
+            threads.add(new Thread(() -> {
+                attendre(depart);
+                Deque<Item> ajoutes = new ArrayDeque<>();
+                int compteur = 0;
+                while (!arret.get()) {
+                    Item item = vin("p" + numero + "-" + compteur, compteur++);
+                    contenant.ajouterItem(item);
+                    ajoutes.add(item);
+                    if (ajoutes.size() > 200) {
+                        contenant.supprimerItem(ajoutes.poll());
+                    }
+                    if (compteur % 16 == 0) {
+                        Item modifie = ajoutes.peekLast();
+                        contenant.batch(() -> {
+                            modifie.setPrix(modifie.getPrix() + 1);
+                            modifie.setQuantite(modifie.getQuantite() + 1);
+                        });
+                    }
+                    ecritures.add(2);
+                }
+            }));
+        }
+        for (int t = 0; t < lecteurs; t++) {
+            threads.add(new Thread(() -> {
+                attendre(depart);
+                Random aleatoire = new Random();
+                while (!arret.get()) {
+                    contenant.findByDenomination("initial-" + aleatoire.nextInt(CAPACITE / 2));
+                    contenant.requete().region(REGIONS[aleatoire.nextInt(REGIONS.length)])
+                            .annee(2000, 2005).prixMax(40).executer();
+                    contenant.getPrixMoyen();
+                    contenant.getValeurTotale();
+                    contenant.getItems().size();
+                    lectures.add(5);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        long debut = System.nanoTime();
+        depart.countDown();
+        Thread.sleep(duree);
+        arret.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double secondes = (System.nanoTime() - debut) / 1e9;
+        verifier(contenant);
+        if (ordre.erreurs.get() > 0) {
+            throw new IllegalStateException(ordre.erreurs.get() + " événements hors d'ordre");
+        }
+        return new double[] {ecritures.sum() / secondes, lectures.sum() / secondes};
+    }
+
+    /**
+     * Fait remplir un petit contenant par plusieurs threads à la fois : exactement sa capacité
+     * doit être acceptée.
+     *
+     * @param nombre le nombre de threads
+     */
+    private static void verifierCapacite(int nombre) throws InterruptedException {
+        int capacite = 1_000;
+        Contenant contenant = new Contenant(capacite, 12, 70);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < nombre; t++) {
+            int numero = t;
+            threads.add(new Thread(() -> {
+                attendre(depart);
+                for (int i = 0; i < capacite; i++) {
+                    if (i % 2 == 0) {
+                        contenant.ajouterItem(vin("c" + numero + "-" + i, i));
+                    } else {
+                        contenant.ajouterTous(List.of(vin("c" + numero + "-" + i, i), vin("c" + numero + "-" + i + "b", i)));
+                    }
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        depart.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (contenant.getItems().size() != capacite) {
+            throw new IllegalStateException(contenant.getItems().size() + " items pour une capacité de " + capacite);
+        }
+        verifier(contenant);
+    }
+
+    /**
+     * Fait modifier par plusieurs threads à la fois les mêmes items, par leurs mutateurs et sans lot,
+     * pendant que d'autres threads les recherchent : les totaux et les index doivent correspondre
+     * aux valeurs finales des items.
+     *
+     * @param nombre le nombre de threads
+     */
+    private static void verifierModifications(int nombre) throws InterruptedException {
+        Contenant contenant = new Contenant(CAPACITE, 12, 70);
+        List<Item> partages = new ArrayList<>();
+        for (int i = 0; i < 64; i++) {
+            partages.add(vin("partage-" + i, i));
+        }
+        contenant.ajouterTous(partages);
+        AtomicBoolean arret = new AtomicBoolean();
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < nombre; t++) {
+            int numero = t;
+            threads.add(new Thread(() -> {
+                attendre(depart);
+                Random aleatoire = new Random(numero);
+                for (int i = 0; i < 50_000; i++) {
+                    Vin vin = (Vin) partages.get(aleatoire.nextInt(partages.size()));
+                    switch (i % 5) {
+                        case 0:
+                            vin.setPrix(1 + aleatoire.nextInt(200) * 0.25);
+                            break;
+                        case 1:
+                            vin.setQuantite(aleatoire.nextInt(24));
+                            break;
+                        case 2:
+                            vin.setRegion(REGIONS[aleatoire.nextInt(REGIONS.length)]);
+                            break;
+                        case 3:
+                            vin.setDenomination("partage-" + numero + "-" + i);
+                            break;
+                        default:
+                            // Retire et remet l'item, en concurrence avec les mutateurs des autres threads
+                            contenant.supprimerItem(vin);
+                            contenant.ajouterItem(vin);
+                            break;
+                    }
+                }
+            }));
+        }
+        threads.add(new Thread(() -> {
+            attendre(depart);
+            Random aleatoire = new Random();
+            while (!arret.get()) {
+                contenant.requete().region(REGIONS[aleatoire.nextInt(REGIONS.length)]).prixMax(25).executer();
+                contenant.rechercher("partage");
+            }
+        }));
+        threads.forEach(Thread::start);
+        depart.countDown();
+        for (Thread thread : threads.subList(0, nombre)) {
+            thread.join();
+        }
+        arret.set(true);
+        threads.get(nombre).join();
+        verifier(contenant);
+    }
+
+    /**
+     * Vérifie la cohérence d'un contenant au repos : capacité, totaux et index.
+     *
+     * @param contenant le contenant
+     */
+    private static void verifier(Contenant contenant) {
+        List<Item> items = contenant.getItems();
+        if (items.size() > CAPACITE) {
+            throw new IllegalStateException("capacité dépassée : " + items.size());
+        }
+        double valeur = 0;
+        long quantite = 0;
+        Map<String, Integer> parRegion = new HashMap<>();
+        for (Item item : items) {
+            valeur += item.getPrix() * item.getQuantite();
+            quantite += item.getQuantite();
+            if (contenant.findByDenomination(item.getDenomination()) != item) {
+                throw new IllegalStateException("index des dénominations incohérent : " + item.getDenomination());
+            }
+            parRegion.merge(((Vin) item).getRegion(), 1, Integer::sum);
+        }
+        if (Math.abs(valeur - contenant.getValeurTotale()) > 1e-6 * Math.max(1, valeur)
+                || quantite != contenant.getQuantiteTotale()) {
+            throw new IllegalStateException("totaux incohérents : " + contenant.getValeurTotale() + " au lieu de " + valeur);
+        }
+        for (String region : REGIONS) {
+            int attendu = parRegion.getOrDefault(region, 0);
+            int trouve = contenant.requete().region(region).executer().size();
+            if (trouve != attendu) {
+                throw new IllegalStateException("index des régions incohérent : " + region + " " + trouve + " / " + attendu);
+            }
+        }
+    }
+
+    /**
+     * Observateur vérifiant que les événements arrivent dans l'ordre de leurs versions.
+     */
+    private static class VerificateurOrdre implements model.ContenantObserver {
+        private long derniere;
+        private final AtomicInteger erreurs = new AtomicInteger();
+
+        @Override
+        public void update(ContenantEvent event) {
+            if (event.getVersion() <= derniere) {
+                erreurs.incrementAndGet();
+            }
+            derniere = event.getVersion();
+        }
+    }
+
+    private static Vin vin(String denomination, int i) {
+        return new Vin(denomination, "Vin de test", i % 12 + 1, 1990 + i % 30, new Date(), 5 + (i % 97) * 0.5,
+                "Merlot", REGIONS[i % REGIONS.length]);
+    }
+
+    private static void attendre(CountDownLatch depart) {
+        try {
+            depart.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,21 +1,57 @@
 package main;
 
 import dao.ItemDAO;
+import dao.ItemStore;
+import dao.ShardedItemStore;
+import metrics.Metriques;
 import model.Contenant;
 import model.Item;
+import model.MoteurAccords;
 import view.MainFrame;
 import javax.swing.SwingUtilities;
 import javax.swing.UIManager;
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Lanceur de l'interface graphique.
  *
  * <p>Cette classe configure le Look and Feel Nimbus, charge les données persistantes depuis le fichier JSON
  * et lance l'interface graphique principale.</p>
+ *
+ * <p>La fenêtre est affichée tout de suite, vide, puis l'inventaire est chargé en arrière-plan et ajouté
+ * au contenant par lots : les premiers vins apparaissent dès qu'ils sont lus, quelle que soit la taille
+ * de la cave. Avec {@code -Dchargement.progressif=false}, l'inventaire est chargé entièrement avant
+ * l'affichage de la fenêtre. L'inventaire est lu dans {@code items.json} ou, avec
+ * {@code -Dstockage.segments=<répertoire>}, dans un stockage réparti en segments
+ * (voir {@link ShardedItemStore}). Le contenant accueille au plus {@value #CAPACITE} vins, ou le nombre
+ * donné par {@code -Dcontenant.capacite=<n>}.</p>
+ *
+ * <p>Les métriques sont consultables par JMX (voir {@link Metriques}) ; avec
+ * {@code -Dmetriques.periode=60}, leur résumé est aussi journalisé toutes les minutes.
+ * Les miniatures des images sont enregistrées dans le dossier {@code miniatures}, ou dans celui
+ * donné par {@code -Dminiatures.dossier=<chemin>}.</p>
  */
 public class GUILauncher {
+    private static final Logger LOG = Logger.getLogger(GUILauncher.class.getName());
+    /** Taille du premier lot chargé : de quoi remplir la première page du tableau. */
+    private static final int PREMIER_LOT = 64;
+    /** Taille maximale des lots suivants. */
+    private static final int LOT_MAX = 4096;
+    /** Capacité par défaut du contenant, de quoi charger une très grande cave. */
+    private static final int CAPACITE = 1_000_000;
+
     public static void main(String[] args) {
+        // Résumé périodique des métriques, si demandé : -Dmetriques.periode=<secondes>
+        long periode = Long.getLong("metriques.periode", 0);
+        if (periode > 0) {
+            Metriques.demarrerJournalisation(periode, TimeUnit.SECONDS);
+        }
+
         // Configuration du Look and Feel Nimbus
         try {
             for (UIManager.LookAndFeelInfo info : UIManager.getInstalledLookAndFeels()) {
@@ -25,27 +61,102 @@ public class GUILauncher {
                 }
             }
         } catch (Exception e) {
-            System.err.println("Nimbus Look and Feel non disponible, utilisation du Look and Feel par défaut.");
+            LOG.info("Nimbus Look and Feel non disponible, utilisation du Look and Feel par défaut.");
         }
         
-        // Création d'un contenant avec des paramètres d'exemple
-        Contenant contenant = new Contenant(20, 12.0, 70.0);
+        // Création d'un contenant assez grand pour l'inventaire ; température et humidité d'exemple
+        Contenant contenant = new Contenant(Integer.getInteger("contenant.capacite", CAPACITE), 12.0, 70.0);
+
+        // Règles d'accords mets-vins : celles du fichier s'il existe, sinon les règles par défaut
+        File regles = new File("accords.txt");
+        if (regles.exists()) {
+            try {
+                contenant.setMoteurAccords(MoteurAccords.charger(regles));
+            } catch (IOException e) {
+                LOG.log(Level.WARNING, "Règles d'accords ignorées : " + regles, e);
+            }
+        }
         
-        // Chargement des items depuis le fichier JSON et ajout dans le contenant
-        try {
-            ItemDAO jsonDao = new ItemDAO();
-            List<Item> items = jsonDao.getAllItems();
-            for (Item item : items) {
-                contenant.ajouterItem(item);
+        // Chargement des items depuis le stockage et ajout dans le contenant.
+        // Le stockage est conservé par la fenêtre : son cache évite de relire les fichiers à chaque action.
+        ItemStore stockage = ouvrirStockage();
+        boolean progressif = Boolean.parseBoolean(System.getProperty("chargement.progressif", "true"));
+        if (!progressif) {
+            try {
+                List<Item> items = stockage.getAllItems();
+                contenant.ajouterTous(items);
+            } catch (Exception e) {
+                LOG.log(Level.SEVERE, "Chargement de l'inventaire impossible", e);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
         
         // Lancement de l'interface graphique dans le thread Swing
         SwingUtilities.invokeLater(() -> {
-            MainFrame frame = new MainFrame(contenant);
+            MainFrame frame = new MainFrame(contenant, stockage);
             frame.setVisible(true);
+            if (progressif) {
+                charger(contenant, stockage, frame);
+            }
         });
     }
+
+    /**
+     * Ouvre le stockage de l'inventaire : {@code items.json} et son journal ou, avec
+     * {@code -Dstockage.segments=<répertoire>}, un stockage réparti en segments par emplacement
+     * ({@code -Dstockage.cle=region} pour répartir par région). Un stockage réparti encore vide
+     * est initialisé depuis {@code items.json}, qui n'est ensuite plus modifié.
+     *
+     * @return le stockage
+     */
+    private static ItemStore ouvrirStockage() {
+        ItemDAO jsonDao = new ItemDAO();
+        // Les textes longs restent dans la projection de la copie binaire : ils sont relus à chaque accès
+        // (tableau, index de recherche, accords, détails), le cache des derniers textes lus amortissant les relectures
+        jsonDao.setLazyLoading(true);
+        String repertoire = System.getProperty("stockage.segments");
+        if (repertoire == null) {
+            return jsonDao;
+        }
+        ShardedItemStore segments = new ShardedItemStore(repertoire,
+                "region".equals(System.getProperty("stockage.cle"))
+                        ? ShardedItemStore::cleRegion : ShardedItemStore::clePosition);
+        if (segments.getAllItems().isEmpty()) {
+            try {
+                segments.saveAllItems(jsonDao.getAllItems());
+            } catch (IOException e) {
+                LOG.log(Level.SEVERE, "Initialisation des segments impossible : " + repertoire, e);
+            }
+        }
+        return segments;
+    }
+
+    /**
+     * Charge l'inventaire dans un thread d'arrière-plan et l'ajoute au contenant par lots,
+     * en affichant la progression dans la fenêtre.
+     *
+     * @param contenant le contenant à remplir
+     * @param dao le stockage de l'inventaire
+     * @param frame la fenêtre, déjà observatrice du contenant
+     */
+    private static void charger(Contenant contenant, ItemStore dao, MainFrame frame) {
+        Thread chargement = new Thread(() -> {
+            long debut = System.nanoTime();
+            int[] charges = {0};
+            frame.chargementEnCours(0);
+            try {
+                dao.chargerParLots(PREMIER_LOT, LOT_MAX, lot -> {
+                    // Seuls les vins effectivement ajoutés sont comptés : le contenant peut être plein
+                    charges[0] += contenant.ajouterTous(lot);
+                    frame.chargementEnCours(charges[0]);
+                });
+            } catch (RuntimeException e) {
+                LOG.log(Level.SEVERE, "Chargement de l'inventaire impossible", e);
+            } finally {
+                frame.chargementTermine();
+            }
+            LOG.fine(() -> charges[0] + " item(s) chargé(s) en " + (System.nanoTime() - debut) / 1_000_000 + " ms");
+        }, "chargement-inventaire");
+        chargement.setDaemon(true);
+        chargement.start();
+    }
 }
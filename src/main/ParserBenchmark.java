@@ -0,0 +1,152 @@
+package main;
+
+import dao.JsonItemReader;
+import model.Item;
+import model.Vin;
+import java.io.IOException;
+import java.io.StringReader;
+import java.text.SimpleDateFormat;
+import java.util.*;
+
+/**
+ * Banc d'essai comparant le lecteur JSON en flux ({@link JsonItemReader})
+ * à l'ancien analyseur par expressions régulières d'{@code ItemDAO}.
+ *
+ * <p>Un inventaire synthétique est généré en mémoire pour plusieurs tailles, puis chaque analyseur
+ * est exécuté après une phase de chauffe. Usage : {@code java -cp bin main.ParserBenchmark [tailles...]}</p>
+ */
+public class ParserBenchmark {
+    /** Nombre d'itérations de chauffe avant la mesure. */
+    private static final int CHAUFFE = 3;
+    /** Nombre d'itérations mesurées. */
+    private static final int MESURES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int[] tailles = {1_000, 10_000, 50_000};
+        if (args.length > 0) {
+            tailles = Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        }
+        System.out.printf("%10s %15s %15s %10s%n", "items", "regex (ms)", "flux (ms)", "gain");
+        for (int taille : tailles) {
+            String json = genererInventaire(taille);
+            double regex = mesurer(() -> analyserAncien(json), taille);
+            double flux = mesurer(() -> analyserFlux(json), taille);
+            System.out.printf("%10d %15.2f %15.2f %9.1fx%n", taille, regex, flux, regex / flux);
+        }
+    }
+
+    /**
+     * Mesure le temps médian d'un analyseur et vérifie le nombre d'items produits.
+     *
+     * @param analyseur l'analyseur à mesurer
+     * @param attendu le nombre d'items attendu
+     * @return le temps médian en millisecondes
+     */
+    private static double mesurer(Analyseur analyseur, int attendu) throws Exception {
+        for (int i = 0; i < CHAUFFE; i++) {
+            analyseur.analyser();
+        }
+        double[] temps = new double[MESURES];
+        for (int i = 0; i < MESURES; i++) {
+            long debut = System.nanoTime();
+            int lus = analyseur.analyser().size();
+            temps[i] = (System.nanoTime() - debut) / 1e6;
+            if (lus != attendu) {
+                throw new IllegalStateException(lus + " items lus au lieu de " + attendu);
+            }
+        }
+        Arrays.sort(temps);
+        return temps[MESURES / 2];
+    }
+
+    /**
+     * Génère un document JSON au format d'items.json.
+     * Les descriptions contiennent des virgules, que l'ancien analyseur sait traiter.
+     *
+     * @param taille le nombre d'items
+     * @return le document JSON
+     */
+    private static String genererInventaire(int taille) {
+        StringBuilder sb = new StringBuilder(taille * 420);
+        sb.append("[\n");
+        for (int i = 0; i < taille; i++) {
+            sb.append("  {\"denomination\":\"Château n°").append(i)
+              .append("\",\"description\":\"Vin rouge de garde, notes de cassis, de cèdre et de tabac, finale longue.\"")
+              .append(",\"quantite\":").append(i % 12 + 1)
+              .append(",\"anneeProduction\":").append(1990 + i % 35)
+              .append(",\"dateAjout\":\"2025-03-08\",\"prix\":").append(10 + (i % 500) * 1.5)
+              .append(",\"dlc\":\"À consommer entre 2025 et 2040\",\"image\":\"images/vin-").append(i)
+              .append(".png\",\"position\":\"Cellier ").append((char) ('A' + i % 6)).append(i % 20)
+              .append("\",\"phaseVieillissement\":\"En cours de maturation\",\"note\":").append(3 + (i % 20) / 10.0)
+              .append(",\"cepage\":\"Cabernet Sauvignon, Merlot\",\"region\":\"Bordeaux, France\"}");
+            sb.append(i < taille - 1 ? ",\n" : "\n");
+        }
+        sb.append("]");
+        return sb.toString();
+    }
+
+    /**
+     * Analyse avec le lecteur en flux.
+     */
+    private static List<Item> analyserFlux(String json) throws IOException {
+        try (JsonItemReader reader = new JsonItemReader(new StringReader(json))) {
+            return reader.readAll();
+        }
+    }
+
+    /**
+     * Reproduction de l'ancien analyseur d'{@code ItemDAO} (découpage par expressions régulières),
+     * conservée uniquement comme référence de comparaison.
+     */
+    private static List<Item> analyserAncien(String document) throws Exception {
+        List<Item> items = new ArrayList<>();
+        StringBuilder sb = new StringBuilder();
+        for (String line : document.split("\n")) {
+            sb.append(line);
+        }
+        String json = sb.toString().trim();
+        json = json.substring(1, json.length() - 1).trim();
+        for (String objStr : json.split("\\},\\s*\\{")) {
+            if (!objStr.startsWith("{")) {
+                objStr = "{" + objStr;
+            }
+            if (!objStr.endsWith("}")) {
+                objStr = objStr + "}";
+            }
+            String corps = objStr.substring(1, objStr.length() - 1);
+            Map<String, String> map = new HashMap<>();
+            for (String field : corps.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)")) {
+                String[] parts = field.split(":", 2);
+                if (parts.length == 2) {
+                    String key = parts[0].trim();
+                    String value = parts[1].trim();
+                    if (key.startsWith("\"") && key.endsWith("\"")) {
+                        key = key.substring(1, key.length() - 1);
+                    }
+                    if (value.startsWith("\"") && value.endsWith("\"")) {
+                        value = value.substring(1, value.length() - 1);
+                    }
+                    map.put(key, value);
+                }
+            }
+            Vin vin = new Vin(map.get("denomination"), map.get("description"),
+                    Integer.parseInt(map.get("quantite")), Integer.parseInt(map.get("anneeProduction")),
+                    new SimpleDateFormat("yyyy-MM-dd").parse(map.get("dateAjout")),
+                    Double.parseDouble(map.get("prix")), map.get("cepage"), map.get("region"));
+            vin.setDlc(map.get("dlc"));
+            vin.setImage(map.get("image"));
+            vin.setPosition(map.get("position"));
+            vin.setPhaseVieillissement(map.get("phaseVieillissement"));
+            vin.setNote(Double.parseDouble(map.get("note")));
+            items.add(vin);
+        }
+        return items;
+    }
+
+    /**
+     * Analyseur mesurable.
+     */
+    private interface Analyseur {
+        List<Item> analyser() throws Exception;
+    }
+}
@@ -0,0 +1,52 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteur d'opérations, incrémenté sans verrou depuis n'importe quel thread.
+ * Les compteurs sont créés et publiés par {@link Metriques#compteur(String)}.
+ */
+public final class Compteur implements CompteurMBean {
+    private final String nom;
+    private final LongAdder valeur = new LongAdder();
+
+    Compteur(String nom) {
+        this.nom = nom;
+    }
+
+    /**
+     * Retourne le nom du compteur.
+     * @return le nom
+     */
+    public String getNom() { return nom; }
+
+    /**
+     * Ajoute un au compteur.
+     */
+    public void incrementer() {
+        valeur.increment();
+    }
+
+    /**
+     * Ajoute une quantité au compteur.
+     * @param quantite la quantité
+     */
+    public void ajouter(long quantite) {
+        valeur.add(quantite);
+    }
+
+    @Override
+    public long getValeur() {
+        return valeur.sum();
+    }
+
+    @Override
+    public void reinitialiser() {
+        valeur.reset();
+    }
+
+    @Override
+    public String toString() {
+        return nom + "=" + getValeur();
+    }
+}
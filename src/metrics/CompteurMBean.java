@@ -0,0 +1,17 @@
+package metrics;
+
+/**
+ * Interface JMX d'un {@link Compteur}.
+ */
+public interface CompteurMBean {
+    /**
+     * Retourne la valeur du compteur.
+     * @return la valeur
+     */
+    long getValeur();
+
+    /**
+     * Remet le compteur à zéro.
+     */
+    void reinitialiser();
+}
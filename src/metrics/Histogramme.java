@@ -0,0 +1,160 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogramme de durées, en nanosecondes, alimenté sans verrou depuis n'importe quel thread.
+ *
+ * <p>Les durées sont rangées dans des classes logarithmiques : quatre classes par puissance de deux,
+ * soit une précision relative de 25 % sur les centiles, pour une taille fixe quel que soit
+ * le nombre de mesures. La moyenne et le maximum sont exacts.
+ * Les histogrammes sont créés et publiés par {@link Metriques#histogramme(String)}.</p>
+ */
+public final class Histogramme implements HistogrammeMBean {
+    /** Nombre de classes : quatre par puissance de deux jusqu'à 2<sup>63</sup>. */
+    private static final int CLASSES = 4 * 62;
+
+    private final String nom;
+    private final AtomicLongArray effectifs = new AtomicLongArray(CLASSES);
+    private final LongAdder nombre = new LongAdder();
+    private final LongAdder somme = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogramme(String nom) {
+        this.nom = nom;
+    }
+
+    /**
+     * Retourne le nom de l'histogramme.
+     * @return le nom
+     */
+    public String getNom() { return nom; }
+
+    /**
+     * Enregistre une durée.
+     *
+     * @param nanos la durée, en nanosecondes
+     */
+    public void enregistrer(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        effectifs.incrementAndGet(classe(nanos));
+        nombre.increment();
+        somme.add(nanos);
+        long courant;
+        while (nanos > (courant = max.get()) && !max.compareAndSet(courant, nanos)) {
+            // Un autre thread a enregistré un maximum entre-temps : nouvel essai
+        }
+    }
+
+    /**
+     * Enregistre la durée écoulée depuis un instant.
+     *
+     * @param debut l'instant de début, obtenu par {@link System#nanoTime()}
+     */
+    public void enregistrerDepuis(long debut) {
+        enregistrer(System.nanoTime() - debut);
+    }
+
+    /**
+     * Retourne la classe d'une durée.
+     *
+     * @param v la durée, positive
+     * @return le numéro de la classe
+     */
+    private static int classe(long v) {
+        if (v < 4) {
+            return (int) v;
+        }
+        int exposant = 63 - Long.numberOfLeadingZeros(v);
+        return Math.min(CLASSES - 1, 4 * (exposant - 1) + (int) ((v >>> (exposant - 2)) & 3));
+    }
+
+    /**
+     * Retourne la plus petite durée d'une classe.
+     *
+     * @param classe le numéro de la classe
+     * @return la borne inférieure, en nanosecondes
+     */
+    private static long borne(int classe) {
+        if (classe < 4) {
+            return classe;
+        }
+        int exposant = classe / 4 + 1;
+        return (4L + classe % 4) << (exposant - 2);
+    }
+
+    /**
+     * Retourne une estimation d'un centile.
+     *
+     * @param fraction la fraction des mesures inférieures, entre 0 et 1
+     * @return la durée, en nanosecondes : le milieu de la classe contenant le centile
+     */
+    public long centile(double fraction) {
+        long total = 0;
+        long[] copie = new long[CLASSES];
+        for (int i = 0; i < CLASSES; i++) {
+            copie[i] = effectifs.get(i);
+            total += copie[i];
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rang = (long) Math.ceil(fraction * total);
+        long cumul = 0;
+        for (int i = 0; i < CLASSES; i++) {
+            cumul += copie[i];
+            if (cumul >= Math.max(rang, 1)) {
+                long bas = borne(i);
+                long haut = i + 1 < CLASSES ? borne(i + 1) : bas;
+                return Math.min(bas + (haut - bas) / 2, max.get());
+            }
+        }
+        return max.get();
+    }
+
+    @Override
+    public long getNombre() {
+        return nombre.sum();
+    }
+
+    @Override
+    public double getMoyenneMs() {
+        long n = nombre.sum();
+        return n == 0 ? 0 : somme.sum() / 1e6 / n;
+    }
+
+    @Override
+    public double getMedianeMs() {
+        return centile(0.5) / 1e6;
+    }
+
+    @Override
+    public double getP99Ms() {
+        return centile(0.99) / 1e6;
+    }
+
+    @Override
+    public double getMaxMs() {
+        return max.get() / 1e6;
+    }
+
+    @Override
+    public void reinitialiser() {
+        for (int i = 0; i < CLASSES; i++) {
+            effectifs.set(i, 0);
+        }
+        nombre.reset();
+        somme.reset();
+        max.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s n=%d moy=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+                nom, getNombre(), getMoyenneMs(), getMedianeMs(), getP99Ms(), getMaxMs());
+    }
+}
@@ -0,0 +1,26 @@
+package metrics;
+
+/**
+ * Interface JMX d'un {@link Histogramme}. Les durées sont exprimées en millisecondes.
+ */
+public interface HistogrammeMBean {
+    /** @return le nombre de mesures */
+    long getNombre();
+
+    /** @return la durée moyenne */
+    double getMoyenneMs();
+
+    /** @return la durée médiane */
+    double getMedianeMs();
+
+    /** @return le 99<sup>e</sup> centile des durées */
+    double getP99Ms();
+
+    /** @return la plus longue durée */
+    double getMaxMs();
+
+    /**
+     * Efface toutes les mesures.
+     */
+    void reinitialiser();
+}
@@ -0,0 +1,191 @@
+package metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Registre des métriques de l'application : compteurs d'opérations et histogrammes de durées.
+ *
+ * <p>Chaque métrique est publiée par JMX dès sa création, sous le domaine {@value #DOMAINE}
+ * (par exemple {@code gestiondenrees:type=Histogramme,name=dao.chargement}), et peut donc être
+ * consultée avec jconsole ou VisualVM. {@link #demarrerJournalisation(long, TimeUnit)} écrit en plus
+ * un résumé périodique dans le journal de cette classe.</p>
+ *
+ * <p>Les métriques de l'application sont déclarées ici, pour que leurs noms restent au même endroit.</p>
+ */
+public final class Metriques {
+    /** Domaine JMX des métriques. */
+    public static final String DOMAINE = "gestiondenrees";
+
+    private static final Logger LOG = Logger.getLogger(Metriques.class.getName());
+    private static final ConcurrentMap<String, Compteur> COMPTEURS = new ConcurrentHashMap<>();
+    private static final ConcurrentMap<String, Histogramme> HISTOGRAMMES = new ConcurrentHashMap<>();
+
+    // Contenant
+    /** Durée d'un ajout (unitaire ou groupé) dans un contenant, notifications comprises. */
+    public static final Histogramme CONTENANT_INSERTION = histogramme("contenant.insertion");
+    /** Durée d'une suppression dans un contenant, notifications comprises. */
+    public static final Histogramme CONTENANT_SUPPRESSION = histogramme("contenant.suppression");
+    /** Durée de la prise en compte d'une modification d'attribut, notifications comprises. */
+    public static final Histogramme CONTENANT_MODIFICATION = histogramme("contenant.modification");
+    /** Durée de la notification d'un événement à tous les observateurs. */
+    public static final Histogramme CONTENANT_NOTIFICATION = histogramme("contenant.notification");
+    /** Items ajoutés aux contenants. */
+    public static final Compteur ITEMS_AJOUTES = compteur("contenant.items.ajoutes");
+    /** Items retirés des contenants. */
+    public static final Compteur ITEMS_SUPPRIMES = compteur("contenant.items.supprimes");
+    /** Items refusés (contenant plein ou item déjà placé). */
+    public static final Compteur ITEMS_REFUSES = compteur("contenant.items.refuses");
+
+    // Persistance
+    /** Durée d'un chargement complet de l'inventaire. */
+    public static final Histogramme DAO_CHARGEMENT = histogramme("dao.chargement");
+    /** Durée moyenne d'analyse d'un item, mesurée à chaque lecture du fichier JSON. */
+    public static final Histogramme DAO_ANALYSE_ITEM = histogramme("dao.analyse.item");
+    /** Durée d'une sauvegarde : écriture d'un lot de modifications ou de l'inventaire complet. */
+    public static final Histogramme DAO_SAUVEGARDE = histogramme("dao.sauvegarde");
+    /** Insertions écrites. */
+    public static final Compteur DAO_INSERTIONS = compteur("dao.insertions");
+    /** Mises à jour écrites. */
+    public static final Compteur DAO_MISES_A_JOUR = compteur("dao.misesAJour");
+    /** Suppressions écrites. */
+    public static final Compteur DAO_SUPPRESSIONS = compteur("dao.suppressions");
+    /** Écritures en échec. */
+    public static final Compteur DAO_ECHECS = compteur("dao.echecs");
+
+    // Interface
+    /** Durée de la mise à jour du tableau après un événement du contenant. */
+    public static final Histogramme VUE_RAFRAICHISSEMENT = histogramme("vue.rafraichissement");
+    /** Durée de l'obtention d'une miniature hors du cache : lecture sur le disque, ou décodage et réduction. */
+    public static final Histogramme VUE_MINIATURE = histogramme("vue.miniature");
+    /** Miniatures trouvées dans le cache. */
+    public static final Compteur MINIATURES_TROUVEES = compteur("vue.miniatures.trouvees");
+    /** Miniatures absentes du cache, à relire sur le disque ou à décoder. */
+    public static final Compteur MINIATURES_MANQUEES = compteur("vue.miniatures.manquees");
+    /** Miniatures absentes du cache relues sur le disque plutôt que décodées. */
+    public static final Compteur MINIATURES_DISQUE = compteur("vue.miniatures.disque");
+    /** Miniatures retirées du cache, par manque de place ou libérées par le ramasse-miettes. */
+    public static final Compteur MINIATURES_EVINCEES = compteur("vue.miniatures.evincees");
+
+    /** Tâche du résumé périodique, ou null. */
+    private static ScheduledExecutorService journalisation;
+
+    private Metriques() {
+    }
+
+    /**
+     * Retourne le compteur d'un nom, créé et publié par JMX au premier appel.
+     *
+     * @param nom le nom du compteur
+     * @return le compteur
+     */
+    public static Compteur compteur(String nom) {
+        return COMPTEURS.computeIfAbsent(nom, n -> publier(new Compteur(n), "Compteur", n));
+    }
+
+    /**
+     * Retourne l'histogramme d'un nom, créé et publié par JMX au premier appel.
+     *
+     * @param nom le nom de l'histogramme
+     * @return l'histogramme
+     */
+    public static Histogramme histogramme(String nom) {
+        return HISTOGRAMMES.computeIfAbsent(nom, n -> publier(new Histogramme(n), "Histogramme", n));
+    }
+
+    /**
+     * Enregistre une métrique auprès du serveur JMX de la plateforme.
+     * Un échec n'empêche pas de l'utiliser : il est seulement journalisé.
+     *
+     * @param metrique la métrique
+     * @param type le type, dans le nom JMX
+     * @param nom le nom de la métrique
+     * @param <T> le type de la métrique
+     * @return la métrique
+     */
+    private static <T> T publier(T metrique, String type, String nom) {
+        try {
+            MBeanServer serveur = ManagementFactory.getPlatformMBeanServer();
+            ObjectName nomJmx = new ObjectName(DOMAINE + ":type=" + type + ",name=" + nom);
+            if (!serveur.isRegistered(nomJmx)) {
+                serveur.registerMBean(metrique, nomJmx);
+            }
+        } catch (JMException | RuntimeException e) {
+            LOG.log(Level.WARNING, "Métrique non publiée par JMX : " + nom, e);
+        }
+        return metrique;
+    }
+
+    /**
+     * Retourne un résumé de toutes les métriques, une par ligne, par ordre alphabétique.
+     * Les histogrammes vides sont omis.
+     *
+     * @return le résumé
+     */
+    public static String resume() {
+        StringBuilder sb = new StringBuilder();
+        for (Compteur compteur : new TreeMap<>(COMPTEURS).values()) {
+            sb.append(compteur).append('\n');
+        }
+        for (Histogramme histogramme : new TreeMap<>(HISTOGRAMMES).values()) {
+            if (histogramme.getNombre() > 0) {
+                sb.append(histogramme).append('\n');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Retourne les compteurs, par nom.
+     * @return les compteurs
+     */
+    public static Map<String, Compteur> getCompteurs() {
+        return new TreeMap<>(COMPTEURS);
+    }
+
+    /**
+     * Retourne les histogrammes, par nom.
+     * @return les histogrammes
+     */
+    public static Map<String, Histogramme> getHistogrammes() {
+        return new TreeMap<>(HISTOGRAMMES);
+    }
+
+    /**
+     * Écrit périodiquement le résumé des métriques dans le journal, au niveau INFO.
+     * Un appel remplace la période précédente.
+     *
+     * @param periode la période
+     * @param unite l'unité de la période
+     */
+    public static synchronized void demarrerJournalisation(long periode, TimeUnit unite) {
+        arreterJournalisation();
+        journalisation = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "journal-metriques");
+            thread.setDaemon(true);
+            return thread;
+        });
+        journalisation.scheduleAtFixedRate(() -> LOG.info(() -> "Métriques :\n" + resume()), periode, periode, unite);
+    }
+
+    /**
+     * Arrête le résumé périodique, s'il est démarré.
+     */
+    public static synchronized void arreterJournalisation() {
+        if (journalisation != null) {
+            journalisation.shutdownNow();
+            journalisation = null;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Automate d'Aho-Corasick reconnaissant un ensemble de mots-clés en un seul passage sur un texte.
+ *
+ * <p>La recherche ignore la casse et trouve les mots-clés n'importe où dans le texte, y compris
+ * à l'intérieur d'un mot, comme {@link String#contains(CharSequence)}. Son coût ne dépend que
+ * de la longueur du texte, et non du nombre de mots-clés.</p>
+ */
+final class AutomateMotsCles {
+    /** Pour chaque état, les caractères de ses transitions, triés. */
+    private final char[][] symboles;
+    /** Pour chaque état, les états atteints par ses transitions, dans l'ordre de {@link #symboles}. */
+    private final int[][] suivants;
+    /** Pour chaque état, l'état du plus long suffixe propre reconnu. */
+    private final int[] echecs;
+    /** Pour chaque état, les numéros des mots-clés qui se terminent en cet état. */
+    private final int[][] sorties;
+
+    /**
+     * Construit l'automate.
+     *
+     * @param motsCles les mots-clés ; leur rang dans la liste est le numéro rapporté par la recherche.
+     *                 Les mots-clés vides sont ignorés.
+     */
+    AutomateMotsCles(List<String> motsCles) {
+        // Construction de l'arbre des préfixes
+        List<TreeMap<Character, Integer>> arbre = new ArrayList<>();
+        List<List<Integer>> fins = new ArrayList<>();
+        arbre.add(new TreeMap<>());
+        fins.add(new ArrayList<>());
+        for (int i = 0; i < motsCles.size(); i++) {
+            String motCle = motsCles.get(i);
+            if (motCle.isEmpty()) {
+                continue;
+            }
+            int etat = 0;
+            for (int j = 0; j < motCle.length(); j++) {
+                char c = Character.toLowerCase(motCle.charAt(j));
+                Integer suivant = arbre.get(etat).get(c);
+                if (suivant == null) {
+                    suivant = arbre.size();
+                    arbre.add(new TreeMap<>());
+                    fins.add(new ArrayList<>());
+                    arbre.get(etat).put(c, suivant);
+                }
+                etat = suivant;
+            }
+            fins.get(etat).add(i);
+        }
+
+        int taille = arbre.size();
+        symboles = new char[taille][];
+        suivants = new int[taille][];
+        for (int etat = 0; etat < taille; etat++) {
+            TreeMap<Character, Integer> transitions = arbre.get(etat);
+            symboles[etat] = new char[transitions.size()];
+            suivants[etat] = new int[transitions.size()];
+            int k = 0;
+            for (Map.Entry<Character, Integer> t : transitions.entrySet()) {
+                symboles[etat][k] = t.getKey();
+                suivants[etat][k++] = t.getValue();
+            }
+        }
+
+        // Liens d'échec et sorties, calculés en largeur : le lien d'un état pointe vers un état moins profond
+        echecs = new int[taille];
+        sorties = new int[taille][];
+        sorties[0] = new int[0];
+        Deque<Integer> file = new ArrayDeque<>();
+        for (int suivant : suivants[0]) {
+            file.add(suivant);
+        }
+        while (!file.isEmpty()) {
+            int etat = file.poll();
+            List<Integer> propres = fins.get(etat);
+            int[] heritees = sorties[echecs[etat]];
+            int[] sortie = new int[propres.size() + heritees.length];
+            for (int k = 0; k < propres.size(); k++) {
+                sortie[k] = propres.get(k);
+            }
+            System.arraycopy(heritees, 0, sortie, propres.size(), heritees.length);
+            sorties[etat] = sortie;
+            for (int k = 0; k < symboles[etat].length; k++) {
+                int fils = suivants[etat][k];
+                // Les fils de la racine échouent vers la racine
+                echecs[fils] = etat == 0 ? 0 : transiter(echecs[etat], symboles[etat][k]);
+                file.add(fils);
+            }
+        }
+    }
+
+    /**
+     * Calcule l'état atteint depuis un état en lisant un caractère, en suivant les liens d'échec.
+     *
+     * @param etat l'état de départ
+     * @param c le caractère lu, en minuscule
+     * @return l'état atteint
+     */
+    private int transiter(int etat, char c) {
+        while (true) {
+            int k = Arrays.binarySearch(symboles[etat], c);
+            if (k >= 0) {
+                return suivants[etat][k];
+            }
+            if (etat == 0) {
+                return 0;
+            }
+            etat = echecs[etat];
+        }
+    }
+
+    /**
+     * Recherche les mots-clés présents dans un texte.
+     *
+     * @param texte le texte, éventuellement null
+     * @param trouves reçoit le numéro de chaque mot-clé présent
+     */
+    void rechercher(CharSequence texte, BitSet trouves) {
+        if (texte == null) {
+            return;
+        }
+        int etat = 0;
+        for (int i = 0; i < texte.length(); i++) {
+            etat = transiter(etat, Character.toLowerCase(texte.charAt(i)));
+            for (int motCle : sorties[etat]) {
+                trouves.set(motCle);
+            }
+        }
+    }
+}
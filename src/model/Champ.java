@@ -0,0 +1,34 @@
+package model;
+
+/**
+ * Énumération des attributs d'un item.
+ * Permet de désigner un champ particulier, par exemple pour le charger à la demande.
+ */
+public enum Champ {
+    /** La dénomination. */
+    DENOMINATION,
+    /** La description. */
+    DESCRIPTION,
+    /** La quantité. */
+    QUANTITE,
+    /** L'année de production. */
+    ANNEE_PRODUCTION,
+    /** La date d'ajout. */
+    DATE_AJOUT,
+    /** Le prix. */
+    PRIX,
+    /** La date limite de consommation. */
+    DLC,
+    /** Le chemin de l'image. */
+    IMAGE,
+    /** La position dans le contenant. */
+    POSITION,
+    /** La phase de vieillissement. */
+    PHASE_VIEILLISSEMENT,
+    /** La note. */
+    NOTE,
+    /** Le cépage (vins). */
+    CEPAGE,
+    /** La région (vins). */
+    REGION
+}
@@ -0,0 +1,241 @@
+package model;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Copie en colonnes des attributs numériques des items d'un {@link Contenant} : prix, quantité,
+ * année de production et note, rangés dans des tableaux primitifs au rang de chaque item.
+ *
+ * <p>Les agrégats parcourent ces tableaux contigus au lieu de déréférencer un objet par item,
+ * en boucles simples que le compilateur à la volée peut dérouler et vectoriser. Les sommes
+ * utilisent quatre accumulateurs indépendants, chacun compensé (Kahan), pour ne pas dépendre
+ * d'une seule chaîne d'additions sans perdre en précision.</p>
+ *
+ * <p>Les colonnes sont tenues à jour par le contenant, sous son verrou d'écriture : les items gardent
+ * leurs propres attributs, qui font foi, et un item lu sans verrou ne voit jamais la valeur d'un autre
+ * item déplacé par une suppression.</p>
+ */
+final class Colonnes {
+    /** Attributs copiés en colonnes. */
+    static final Set<Champ> CHAMPS = EnumSet.of(Champ.PRIX, Champ.QUANTITE, Champ.ANNEE_PRODUCTION, Champ.NOTE);
+
+    private double[] prix;
+    private int[] quantites;
+    private int[] annees;
+    private double[] notes;
+    /** Nombre d'items. */
+    private int taille;
+
+    /**
+     * Crée des colonnes vides.
+     *
+     * @param capacite capacité initiale
+     */
+    Colonnes(int capacite) {
+        capacite = Math.max(capacite, 16);
+        prix = new double[capacite];
+        quantites = new int[capacite];
+        annees = new int[capacite];
+        notes = new double[capacite];
+    }
+
+    /**
+     * Ajoute un item en dernière position.
+     *
+     * @param item l'item
+     */
+    void ajouter(Item item) {
+        if (taille == prix.length) {
+            int capacite = taille + (taille >> 1);
+            prix = Arrays.copyOf(prix, capacite);
+            quantites = Arrays.copyOf(quantites, capacite);
+            annees = Arrays.copyOf(annees, capacite);
+            notes = Arrays.copyOf(notes, capacite);
+        }
+        copier(taille++, item);
+    }
+
+    /**
+     * Recopie les attributs d'un item à un rang.
+     *
+     * @param rang le rang
+     * @param item l'item
+     */
+    void copier(int rang, Item item) {
+        prix[rang] = item.getPrix();
+        quantites[rang] = item.getQuantite();
+        annees[rang] = item.getAnneeProduction();
+        notes[rang] = item.getNote();
+    }
+
+    /**
+     * Retire l'item d'un rang, comme le contenant : le dernier item prend sa place.
+     *
+     * @param rang le rang
+     */
+    void retirer(int rang) {
+        int dernier = --taille;
+        prix[rang] = prix[dernier];
+        quantites[rang] = quantites[dernier];
+        annees[rang] = annees[dernier];
+        notes[rang] = notes[dernier];
+    }
+
+    /**
+     * Retourne la somme des prix multipliés par les quantités.
+     *
+     * @return la valeur totale
+     */
+    double valeur() {
+        double[] p = prix;
+        int[] q = quantites;
+        int n = taille;
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        double c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            double y0 = p[i] * q[i] - c0;
+            double y1 = p[i + 1] * q[i + 1] - c1;
+            double y2 = p[i + 2] * q[i + 2] - c2;
+            double y3 = p[i + 3] * q[i + 3] - c3;
+            double t0 = s0 + y0;
+            double t1 = s1 + y1;
+            double t2 = s2 + y2;
+            double t3 = s3 + y3;
+            c0 = (t0 - s0) - y0;
+            c1 = (t1 - s1) - y1;
+            c2 = (t2 - s2) - y2;
+            c3 = (t3 - s3) - y3;
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+        SommeCompensee total = new SommeCompensee();
+        total.ajouter(s0);
+        total.ajouter(-c0);
+        total.ajouter(s1);
+        total.ajouter(-c1);
+        total.ajouter(s2);
+        total.ajouter(-c2);
+        total.ajouter(s3);
+        total.ajouter(-c3);
+        for (; i < n; i++) {
+            total.ajouter(p[i] * q[i]);
+        }
+        return total.valeur();
+    }
+
+    /**
+     * Retourne la somme d'une colonne.
+     *
+     * @param champ l'attribut ({@link #CHAMPS})
+     * @return la somme
+     */
+    double somme(Champ champ) {
+        switch (champ) {
+            case PRIX: return somme(prix, taille);
+            case NOTE: return somme(notes, taille);
+            case QUANTITE: return somme(quantites, taille);
+            case ANNEE_PRODUCTION: return somme(annees, taille);
+            default: throw new IllegalArgumentException("attribut non stocké en colonne : " + champ);
+        }
+    }
+
+    /**
+     * Somme compensée d'un tableau de réels, sur quatre accumulateurs.
+     */
+    private static double somme(double[] v, int n) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        double c0 = 0, c1 = 0, c2 = 0, c3 = 0;
+        int i = 0;
+        for (; i + 3 < n; i += 4) {
+            double y0 = v[i] - c0;
+            double y1 = v[i + 1] - c1;
+            double y2 = v[i + 2] - c2;
+            double y3 = v[i + 3] - c3;
+            double t0 = s0 + y0;
+            double t1 = s1 + y1;
+            double t2 = s2 + y2;
+            double t3 = s3 + y3;
+            c0 = (t0 - s0) - y0;
+            c1 = (t1 - s1) - y1;
+            c2 = (t2 - s2) - y2;
+            c3 = (t3 - s3) - y3;
+            s0 = t0;
+            s1 = t1;
+            s2 = t2;
+            s3 = t3;
+        }
+        SommeCompensee total = new SommeCompensee();
+        total.ajouter(s0);
+        total.ajouter(-c0);
+        total.ajouter(s1);
+        total.ajouter(-c1);
+        total.ajouter(s2);
+        total.ajouter(-c2);
+        total.ajouter(s3);
+        total.ajouter(-c3);
+        for (; i < n; i++) {
+            total.ajouter(v[i]);
+        }
+        return total.valeur();
+    }
+
+    /**
+     * Somme exacte d'un tableau d'entiers : l'addition entière est associative, la boucle est vectorisable.
+     */
+    private static double somme(int[] v, int n) {
+        long s = 0;
+        for (int i = 0; i < n; i++) {
+            s += v[i];
+        }
+        return s;
+    }
+
+    /**
+     * Répartit les valeurs d'une colonne en classes de même largeur.
+     *
+     * @param champ l'attribut ({@link #CHAMPS})
+     * @param min borne inférieure de la première classe
+     * @param max borne supérieure de la dernière classe
+     * @param effectifs reçoit l'effectif de chaque classe ; les valeurs hors de [min, max] sont ignorées
+     */
+    void histogramme(Champ champ, double min, double max, int[] effectifs) {
+        int classes = effectifs.length;
+        double facteur = classes / (max - min);
+        int n = taille;
+        switch (champ) {
+            case PRIX:
+            case NOTE: {
+                double[] v = champ == Champ.PRIX ? prix : notes;
+                for (int i = 0; i < n; i++) {
+                    compter(v[i], min, max, facteur, effectifs);
+                }
+                break;
+            }
+            case QUANTITE:
+            case ANNEE_PRODUCTION: {
+                int[] v = champ == Champ.QUANTITE ? quantites : annees;
+                for (int i = 0; i < n; i++) {
+                    compter(v[i], min, max, facteur, effectifs);
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("attribut non stocké en colonne : " + champ);
+        }
+    }
+
+    /**
+     * Ajoute une valeur à sa classe.
+     */
+    static void compter(double valeur, double min, double max, double facteur, int[] effectifs) {
+        if (valeur >= min && valeur <= max) {
+            // La borne supérieure appartient à la dernière classe
+            effectifs[Math.min((int) ((valeur - min) * facteur), effectifs.length - 1)]++;
+        }
+    }
+}
@@ -1,33 +1,111 @@
 package model;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+import metrics.Metriques;
 
 /**
  * Classe représentant un contenant (ex : cave ou frigo) qui stocke des items.
  * <p>
  * Ce contenant gère une collection d'objets de type {@link Item} et permet de :
  * <ul>
- *   <li>Ajouter et supprimer des items.</li>
- *   <li>Calculer la valeur totale et le prix moyen des items.</li>
+ *   <li>Ajouter et supprimer des items, et les retrouver par dénomination en temps constant.</li>
+ *   <li>Rechercher des items par région, cépage, position et plages d'année, de prix ou de note ({@link #requete()}).</li>
+ *   <li>Rechercher des items par mots de leur dénomination, description, cépage ou région ({@link #rechercher(String)}).</li>
+ *   <li>Calculer la valeur totale et le prix moyen des items, ainsi que des sommes, moyennes et histogrammes
+ *       de leurs attributs numériques, sur des colonnes de tableaux primitifs si le contenant est colonnaire.</li>
  *   <li>Fournir des suggestions d'accords mets-vins pour les vins présents.</li>
  *   <li>Notifier les observateurs (implémentant {@link ContenantObserver}) lors des changements.</li>
  * </ul>
  * </p>
  *
+ * <p>Un contenant peut être modifié et lu depuis plusieurs threads. Les modifications sont
+ * sérialisées par un verrou d'écriture (la vérification de capacité et l'ajout sont donc atomiques) ;
+ * les recherches prennent le verrou de lecture. {@link #getItems()} et les statistiques se lisent
+ * sans verrou, sur un instantané publié après chaque modification. Les observateurs sont appelés
+ * sous le verrou d'écriture, dans l'ordre des modifications : ils doivent rendre la main rapidement
+ * (par exemple en retransmettant l'événement à leur propre thread) et ne pas attendre un autre thread
+ * qui modifierait le contenant. Les mutateurs des items du contenant lisent l'ancienne valeur et
+ * écrivent la nouvelle sous ce même verrou d'écriture : des modifications concurrentes d'un même item
+ * sont donc sérialisées, et les index et totaux restent exacts. Une suite de modifications qui doit
+ * être vue d'un seul coup, ou une lecture suivie d'une écriture qui dépend d'elle, se fait dans un
+ * {@link #batch(Runnable)}.</p>
+ *
  * @author 
  */
 public class Contenant {
+    private static final Logger LOG = Logger.getLogger(Contenant.class.getName());
+
     /** Capacité maximale du contenant (nombre maximum d'items). */
     private int contenanceMaximale;
     /** Température du contenant. */
     private double temperature;
     /** Humidité du contenant. */
     private double humidite;
-    /** Liste des items stockés dans le contenant. */
+    /** Liste des items stockés dans le contenant ; chaque item connaît son rang dans la liste. */
     private List<Item> items;
-    /** Liste des observateurs à notifier lors des modifications du contenant. */
-    private List<ContenantObserver> observers;
+    /** Index des items par dénomination (un item par dénomination, le premier ajouté). */
+    private final Map<String, Item> parDenomination = new HashMap<>();
+    /** Index secondaires utilisés par les requêtes. */
+    private final IndexSecondaires index = new IndexSecondaires();
+    /** Copie en colonnes des attributs numériques, ou null si le contenant n'est pas colonnaire. */
+    private final Colonnes colonnes;
+    /** Index plein texte utilisé par {@link #rechercher(String)}, tenu à jour par les événements. */
+    private final IndexTexte indexTexte = new IndexTexte();
+    /** Liste des observateurs à notifier lors des modifications du contenant (copie à l'écriture). */
+    private final List<ContenantObserver> observers = new CopyOnWriteArrayList<>();
+    /** Moteur des suggestions d'accords, premier observateur du contenant. */
+    private volatile MoteurAccords accords = MoteurAccords.parDefaut();
+    /** Verrou protégeant la liste, les index, les totaux et les lots. */
+    private final ReentrantReadWriteLock verrou = new ReentrantReadWriteLock();
+    /** Instantané non modifiable de la liste des items, ou null s'il est à reconstruire. */
+    private volatile List<Item> instantane;
+    /** Numéro de la dernière modification, reporté dans les événements. */
+    private long version;
+
+    // Totaux tenus à jour à chaque modification, pour des statistiques en temps constant
+    /** Somme des prix multipliés par les quantités. */
+    private final SommeCompensee valeurTotale = new SommeCompensee();
+    /** Somme des prix. */
+    private final SommeCompensee sommePrix = new SommeCompensee();
+    /** Somme des quantités. */
+    private long quantiteTotale;
+    /** Totaux publiés après chaque modification, lus sans verrou. */
+    private volatile Totaux totaux = new Totaux(0, 0, 0, 0);
+
+    /**
+     * Valeurs des totaux à un instant donné, publiées ensemble pour être lues de façon cohérente.
+     */
+    private static final class Totaux {
+        final double valeur;
+        final double sommePrix;
+        final long quantite;
+        final int nombre;
+
+        Totaux(double valeur, double sommePrix, long quantite, int nombre) {
+            this.valeur = valeur;
+            this.sommePrix = sommePrix;
+            this.quantite = quantite;
+            this.nombre = nombre;
+        }
+    }
+
+    /** Nombre de {@link #batch(Runnable)} en cours d'exécution. */
+    private int profondeurLot;
+    /** Événements retenus pendant un lot, fusionnés à sa fin. */
+    private final List<ContenantEvent> evenementsRetenus = new ArrayList<>();
     
     /**
      * Constructeur pour créer un contenant.
@@ -37,11 +115,46 @@ public class Contenant {
      * @param humidite         humidité du contenant
      */
     public Contenant(int contenanceMaximale, double temperature, double humidite) {
+        this(contenanceMaximale, temperature, humidite, false);
+    }
+
+    /**
+     * Constructeur pour créer un contenant, éventuellement colonnaire : le prix, la quantité,
+     * l'année de production et la note de ses items sont alors aussi rangés dans des tableaux
+     * primitifs, parcourus par {@link #somme(Champ)}, {@link #moyenne(Champ)},
+     * {@link #histogramme(Champ, double, double, int)} et {@link #calculerValeurTotale()}.
+     * Ce stockage est destiné aux très grands inventaires ; il coûte environ 24 octets par item.
+     *
+     * @param contenanceMaximale capacité maximale d'items
+     * @param temperature      température du contenant
+     * @param humidite         humidité du contenant
+     * @param colonnaire       vrai pour ranger les attributs numériques en colonnes
+     */
+    public Contenant(int contenanceMaximale, double temperature, double humidite, boolean colonnaire) {
         this.contenanceMaximale = contenanceMaximale;
         this.temperature = temperature;
         this.humidite = humidite;
         this.items = new ArrayList<>();
-        this.observers = new ArrayList<>();
+        this.colonnes = colonnaire ? new Colonnes(Math.min(contenanceMaximale, 1024)) : null;
+        this.observers.add(accords);
+        this.observers.add(indexTexte);
+    }
+
+    /**
+     * Exécute une lecture sous le verrou de lecture.
+     *
+     * @param lecture la lecture
+     * @param <T> le type du résultat
+     * @return le résultat de la lecture
+     */
+    <T> T lire(Supplier<T> lecture) {
+        Lock l = verrou.readLock();
+        l.lock();
+        try {
+            return lecture.get();
+        } finally {
+            l.unlock();
+        }
     }
     
     /**
@@ -63,14 +176,46 @@ public class Contenant {
     }
     
     /**
-     * Notifie tous les observateurs qu'une modification a eu lieu dans le contenant.
+     * Notifie tous les observateurs d'une modification du contenant.
+     *
+     * @param event la modification
      */
-    private void notifyObservers() {
+    private void notifyObservers(ContenantEvent event) {
+        event.setVersion(++version);
+        publier(event.getType() != ContenantEvent.Type.MODIFICATION);
+        if (profondeurLot > 0) {
+            evenementsRetenus.add(event);
+            return;
+        }
+        diffuser(event);
+    }
+
+    /**
+     * Transmet un événement à tous les observateurs, en mesurant la durée de la diffusion.
+     *
+     * @param event l'événement
+     */
+    private void diffuser(ContenantEvent event) {
+        long debut = System.nanoTime();
         for (ContenantObserver observer : observers) {
-            observer.update();
+            observer.update(event);
         }
+        Metriques.CONTENANT_NOTIFICATION.enregistrerDepuis(debut);
     }
     
+    /**
+     * Publie les totaux et invalide l'instantané de la liste, après une modification.
+     * Doit être appelée en détenant le verrou d'écriture.
+     *
+     * @param structurelle vrai si des items ont été ajoutés, retirés ou déplacés
+     */
+    private void publier(boolean structurelle) {
+        if (structurelle) {
+            instantane = null;
+        }
+        totaux = new Totaux(valeurTotale.valeur(), sommePrix.valeur(), quantiteTotale, items.size());
+    }
+
     /**
      * Ajoute un item dans le contenant si la capacité maximale n'est pas dépassée.
      * Notifie ensuite les observateurs.
@@ -78,27 +223,239 @@ public class Contenant {
      * @param item l'item à ajouter
      */
     public void ajouterItem(Item item) {
-        if (items.size() < contenanceMaximale) {
-            items.add(item);
-            System.out.println("Item ajouté : " + item.getDenomination());
-            notifyObservers();
+        long debut = System.nanoTime();
+        boolean dejaPlace;
+        boolean ajoute = false;
+        verrou.writeLock().lock();
+        try {
+            dejaPlace = item.getContenant() != null;
+            if (!dejaPlace && items.size() < contenanceMaximale) {
+                placer(item);
+                ajoute = true;
+                notifyObservers(ContenantEvent.ajout(List.of(item), item.getRang()));
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        Metriques.CONTENANT_INSERTION.enregistrerDepuis(debut);
+        if (ajoute) {
+            Metriques.ITEMS_AJOUTES.incrementer();
+            LOG.fine(() -> "Item ajouté : " + item.getDenomination());
         } else {
-            System.out.println("Contenant plein, impossible d'ajouter l'item.");
+            Metriques.ITEMS_REFUSES.incrementer();
+            LOG.warning(dejaPlace ? "Item déjà présent dans un contenant : " + item.getDenomination()
+                    : "Contenant plein, impossible d'ajouter l'item.");
         }
     }
     
     /**
-     * Supprime un item du contenant.
+     * Ajoute plusieurs items en une seule opération : la capacité est vérifiée une fois,
+     * et les observateurs reçoivent un unique événement d'ajout.
+     * Si la capacité ne suffit pas, seuls les premiers items sont ajoutés.
+     *
+     * @param nouveaux les items à ajouter
+     * @return le nombre d'items ajoutés
+     */
+    public int ajouterTous(Collection<? extends Item> nouveaux) {
+        long debut = System.nanoTime();
+        List<Item> ajoutes;
+        int ignores = 0;
+        verrou.writeLock().lock();
+        try {
+            int place = contenanceMaximale - items.size();
+            int premierRang = items.size();
+            ajoutes = new ArrayList<>(Math.min(Math.max(place, 0), nouveaux.size()));
+            for (Item item : nouveaux) {
+                if (item.getContenant() != null || ajoutes.size() >= place) {
+                    ignores++;
+                    continue;
+                }
+                placer(item);
+                ajoutes.add(item);
+            }
+            if (!ajoutes.isEmpty()) {
+                notifyObservers(ContenantEvent.ajout(ajoutes, premierRang));
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        Metriques.CONTENANT_INSERTION.enregistrerDepuis(debut);
+        Metriques.ITEMS_AJOUTES.ajouter(ajoutes.size());
+        Metriques.ITEMS_REFUSES.ajouter(ignores);
+        int nombre = ajoutes.size();
+        if (ignores > 0) {
+            LOG.warning(nombre + " item(s) ajouté(s), " + ignores + " ignoré(s) (contenant plein ou item déjà placé).");
+        } else {
+            LOG.fine(() -> nombre + " item(s) ajouté(s).");
+        }
+        return nombre;
+    }
+
+    /**
+     * Exécute une suite de modifications en ne notifiant les observateurs qu'une fois, à la fin,
+     * par un événement fusionné (voir {@link ContenantEvent}). Les lots peuvent être imbriqués :
+     * la notification a lieu à la fin du lot le plus externe, même s'il se termine par une exception.
+     * Le verrou d'écriture est détenu pendant tout le lot : les autres threads voient ses
+     * modifications d'un seul coup.
+     *
+     * @param modifications les modifications à exécuter
+     */
+    public void batch(Runnable modifications) {
+        verrou.writeLock().lock();
+        profondeurLot++;
+        try {
+            modifications.run();
+        } finally {
+            try {
+                if (--profondeurLot == 0 && !evenementsRetenus.isEmpty()) {
+                    ContenantEvent fusion = ContenantEvent.fusionner(evenementsRetenus, this::getItems);
+                    evenementsRetenus.clear();
+                    // Le numéro de l'événement fusionné est celui de la dernière modification du lot
+                    fusion.setVersion(version);
+                    diffuser(fusion);
+                }
+            } finally {
+                verrou.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Supprime un item du contenant, en temps constant : le dernier item de la liste
+     * prend la place de l'item supprimé.
      * Notifie ensuite les observateurs.
      *
      * @param item l'item à supprimer
      */
     public void supprimerItem(Item item) {
-        if (items.remove(item)) {
-            System.out.println("Item supprimé : " + item.getDenomination());
-            notifyObservers();
+        long debut = System.nanoTime();
+        boolean supprime;
+        verrou.writeLock().lock();
+        try {
+            supprime = item.getContenant() == this;
+            if (supprime) {
+                int rang = item.getRang();
+                int rangDeplace = rang == items.size() - 1 ? -1 : items.size() - 1;
+                retirer(item);
+                notifyObservers(ContenantEvent.suppression(item, rang, rangDeplace));
+            }
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        Metriques.CONTENANT_SUPPRESSION.enregistrerDepuis(debut);
+        if (supprime) {
+            Metriques.ITEMS_SUPPRIMES.incrementer();
+            LOG.fine(() -> "Item supprimé : " + item.getDenomination());
         } else {
-            System.out.println("Item non trouvé.");
+            LOG.warning("Item non trouvé : " + item.getDenomination());
+        }
+    }
+
+    /**
+     * Indique si un item se trouve dans ce contenant, en temps constant.
+     *
+     * @param item l'item
+     * @return vrai si l'item est dans ce contenant
+     */
+    public boolean contient(Item item) {
+        return item.getContenant() == this;
+    }
+
+    /**
+     * Retourne l'item d'une dénomination, en temps constant.
+     * Si plusieurs items partagent la dénomination, le premier ajouté est retourné.
+     *
+     * @param denomination la dénomination recherchée
+     * @return l'item, ou null s'il n'y en a aucun
+     */
+    public Item findByDenomination(String denomination) {
+        return lire(() -> parDenomination.get(denomination));
+    }
+
+    /**
+     * Supprime l'item d'une dénomination (voir {@link #findByDenomination(String)}).
+     * Notifie ensuite les observateurs.
+     *
+     * @param denomination la dénomination de l'item à supprimer
+     * @return l'item supprimé, ou null s'il n'y en avait aucun
+     */
+    public Item removeByDenomination(String denomination) {
+        verrou.writeLock().lock();
+        try {
+            Item item = parDenomination.get(denomination);
+            if (item != null) {
+                supprimerItem(item);
+            }
+            return item;
+        } finally {
+            verrou.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ajoute un item à la liste, aux index et aux totaux.
+     *
+     * @param item l'item, qui n'appartient à aucun contenant
+     */
+    private void placer(Item item) {
+        // Le moniteur de l'item écarte les modifications faites hors de tout contenant (voir Item#modifier)
+        synchronized (item) {
+            item.setContenant(this);
+            item.setRang(items.size());
+            items.add(item);
+            if (colonnes != null) {
+                colonnes.ajouter(item);
+            }
+            parDenomination.putIfAbsent(item.getDenomination(), item);
+            index.ajouter(item);
+            comptabiliser(item.getPrix(), item.getQuantite(), 1);
+        }
+    }
+
+    /**
+     * Retire un item de la liste, de l'index et des totaux.
+     *
+     * @param item l'item, présent dans le contenant
+     */
+    private void retirer(Item item) {
+        synchronized (item) {
+            int rang = item.getRang();
+            Item dernier = items.remove(items.size() - 1);
+            if (dernier != item) {
+                items.set(rang, dernier);
+                dernier.setRang(rang);
+            }
+            if (colonnes != null) {
+                colonnes.retirer(rang);
+            }
+            item.setContenant(null);
+            item.setRang(-1);
+            desindexer(item, item.getDenomination());
+            index.retirer(item);
+            comptabiliser(item.getPrix(), item.getQuantite(), -1);
+        }
+    }
+
+    /**
+     * Retire un item de l'index des dénominations, sous la dénomination donnée.
+     * Si d'autres items partagent cette dénomination, l'un d'eux le remplace dans l'index.
+     *
+     * @param item l'item
+     * @param denomination la dénomination sous laquelle il est indexé
+     */
+    private void desindexer(Item item, String denomination) {
+        if (parDenomination.get(denomination) != item) {
+            return;
+        }
+        parDenomination.remove(denomination);
+        // Il y a des doublons de dénomination seulement si l'index compte moins d'entrées que d'items
+        if (parDenomination.size() < items.size() - (item.getContenant() == this ? 1 : 0)) {
+            for (Item autre : items) {
+                if (autre != item && Objects.equals(autre.getDenomination(), denomination)) {
+                    parDenomination.put(denomination, autre);
+                    break;
+                }
+            }
         }
     }
     
@@ -107,70 +464,305 @@ public class Contenant {
      */
     public void afficherItems() {
         System.out.println("Items dans le contenant :");
-        for (Item item : items) {
+        for (Item item : getItems()) {
             item.afficher();
             System.out.println("-------------------------");
         }
     }
     
     /**
-     * Calcule la valeur totale de tous les items dans le contenant.
-     * La valeur totale est obtenue en multipliant le prix de chaque item par sa quantité.
+     * Crée une requête sur les items du contenant, exécutée à l'aide des index secondaires.
+     *
+     * @return une nouvelle requête, sans critère
+     */
+    public Requete requete() {
+        return new Requete(this, index);
+    }
+
+    /**
+     * Ajoute aux totaux (signe 1) ou en retranche (signe -1) la contribution d'un item.
+     *
+     * @param prix le prix de l'item à prendre en compte
+     * @param quantite la quantité de l'item à prendre en compte
+     * @param signe 1 pour un ajout, -1 pour un retrait
+     */
+    private void comptabiliser(double prix, int quantite, int signe) {
+        if (items.isEmpty()) {
+            // Contenant vide : les totaux sont exactement nuls, sans reste d'arrondi
+            valeurTotale.reinitialiser();
+            sommePrix.reinitialiser();
+            quantiteTotale = 0;
+            return;
+        }
+        valeurTotale.ajouter(signe * prix * quantite);
+        sommePrix.ajouter(signe * prix);
+        quantiteTotale += signe * quantite;
+    }
+
+    /**
+     * Modifie un attribut d'un item du contenant : sous le verrou d'écriture, lit l'ancienne valeur,
+     * écrit la nouvelle, met à jour l'index et les totaux concernés, puis notifie les observateurs.
+     *
+     * @param item l'item modifié
+     * @param champ l'attribut modifié
+     * @param ancienneValeur lit la valeur de l'attribut avant la modification
+     * @param ecriture écrit la nouvelle valeur
+     * @return faux, sans rien écrire, si l'item n'est plus dans ce contenant
+     */
+    boolean modifier(Item item, Champ champ, Supplier<Object> ancienneValeur, Runnable ecriture) {
+        long debut = System.nanoTime();
+        verrou.writeLock().lock();
+        try {
+            // L'item a pu être retiré par un autre thread entre-temps
+            if (item.getContenant() != this) {
+                return false;
+            }
+            Object ancienne = ancienneValeur.get();
+            ecriture.run();
+            appliquerModification(item, champ, ancienne);
+        } finally {
+            verrou.writeLock().unlock();
+        }
+        Metriques.CONTENANT_MODIFICATION.enregistrerDepuis(debut);
+        return true;
+    }
+
+    private void appliquerModification(Item item, Champ champ, Object ancienneValeur) {
+        index.modifier(item, champ, ancienneValeur);
+        if (colonnes != null && Colonnes.CHAMPS.contains(champ)) {
+            colonnes.copier(item.getRang(), item);
+        }
+        switch (champ) {
+            case DENOMINATION:
+                desindexer(item, (String) ancienneValeur);
+                parDenomination.putIfAbsent(item.getDenomination(), item);
+                break;
+            case PRIX:
+                comptabiliser((Double) ancienneValeur, item.getQuantite(), -1);
+                comptabiliser(item.getPrix(), item.getQuantite(), 1);
+                break;
+            case QUANTITE:
+                comptabiliser(item.getPrix(), (Integer) ancienneValeur, -1);
+                comptabiliser(item.getPrix(), item.getQuantite(), 1);
+                break;
+            default:
+                break;
+        }
+        notifyObservers(ContenantEvent.modification(item, item.getRang(), EnumSet.of(champ)));
+    }
+
+    /**
+     * Retourne la valeur totale de tous les items dans le contenant.
+     * La valeur totale est la somme des prix de chaque item multipliés par sa quantité ;
+     * elle est tenue à jour à chaque ajout, suppression ou changement de prix ou de quantité.
      *
      * @return la valeur totale
      */
     public double getValeurTotale() {
-        double total = 0;
-        for (Item item : items) {
-            total += item.getPrix() * item.getQuantite();
-        }
-        return total;
+        return totaux.valeur;
     }
     
     /**
-     * Calcule le prix moyen des items dans le contenant.
+     * Retourne le prix moyen des items dans le contenant.
      *
      * @return le prix moyen, ou 0 si le contenant est vide
      */
     public double getPrixMoyen() {
-        if (items.isEmpty()) {
+        Totaux t = totaux;
+        if (t.nombre == 0) {
             return 0;
         }
-        double total = 0;
-        for (Item item : items) {
-            total += item.getPrix();
-        }
-        return total / items.size();
+        return t.sommePrix / t.nombre;
+    }
+
+    /**
+     * Retourne la somme des quantités des items du contenant.
+     *
+     * @return la quantité totale
+     */
+    public long getQuantiteTotale() {
+        return totaux.quantite;
     }
     
+    /**
+     * Recherche les items dont la dénomination, la description, le cépage ou la région contiennent
+     * tous les mots du texte donné. Les accents et la casse sont ignorés, et chaque mot peut n'être
+     * qu'un début de mot : « semil » trouve « Sémillon ».
+     *
+     * @param texte le texte recherché
+     * @return les items trouvés, ou null si le texte ne contient aucun mot (pas de filtre)
+     */
+    public Set<Item> rechercher(String texte) {
+        return lire(() -> indexTexte.rechercher(texte));
+    }
+
+    /**
+     * Indique si les attributs numériques des items sont rangés en colonnes.
+     *
+     * @return vrai si le contenant est colonnaire
+     */
+    public boolean isColonnaire() {
+        return colonnes != null;
+    }
+
+    /**
+     * Recalcule la valeur totale (somme des prix multipliés par les quantités) en parcourant
+     * tous les items, sans passer par le total tenu à jour de {@link #getValeurTotale()}.
+     *
+     * @return la valeur totale
+     */
+    public double calculerValeurTotale() {
+        return lire(() -> {
+            if (colonnes != null) {
+                return colonnes.valeur();
+            }
+            SommeCompensee valeur = new SommeCompensee();
+            for (Item item : items) {
+                valeur.ajouter(item.getPrix() * item.getQuantite());
+            }
+            return valeur.valeur();
+        });
+    }
+
+    /**
+     * Retourne la somme d'un attribut numérique sur tous les items.
+     *
+     * @param champ {@link Champ#PRIX}, {@link Champ#QUANTITE}, {@link Champ#ANNEE_PRODUCTION} ou {@link Champ#NOTE}
+     * @return la somme
+     */
+    public double somme(Champ champ) {
+        if (!Colonnes.CHAMPS.contains(champ)) {
+            throw new IllegalArgumentException("attribut non numérique : " + champ);
+        }
+        return lire(() -> {
+            if (colonnes != null) {
+                return colonnes.somme(champ);
+            }
+            SommeCompensee somme = new SommeCompensee();
+            for (Item item : items) {
+                somme.ajouter(IndexSecondaires.nombre(item, champ));
+            }
+            return somme.valeur();
+        });
+    }
+
+    /**
+     * Retourne la moyenne d'un attribut numérique sur tous les items.
+     *
+     * @param champ {@link Champ#PRIX}, {@link Champ#QUANTITE}, {@link Champ#ANNEE_PRODUCTION} ou {@link Champ#NOTE}
+     * @return la moyenne, ou 0 si le contenant est vide
+     */
+    public double moyenne(Champ champ) {
+        if (!Colonnes.CHAMPS.contains(champ)) {
+            throw new IllegalArgumentException("attribut non numérique : " + champ);
+        }
+        return lire(() -> items.isEmpty() ? 0 : somme(champ) / items.size());
+    }
+
+    /**
+     * Répartit les items en classes de même largeur selon un attribut numérique.
+     *
+     * @param champ {@link Champ#PRIX}, {@link Champ#QUANTITE}, {@link Champ#ANNEE_PRODUCTION} ou {@link Champ#NOTE}
+     * @param min borne inférieure de la première classe
+     * @param max borne supérieure de la dernière classe, incluse
+     * @param classes le nombre de classes
+     * @return l'effectif de chaque classe ; les items hors de [min, max] ne sont pas comptés
+     */
+    public int[] histogramme(Champ champ, double min, double max, int classes) {
+        if (!Colonnes.CHAMPS.contains(champ)) {
+            throw new IllegalArgumentException("attribut non numérique : " + champ);
+        }
+        if (classes <= 0 || !(max > min)) {
+            throw new IllegalArgumentException("classes invalides : " + classes + " sur [" + min + ", " + max + "]");
+        }
+        int[] effectifs = new int[classes];
+        lire(() -> {
+            if (colonnes != null) {
+                colonnes.histogramme(champ, min, max, effectifs);
+            } else {
+                double facteur = classes / (max - min);
+                for (Item item : items) {
+                    Colonnes.compter(IndexSecondaires.nombre(item, champ), min, max, facteur, effectifs);
+                }
+            }
+            return null;
+        });
+        return effectifs;
+    }
+
     /**
      * Retourne la liste des items présents dans le contenant.
+     * La liste est un instantané non modifiable, qui peut être parcouru pendant que d'autres
+     * threads modifient le contenant ; les ajouts et suppressions passent par
+     * {@link #ajouterItem(Item)} et {@link #supprimerItem(Item)}, qui tiennent les totaux à jour.
      *
      * @return la liste des items
      */
     public List<Item> getItems() {
-        return items;
+        List<Item> copie = instantane;
+        if (copie == null) {
+            copie = lire(() -> {
+                // Reconstruit au plus une fois par modification, quel que soit le nombre de lecteurs
+                List<Item> courant = instantane;
+                if (courant == null) {
+                    courant = Collections.unmodifiableList(new ArrayList<>(items));
+                    instantane = courant;
+                }
+                return courant;
+            });
+        }
+        return copie;
+    }
+
+    /**
+     * Retourne le contenu du contenant sous la forme d'un événement de réinitialisation,
+     * dont les items et le numéro de version sont cohérents entre eux. Un observateur peut
+     * s'en servir pour se resynchroniser, puis ignorer les événements de version inférieure ou égale.
+     *
+     * @return l'état courant du contenant
+     */
+    public ContenantEvent getInstantane() {
+        return lire(() -> {
+            ContenantEvent etat = ContenantEvent.reinitialisation(getItems());
+            etat.setVersion(version);
+            return etat;
+        });
     }
     
     /**
-     * Fournit des suggestions d'accords mets-vins en fonction du type de vins présents.
-     * Pour chaque vin, si la description contient "rouge", suggère un accord pour un steak.
-     * Si elle contient "blanc", suggère un accord pour un poisson.
+     * Fournit des suggestions d'accords mets-vins pour les vins du contenant,
+     * selon les règles de son {@link MoteurAccords}. Les accords sont gardés d'un appel
+     * à l'autre et ne sont recalculés que pour les vins modifiés.
      *
      * @return une liste de suggestions d'accords
      */
     public List<String> getPairingSuggestions() {
-        List<String> suggestions = new ArrayList<>();
-        for (Item item : items) {
-            if (item instanceof Vin) {
-                Vin vin = (Vin) item;
-                if (vin.getDescription().toLowerCase().contains("rouge")) {
-                    suggestions.add("Accord: Steak et vin rouge (" + vin.getDenomination() + ")");
-                } else if (vin.getDescription().toLowerCase().contains("blanc")) {
-                    suggestions.add("Accord: Poisson et vin blanc (" + vin.getDenomination() + ")");
-                }
-            }
+        return accords.suggestions(this::getItems);
+    }
+
+    /**
+     * Retourne le moteur de suggestions d'accords.
+     *
+     * @return le moteur
+     */
+    public MoteurAccords getMoteurAccords() {
+        return accords;
+    }
+
+    /**
+     * Remplace le moteur de suggestions d'accords, par exemple par un moteur chargé
+     * avec {@link MoteurAccords#charger(java.io.File)}.
+     *
+     * @param accords le nouveau moteur
+     */
+    public void setMoteurAccords(MoteurAccords accords) {
+        verrou.writeLock().lock();
+        try {
+            observers.remove(this.accords);
+            this.accords = Objects.requireNonNull(accords);
+            observers.add(0, accords);
+        } finally {
+            verrou.writeLock().unlock();
         }
-        return suggestions;
     }
 }
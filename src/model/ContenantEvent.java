@@ -0,0 +1,161 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Événement décrivant une modification d'un {@link Contenant}, transmis aux {@link ContenantObserver}.
+ *
+ * <p>Les rangs désignent les positions dans {@link Contenant#getItems()}. Une suppression se fait
+ * en temps constant : le dernier item prend la place de l'item supprimé, ce que l'événement
+ * indique par {@link #getRangDeplace()}.</p>
+ */
+public final class ContenantEvent {
+    /**
+     * Nature de la modification.
+     */
+    public enum Type {
+        /** Un ou plusieurs items ont été ajoutés en fin de liste. */
+        AJOUT,
+        /** Un item a été supprimé ; le dernier item a éventuellement pris sa place. */
+        SUPPRESSION,
+        /** Des attributs d'un item ont été modifiés. */
+        MODIFICATION,
+        /** Le contenu a changé dans son ensemble : tout doit être relu. */
+        REINITIALISATION
+    }
+
+    /** Nature de la modification. */
+    private final Type type;
+    /** Items concernés (plusieurs pour un ajout groupé), vide pour une réinitialisation. */
+    private final List<Item> items;
+    /** Rang de l'item concerné (du premier pour un ajout groupé), -1 pour une réinitialisation. */
+    private final int rang;
+    /** Ancien rang de l'item déplacé au rang supprimé, -1 si aucun item n'a été déplacé. */
+    private final int rangDeplace;
+    /** Attributs modifiés. */
+    private final Set<Champ> champs;
+    /** Numéro de la modification dans le contenant. */
+    private long version;
+
+    private ContenantEvent(Type type, List<Item> items, int rang, int rangDeplace, Set<Champ> champs) {
+        this.type = type;
+        this.items = items;
+        this.rang = rang;
+        this.rangDeplace = rangDeplace;
+        this.champs = champs;
+    }
+
+    static ContenantEvent ajout(List<Item> items, int rang) {
+        return new ContenantEvent(Type.AJOUT, Collections.unmodifiableList(items), rang, -1, Collections.emptySet());
+    }
+
+    static ContenantEvent suppression(Item item, int rang, int rangDeplace) {
+        return new ContenantEvent(Type.SUPPRESSION, List.of(item), rang, rangDeplace, Collections.emptySet());
+    }
+
+    static ContenantEvent modification(Item item, int rang, Set<Champ> champs) {
+        return new ContenantEvent(Type.MODIFICATION, List.of(item), rang, -1, Collections.unmodifiableSet(EnumSet.copyOf(champs)));
+    }
+
+    static ContenantEvent reinitialisation(List<Item> items) {
+        return new ContenantEvent(Type.REINITIALISATION, items, -1, -1, Collections.emptySet());
+    }
+
+    /**
+     * Fusionne une suite d'événements en un seul : ajouts consécutifs en un ajout groupé,
+     * modifications d'un même item en une modification de l'ensemble des attributs touchés,
+     * et toute autre combinaison en une réinitialisation.
+     *
+     * @param evenements les événements, dans l'ordre
+     * @param contenu le contenu du contenant après ces événements, transmis par une réinitialisation
+     * @return l'événement fusionné, ou null si la liste est vide
+     */
+    static ContenantEvent fusionner(List<ContenantEvent> evenements, Supplier<List<Item>> contenu) {
+        if (evenements.size() <= 1) {
+            return evenements.isEmpty() ? null : evenements.get(0);
+        }
+        ContenantEvent premier = evenements.get(0);
+        if (premier.type == Type.AJOUT) {
+            List<Item> ajoutes = new ArrayList<>();
+            for (ContenantEvent e : evenements) {
+                if (e.type != Type.AJOUT || e.rang != premier.rang + ajoutes.size()) {
+                    return reinitialisation(contenu.get());
+                }
+                ajoutes.addAll(e.items);
+            }
+            return ajout(ajoutes, premier.rang);
+        }
+        if (premier.type == Type.MODIFICATION) {
+            Set<Champ> champs = EnumSet.noneOf(Champ.class);
+            for (ContenantEvent e : evenements) {
+                if (e.type != Type.MODIFICATION || e.getItem() != premier.getItem()) {
+                    return reinitialisation(contenu.get());
+                }
+                champs.addAll(e.champs);
+            }
+            // Rang final de l'item : celui du dernier événement
+            return modification(premier.getItem(), evenements.get(evenements.size() - 1).rang, champs);
+        }
+        return reinitialisation(contenu.get());
+    }
+
+    /**
+     * Retourne la nature de la modification.
+     * @return la nature de la modification
+     */
+    public Type getType() { return type; }
+
+    /**
+     * Retourne l'item ajouté, supprimé ou modifié (le premier pour un ajout groupé).
+     * @return l'item, ou null pour une réinitialisation
+     */
+    public Item getItem() { return type == Type.REINITIALISATION || items.isEmpty() ? null : items.get(0); }
+
+    /**
+     * Retourne les items concernés : les items ajoutés, dans l'ordre, pour un ajout,
+     * l'unique item concerné pour une suppression ou une modification, et tout le contenu
+     * du contenant pour une réinitialisation.
+     * @return les items
+     */
+    public List<Item> getItems() { return items; }
+
+    /**
+     * Retourne le rang de l'item : rang d'ajout, rang libéré par la suppression ou rang de l'item modifié.
+     * @return le rang, ou -1 pour une réinitialisation
+     */
+    public int getRang() { return rang; }
+
+    /**
+     * Pour une suppression, retourne l'ancien rang (le dernier) de l'item qui a pris la place
+     * de l'item supprimé.
+     * @return l'ancien rang de l'item déplacé, ou -1 si l'item supprimé était le dernier
+     */
+    public int getRangDeplace() { return rangDeplace; }
+
+    /**
+     * Retourne le numéro de la modification dans le contenant. Les numéros croissent dans l'ordre
+     * des modifications ; un événement fusionné porte celui de la dernière modification du lot.
+     * @return le numéro de version
+     */
+    public long getVersion() { return version; }
+
+    void setVersion(long version) { this.version = version; }
+
+    /**
+     * Pour une modification, retourne les attributs modifiés.
+     * @return les attributs modifiés, vide pour les autres types
+     */
+    public Set<Champ> getChamps() { return champs; }
+
+    @Override
+    public String toString() {
+        return type + (type == Type.REINITIALISATION ? "" : items.size() > 1 ? " " + items.size() + " items @" + rang
+                : !items.isEmpty() ? " " + getItem().getDenomination() + " @" + rang : "")
+                + (rangDeplace >= 0 ? " <- " + rangDeplace : "") + (champs.isEmpty() ? "" : " " + champs);
+    }
+}
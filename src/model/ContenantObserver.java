@@ -7,6 +7,8 @@ package model;
 public interface ContenantObserver {
     /**
      * Méthode appelée lors d'une mise à jour du contenant.
+     *
+     * @param event la modification survenue
      */
-    void update();
+    void update(ContenantEvent event);
 }
@@ -0,0 +1,184 @@
+package model;
+
+import java.util.*;
+
+/**
+ * Index secondaires des items d'un {@link Contenant}, utilisés par {@link Requete}.
+ *
+ * <p>Les attributs textuels (région, cépage, position) sont indexés par table de hachage,
+ * sur leur valeur normalisée (sans espaces de bord, en minuscules). Les attributs numériques
+ * (année de production, prix, note) sont indexés par arbre trié, pour les recherches par plage.
+ * Les index sont tenus à jour par le contenant à chaque ajout, suppression ou modification.</p>
+ */
+final class IndexSecondaires {
+    /** Attributs indexés par table de hachage. */
+    static final Set<Champ> CHAMPS_TEXTE = EnumSet.of(Champ.REGION, Champ.CEPAGE, Champ.POSITION);
+    /** Attributs indexés par arbre trié. */
+    static final Set<Champ> CHAMPS_NUMERIQUES = EnumSet.of(Champ.ANNEE_PRODUCTION, Champ.PRIX, Champ.NOTE);
+
+    /** Index par valeur normalisée, pour chaque attribut textuel. */
+    private final Map<Champ, Map<String, Set<Item>>> hachages = new EnumMap<>(Champ.class);
+    /** Index triés, pour chaque attribut numérique. */
+    private final Map<Champ, NavigableMap<Double, Set<Item>>> tries = new EnumMap<>(Champ.class);
+
+    IndexSecondaires() {
+        for (Champ champ : CHAMPS_TEXTE) {
+            hachages.put(champ, new HashMap<>());
+        }
+        for (Champ champ : CHAMPS_NUMERIQUES) {
+            tries.put(champ, new TreeMap<>());
+        }
+    }
+
+    /**
+     * Normalise une valeur textuelle pour l'indexation et la recherche.
+     *
+     * @param valeur la valeur, éventuellement null
+     * @return la valeur normalisée, ou null si elle est absente ou vide
+     */
+    static String normaliser(String valeur) {
+        if (valeur == null) {
+            return null;
+        }
+        String normalisee = valeur.trim().toLowerCase(Locale.ROOT);
+        return normalisee.isEmpty() ? null : normalisee;
+    }
+
+    /**
+     * Retourne la valeur d'un attribut textuel indexé.
+     *
+     * @param item l'item
+     * @param champ l'attribut ({@link #CHAMPS_TEXTE})
+     * @return la valeur, null si l'item n'a pas cet attribut
+     */
+    static String texte(Item item, Champ champ) {
+        switch (champ) {
+            case POSITION: return item.getPosition();
+            case REGION: return item instanceof Vin ? ((Vin) item).getRegion() : null;
+            case CEPAGE: return item instanceof Vin ? ((Vin) item).getCepage() : null;
+            default: throw new IllegalArgumentException("attribut non textuel : " + champ);
+        }
+    }
+
+    /**
+     * Retourne la valeur d'un attribut numérique indexé.
+     *
+     * @param item l'item
+     * @param champ l'attribut ({@link #CHAMPS_NUMERIQUES})
+     * @return la valeur
+     */
+    static double nombre(Item item, Champ champ) {
+        switch (champ) {
+            case ANNEE_PRODUCTION: return item.getAnneeProduction();
+            case PRIX: return item.getPrix();
+            case NOTE: return item.getNote();
+            case QUANTITE: return item.getQuantite();
+            default: throw new IllegalArgumentException("attribut non numérique : " + champ);
+        }
+    }
+
+    /**
+     * Indexe un item sur tous les attributs.
+     *
+     * @param item l'item ajouté au contenant
+     */
+    void ajouter(Item item) {
+        for (Champ champ : CHAMPS_TEXTE) {
+            ajouterTexte(champ, texte(item, champ), item);
+        }
+        for (Champ champ : CHAMPS_NUMERIQUES) {
+            ajouterNombre(champ, nombre(item, champ), item);
+        }
+    }
+
+    /**
+     * Retire un item de tous les index.
+     *
+     * @param item l'item retiré du contenant
+     */
+    void retirer(Item item) {
+        for (Champ champ : CHAMPS_TEXTE) {
+            retirerTexte(champ, texte(item, champ), item);
+        }
+        for (Champ champ : CHAMPS_NUMERIQUES) {
+            retirerNombre(champ, nombre(item, champ), item);
+        }
+    }
+
+    /**
+     * Met à jour l'index d'un attribut après sa modification.
+     *
+     * @param item l'item modifié
+     * @param champ l'attribut modifié
+     * @param ancienneValeur la valeur avant modification
+     */
+    void modifier(Item item, Champ champ, Object ancienneValeur) {
+        if (CHAMPS_TEXTE.contains(champ)) {
+            retirerTexte(champ, (String) ancienneValeur, item);
+            ajouterTexte(champ, texte(item, champ), item);
+        } else if (CHAMPS_NUMERIQUES.contains(champ)) {
+            retirerNombre(champ, ((Number) ancienneValeur).doubleValue(), item);
+            ajouterNombre(champ, nombre(item, champ), item);
+        }
+    }
+
+    /**
+     * Retourne les items dont un attribut textuel a la valeur donnée (après normalisation).
+     *
+     * @param champ l'attribut ({@link #CHAMPS_TEXTE})
+     * @param valeur la valeur recherchée
+     * @return les items, ensemble vide s'il n'y en a aucun ; ne pas modifier
+     */
+    Set<Item> egaux(Champ champ, String valeur) {
+        Set<Item> items = hachages.get(champ).get(normaliser(valeur));
+        return items != null ? items : Collections.emptySet();
+    }
+
+    /**
+     * Retourne, par valeur, les items dont un attribut numérique est dans une plage.
+     *
+     * @param champ l'attribut ({@link #CHAMPS_NUMERIQUES})
+     * @param min la borne inférieure
+     * @param minInclus vrai si la borne inférieure est incluse
+     * @param max la borne supérieure
+     * @param maxInclus vrai si la borne supérieure est incluse
+     * @return la vue de l'index sur la plage ; ne pas modifier
+     */
+    NavigableMap<Double, Set<Item>> plage(Champ champ, double min, boolean minInclus, double max, boolean maxInclus) {
+        if (min > max || (min == max && !(minInclus && maxInclus))) {
+            return Collections.emptyNavigableMap();
+        }
+        return tries.get(champ).subMap(min, minInclus, max, maxInclus);
+    }
+
+    private void ajouterTexte(Champ champ, String valeur, Item item) {
+        String cle = normaliser(valeur);
+        if (cle != null) {
+            hachages.get(champ).computeIfAbsent(cle, k -> new HashSet<>()).add(item);
+        }
+    }
+
+    private void retirerTexte(Champ champ, String valeur, Item item) {
+        String cle = normaliser(valeur);
+        if (cle == null) {
+            return;
+        }
+        Map<String, Set<Item>> index = hachages.get(champ);
+        Set<Item> items = index.get(cle);
+        if (items != null && items.remove(item) && items.isEmpty()) {
+            index.remove(cle);
+        }
+    }
+
+    private void ajouterNombre(Champ champ, double valeur, Item item) {
+        tries.get(champ).computeIfAbsent(valeur, k -> new HashSet<>()).add(item);
+    }
+
+    private void retirerNombre(Champ champ, double valeur, Item item) {
+        NavigableMap<Double, Set<Item>> index = tries.get(champ);
+        Set<Item> items = index.get(valeur);
+        if (items != null && items.remove(item) && items.isEmpty()) {
+            index.remove(valeur);
+        }
+    }
+}
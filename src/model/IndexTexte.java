@@ -0,0 +1,214 @@
+package model;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * Index inversé plein texte des items d'un {@link Contenant}, utilisé par {@link Contenant#rechercher(String)}.
+ *
+ * <p>La dénomination, la description, le cépage et la région sont découpés en mots, sans accents
+ * ni majuscules : « Sémillon » et « semillon » donnent le même mot. Chaque mot renvoie aux items
+ * qui le contiennent ; les mots sont triés, ce qui permet de retrouver tous ceux qui commencent
+ * par un préfixe. L'index est tenu à jour par les événements du contenant, dont il est observateur :
+ * il n'est donc modifié que sous le verrou d'écriture du contenant, et se lit sous son verrou de lecture.</p>
+ */
+final class IndexTexte implements ContenantObserver {
+    /** Attributs indexés. */
+    static final Set<Champ> CHAMPS = EnumSet.of(Champ.DENOMINATION, Champ.DESCRIPTION, Champ.CEPAGE, Champ.REGION);
+
+    /** Items de chaque mot, par ordre alphabétique des mots. */
+    private final TreeMap<String, Set<Item>> parMot = new TreeMap<>();
+    /** Mots indexés pour chaque item, pour le désindexer sans connaître ses anciennes valeurs. */
+    private final Map<Item, String[]> motsParItem = new IdentityHashMap<>();
+
+    /**
+     * Découpe un texte en mots normalisés : lettres et chiffres, sans accents, en minuscules.
+     *
+     * @param texte le texte, éventuellement null
+     * @param mots reçoit les mots
+     */
+    static void decouper(String texte, Collection<String> mots) {
+        if (texte == null || texte.isEmpty()) {
+            return;
+        }
+        // La décomposition sépare les accents des lettres, qui sont ensuite ignorés
+        String decompose = Normalizer.normalize(texte, Normalizer.Form.NFD);
+        StringBuilder mot = new StringBuilder();
+        for (int i = 0; i < decompose.length(); i++) {
+            char c = decompose.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                switch (c) {
+                    case 'œ': case 'Œ': mot.append("oe"); break;
+                    case 'æ': case 'Æ': mot.append("ae"); break;
+                    case 'ß': mot.append("ss"); break;
+                    default: mot.append(Character.toLowerCase(c)); break;
+                }
+            } else if (mot.length() > 0) {
+                mots.add(mot.toString());
+                mot.setLength(0);
+            }
+        }
+        if (mot.length() > 0) {
+            mots.add(mot.toString());
+        }
+    }
+
+    /**
+     * Indexe un item.
+     *
+     * @param item l'item
+     */
+    private void ajouter(Item item) {
+        Set<String> mots = new HashSet<>();
+        decouper(item.getDenomination(), mots);
+        decouper(item.getDescription(), mots);
+        if (item instanceof Vin) {
+            decouper(((Vin) item).getCepage(), mots);
+            decouper(((Vin) item).getRegion(), mots);
+        }
+        String[] tableau = mots.toArray(new String[0]);
+        motsParItem.put(item, tableau);
+        for (String mot : tableau) {
+            parMot.computeIfAbsent(mot, m -> new HashSet<>()).add(item);
+        }
+    }
+
+    /**
+     * Retire un item de l'index.
+     *
+     * @param item l'item
+     */
+    private void retirer(Item item) {
+        String[] mots = motsParItem.remove(item);
+        if (mots == null) {
+            return;
+        }
+        for (String mot : mots) {
+            Set<Item> items = parMot.get(mot);
+            items.remove(item);
+            if (items.isEmpty()) {
+                parMot.remove(mot);
+            }
+        }
+    }
+
+    /**
+     * Tient l'index à jour après une modification du contenant.
+     *
+     * @param event la modification survenue
+     */
+    @Override
+    public void update(ContenantEvent event) {
+        switch (event.getType()) {
+            case AJOUT:
+                for (Item item : event.getItems()) {
+                    ajouter(item);
+                }
+                break;
+            case SUPPRESSION:
+                retirer(event.getItem());
+                break;
+            case MODIFICATION:
+                if (!Collections.disjoint(event.getChamps(), CHAMPS)) {
+                    retirer(event.getItem());
+                    ajouter(event.getItem());
+                }
+                break;
+            default:
+                parMot.clear();
+                motsParItem.clear();
+                for (Item item : event.getItems()) {
+                    ajouter(item);
+                }
+                break;
+        }
+    }
+
+    /**
+     * Recherche les items contenant tous les mots d'une requête. Chaque mot de la requête
+     * est un préfixe : « cab » trouve « cabernet ».
+     *
+     * @param requete le texte recherché
+     * @return les items trouvés, ou null si la requête ne contient aucun mot
+     */
+    Set<Item> rechercher(String requete) {
+        Set<String> termes = new LinkedHashSet<>();
+        decouper(requete, termes);
+        if (termes.isEmpty()) {
+            return null;
+        }
+        List<List<Set<Item>>> candidats = new ArrayList<>(termes.size());
+        int[] tailles = new int[termes.size()];
+        int i = 0;
+        for (String terme : termes) {
+            // Tous les mots qui commencent par le terme
+            List<Set<Item>> ensembles = new ArrayList<>(parMot.subMap(terme, true, terme + Character.MAX_VALUE, false).values());
+            if (ensembles.isEmpty()) {
+                return Collections.emptySet();
+            }
+            for (Set<Item> ensemble : ensembles) {
+                tailles[i] += ensemble.size();
+            }
+            candidats.add(ensembles);
+            i++;
+        }
+        // Le terme le plus rare fournit les candidats, vérifiés ensuite contre les autres
+        int plusRare = 0;
+        for (int t = 1; t < tailles.length; t++) {
+            if (tailles[t] < tailles[plusRare]) {
+                plusRare = t;
+            }
+        }
+        List<List<Set<Item>>> autres = new ArrayList<>(candidats.size() - 1);
+        for (int t = 0; t < candidats.size(); t++) {
+            if (t == plusRare) {
+                continue;
+            }
+            List<Set<Item>> ensembles = candidats.get(t);
+            if (ensembles.size() > 8) {
+                // Préfixe court couvrant beaucoup de mots : une seule recherche par candidat
+                Set<Item> union = new HashSet<>(tailles[t] * 4 / 3 + 1);
+                for (Set<Item> ensemble : ensembles) {
+                    union.addAll(ensemble);
+                }
+                ensembles = List.of(union);
+            }
+            autres.add(ensembles);
+        }
+        Set<Item> resultat = new HashSet<>(tailles[plusRare] * 4 / 3 + 1);
+        for (Set<Item> ensemble : candidats.get(plusRare)) {
+            for (Item item : ensemble) {
+                if (contenuDansTous(item, autres)) {
+                    resultat.add(item);
+                }
+            }
+        }
+        return resultat;
+    }
+
+    /**
+     * Indique si un item figure, pour chaque terme, dans l'un des ensembles de ce terme.
+     *
+     * @param item l'item
+     * @param termes pour chaque terme, les ensembles d'items des mots qui commencent par ce terme
+     * @return vrai si tous les termes sont présents
+     */
+    private static boolean contenuDansTous(Item item, List<List<Set<Item>>> termes) {
+        for (List<Set<Item>> ensembles : termes) {
+            boolean present = false;
+            for (Set<Item> ensemble : ensembles) {
+                if (ensemble.contains(item)) {
+                    present = true;
+                    break;
+                }
+            }
+            if (!present) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
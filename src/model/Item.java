@@ -2,6 +2,7 @@ package model;
 
 import java.io.File;
 import java.util.Date;
+import java.util.function.Supplier;
 
 /**
  * Classe abstraite représentant un item dans le système de gestion des denrées.
@@ -10,9 +11,16 @@ import java.util.Date;
  * <p>Les attributs incluent : la dénomination, la description, la quantité, l'année de production,
  * la date d'ajout, le prix, ainsi que des attributs supplémentaires (DLC, image, position, phase de vieillissement, note).</p>
  *
+ * <p>Les textes volumineux (description, DLC, phase de vieillissement) peuvent être différés
+ * avec {@link #differerTextes(SourceTexte, long)} : ils ne sont alors pas gardés en mémoire
+ * mais lus dans la source à chaque appel de leur accesseur, jusqu'à ce qu'un mutateur les remplace.</p>
+ *
+ * <p>Un item peut être {@linkplain #copie() copié} pour être enregistré ou transmis à un autre thread
+ * sans être modifié entre-temps ; l'item et ses copies partagent la même {@linkplain #getIdentite() identité}.</p>
+ *
  * @author 
  */
-public abstract class Item implements Dessinable {
+public abstract class Item implements Dessinable, Cloneable {
     /** Le nom de l'item. */
     private String denomination;
     /** La description de l'item. */
@@ -38,6 +46,24 @@ public abstract class Item implements Dessinable {
     /** La note ou le score de l'item. */
     private double note;
 
+    /** Identité de l'item, partagée par ses copies. */
+    private final Object identite = new Object();
+
+    /** Contenant qui tient cet item dans ses totaux et index, ou null. */
+    private volatile Contenant contenant;
+    /** Rang de l'item dans la liste de son contenant. */
+    private int rang = -1;
+
+    /** Source des textes différés, ou null. */
+    private SourceTexte source;
+    /** Référence de l'item dans la source des textes différés. */
+    private long reference;
+    /** Textes encore lus dans la source (bits {@link #DESCRIPTION_DIFFEREE}, etc.). */
+    private byte differes;
+    private static final byte DESCRIPTION_DIFFEREE = 1;
+    private static final byte DLC_DIFFEREE = 2;
+    private static final byte PHASE_DIFFEREE = 4;
+
     /**
      * Constructeur de base pour créer un item.
      *
@@ -63,46 +89,70 @@ public abstract class Item implements Dessinable {
      * @return la dénomination
      */
     public String getDenomination() { return denomination; }
-    public void setDenomination(String denomination) { this.denomination = denomination; }
+    public void setDenomination(String denomination) {
+        modifier(Champ.DENOMINATION, () -> this.denomination, () -> this.denomination = denomination);
+    }
     
     /**
      * Retourne la description de l'item.
      * @return la description
      */
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        return (differes & DESCRIPTION_DIFFEREE) != 0 ? source.lire(reference, Champ.DESCRIPTION) : description;
+    }
+    public void setDescription(String description) {
+        modifier(Champ.DESCRIPTION, this::getDescription, () -> {
+            this.description = description;
+            differes &= ~DESCRIPTION_DIFFEREE;
+        });
+    }
     
     /**
      * Retourne la quantité disponible.
      * @return la quantité
      */
     public int getQuantite() { return quantite; }
-    public void setQuantite(int quantite) { this.quantite = quantite; }
+    public void setQuantite(int quantite) {
+        modifier(Champ.QUANTITE, () -> this.quantite, () -> this.quantite = quantite);
+    }
     
     /**
      * Retourne l'année de production.
      * @return l'année de production
      */
     public int getAnneeProduction() { return anneeProduction; }
-    public void setAnneeProduction(int anneeProduction) { this.anneeProduction = anneeProduction; }
+    public void setAnneeProduction(int anneeProduction) {
+        modifier(Champ.ANNEE_PRODUCTION, () -> this.anneeProduction, () -> this.anneeProduction = anneeProduction);
+    }
     
     /**
      * Retourne la date d'ajout de l'item.
      * @return la date d'ajout
      */
     public Date getDateAjout() { return dateAjout; }
-    public void setDateAjout(Date dateAjout) { this.dateAjout = dateAjout; }
+    public void setDateAjout(Date dateAjout) {
+        modifier(Champ.DATE_AJOUT, () -> this.dateAjout, () -> this.dateAjout = dateAjout);
+    }
     
     /**
      * Retourne le prix de l'item.
      * @return le prix
      */
     public double getPrix() { return prix; }
-    public void setPrix(double prix) { this.prix = prix; }
+    public void setPrix(double prix) {
+        modifier(Champ.PRIX, () -> this.prix, () -> this.prix = prix);
+    }
     
     // Getters et setters pour les nouveaux attributs
-    public String getDlc() { return dlc; }
-    public void setDlc(String dlc) { this.dlc = dlc; }
+    public String getDlc() {
+        return (differes & DLC_DIFFEREE) != 0 ? source.lire(reference, Champ.DLC) : dlc;
+    }
+    public void setDlc(String dlc) {
+        modifier(Champ.DLC, this::getDlc, () -> {
+            this.dlc = dlc;
+            differes &= ~DLC_DIFFEREE;
+        });
+    }
     
     /**
      * Retourne le chemin de l'image associé à cet item.
@@ -116,22 +166,154 @@ public abstract class Item implements Dessinable {
             return image;
         return "images" + File.separator + getClass().getSimpleName() + ".png";
     }
-    public void setImage(String image) { this.image = image; }
+    public void setImage(String image) {
+        modifier(Champ.IMAGE, () -> this.image, () -> this.image = image);
+    }
     
     public String getPosition() { return position; }
-    public void setPosition(String position) { this.position = position; }
+    public void setPosition(String position) {
+        modifier(Champ.POSITION, () -> this.position, () -> this.position = position);
+    }
     
-    public String getPhaseVieillissement() { return phaseVieillissement; }
-    public void setPhaseVieillissement(String phaseVieillissement) { this.phaseVieillissement = phaseVieillissement; }
+    public String getPhaseVieillissement() {
+        return (differes & PHASE_DIFFEREE) != 0 ? source.lire(reference, Champ.PHASE_VIEILLISSEMENT) : phaseVieillissement;
+    }
+    public void setPhaseVieillissement(String phaseVieillissement) {
+        modifier(Champ.PHASE_VIEILLISSEMENT, this::getPhaseVieillissement, () -> {
+            this.phaseVieillissement = phaseVieillissement;
+            differes &= ~PHASE_DIFFEREE;
+        });
+    }
     
     public double getNote() { return note; }
-    public void setNote(double note) { this.note = note; }
+    public void setNote(double note) {
+        modifier(Champ.NOTE, () -> this.note, () -> this.note = note);
+    }
+
+    /**
+     * Retourne l'identité de l'item : un objet propre à l'item, partagé par toutes ses copies
+     * (voir {@link #copie()}), qui permet de reconnaître un même item sous plusieurs états,
+     * y compris après un renommage ou lorsque d'autres items portent la même dénomination.
+     *
+     * @return l'identité de l'item, à comparer par référence
+     */
+    public Object getIdentite() { return identite; }
+
+    /**
+     * Retourne une copie de l'item, détachée de tout contenant et lue de façon cohérente :
+     * si l'item est dans un contenant, la copie est faite sous son verrou de lecture et ne
+     * mélange donc jamais l'état d'avant et l'état d'après une modification. Les textes
+     * différés le restent dans la copie. La copie a la même {@linkplain #getIdentite() identité}.
+     *
+     * @return la copie
+     */
+    public Item copie() {
+        while (true) {
+            Contenant courant = contenant;
+            if (courant != null) {
+                Item copie = courant.lire(() -> contenant == courant ? cloner() : null);
+                if (copie != null) {
+                    return copie;
+                }
+            } else {
+                synchronized (this) {
+                    if (contenant == null) {
+                        return cloner();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Copie superficielle de l'item, détachée de son contenant ; la date d'ajout, modifiable, est copiée.
+     *
+     * @return la copie
+     */
+    private Item cloner() {
+        try {
+            Item copie = (Item) super.clone();
+            copie.contenant = null;
+            copie.rang = -1;
+            if (dateAjout != null) {
+                copie.dateAjout = (Date) dateAjout.clone();
+            }
+            return copie;
+        } catch (CloneNotSupportedException e) {
+            // Item implémente Cloneable
+            throw new AssertionError(e);
+        }
+    }
+
+    /**
+     * Retourne le contenant auquel l'item appartient.
+     * @return le contenant, ou null
+     */
+    Contenant getContenant() { return contenant; }
+
+    /**
+     * Rattache l'item à un contenant, prévenu ensuite des modifications de ses attributs.
+     * @param contenant le contenant, ou null pour détacher l'item
+     */
+    void setContenant(Contenant contenant) { this.contenant = contenant; }
+
+    /**
+     * Modifie un attribut. Si l'item est dans un contenant, l'ancienne valeur est lue et la nouvelle
+     * écrite sous le verrou d'écriture du contenant, qui tient ensuite ses index et totaux à jour :
+     * deux modifications concurrentes d'un même item ne s'entrelacent pas, et les recherches ne voient
+     * jamais un attribut en désaccord avec les index. Hors de tout contenant, l'écriture se fait sous
+     * le moniteur de l'item, que le contenant prend aussi pour l'ajouter ou le retirer.
+     *
+     * @param champ l'attribut modifié
+     * @param ancienneValeur lit la valeur de l'attribut avant la modification
+     * @param ecriture écrit la nouvelle valeur
+     */
+    protected void modifier(Champ champ, Supplier<Object> ancienneValeur, Runnable ecriture) {
+        while (true) {
+            Contenant courant = contenant;
+            if (courant != null) {
+                if (courant.modifier(this, champ, ancienneValeur, ecriture)) {
+                    return;
+                }
+            } else {
+                synchronized (this) {
+                    if (contenant == null) {
+                        ecriture.run();
+                        return;
+                    }
+                }
+            }
+            // L'item a changé de contenant entre-temps : nouvel essai
+        }
+    }
+
+    int getRang() { return rang; }
+    void setRang(int rang) { this.rang = rang; }
+
+    /**
+     * Diffère la description, la DLC et la phase de vieillissement : leurs valeurs en mémoire
+     * sont libérées et seront lues dans la source à la demande.
+     *
+     * @param source la source des textes
+     * @param reference la référence de l'item dans la source
+     */
+    public void differerTextes(SourceTexte source, long reference) {
+        this.source = source;
+        this.reference = reference;
+        this.description = null;
+        this.dlc = null;
+        this.phaseVieillissement = null;
+        this.differes = DESCRIPTION_DIFFEREE | DLC_DIFFEREE | PHASE_DIFFEREE;
+    }
     
     /**
      * Affiche les informations de base de l'item dans la console.
      */
     public void afficher() {
         System.out.println("Dénomination : " + denomination);
+        String description = getDescription();
+        String dlc = getDlc();
+        String phaseVieillissement = getPhaseVieillissement();
         System.out.println("Description : " + description);
         System.out.println("Quantité : " + quantite);
         System.out.println("Année de production : " + anneeProduction);
@@ -0,0 +1,271 @@
+package model;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Moteur de suggestions d'accords mets-vins, à partir d'une table de règles.
+ *
+ * <p>Une règle associe un mot-clé recherché dans la description, le cépage ou la région d'un vin
+ * à un accord. Les mots-clés de chaque attribut sont compilés en un seul automate
+ * ({@link AutomateMotsCles}) : un texte est parcouru une seule fois, quel que soit le nombre de règles.</p>
+ *
+ * <p>Enregistré comme observateur d'un {@link Contenant}, le moteur garde les accords de chaque item
+ * et ne les recalcule que si sa dénomination, sa description, son cépage ou sa région change.
+ * La liste complète des suggestions est elle aussi gardée jusqu'à la modification suivante.</p>
+ */
+public class MoteurAccords implements ContenantObserver {
+    /** Attributs dont dépendent les accords d'un item. */
+    private static final Set<Champ> CHAMPS_SUIVIS =
+            EnumSet.of(Champ.DENOMINATION, Champ.DESCRIPTION, Champ.CEPAGE, Champ.REGION);
+
+    /**
+     * Règle d'accord : un mot-clé recherché dans un attribut, sans tenir compte de la casse.
+     */
+    public static final class Regle {
+        private final Champ champ;
+        private final String motCle;
+        private final String accord;
+
+        /**
+         * Crée une règle.
+         *
+         * @param champ l'attribut examiné : {@link Champ#DESCRIPTION}, {@link Champ#CEPAGE} ou {@link Champ#REGION}
+         * @param motCle le mot-clé recherché
+         * @param accord l'accord suggéré, par exemple "Steak et vin rouge"
+         */
+        public Regle(Champ champ, String motCle, String accord) {
+            if (champ != Champ.DESCRIPTION && champ != Champ.CEPAGE && champ != Champ.REGION) {
+                throw new IllegalArgumentException("attribut non pris en charge : " + champ);
+            }
+            if (motCle == null || motCle.isEmpty()) {
+                throw new IllegalArgumentException("mot-clé vide");
+            }
+            this.champ = champ;
+            this.motCle = motCle;
+            this.accord = accord;
+        }
+
+        public Champ getChamp() { return champ; }
+        public String getMotCle() { return motCle; }
+        public String getAccord() { return accord; }
+    }
+
+    /** Règles, dans l'ordre de la table. */
+    private final List<Regle> regles;
+    /** Automate des mots-clés de chaque attribut. */
+    private final Map<Champ, AutomateMotsCles> automates = new EnumMap<>(Champ.class);
+    /** Pour chaque attribut, le rang dans {@link #regles} de chaque mot-clé de son automate. */
+    private final Map<Champ, int[]> rangsRegles = new EnumMap<>(Champ.class);
+
+    /** Accords de chaque item déjà calculés. */
+    private final Map<Item, List<String>> parItem = new IdentityHashMap<>();
+    /** Dernière liste complète des suggestions, ou null si elle est à reconstruire. */
+    private List<String> suggestions;
+    /** Nombre de modifications reçues, pour ne pas garder une liste construite pendant une modification. */
+    private long generation;
+
+    /**
+     * Crée un moteur à partir de règles.
+     *
+     * @param regles les règles ; les accords d'un vin suivent leur ordre
+     */
+    public MoteurAccords(List<Regle> regles) {
+        this.regles = List.copyOf(regles);
+        Map<Champ, List<String>> motsCles = new EnumMap<>(Champ.class);
+        Map<Champ, List<Integer>> rangs = new EnumMap<>(Champ.class);
+        for (int i = 0; i < this.regles.size(); i++) {
+            Regle regle = this.regles.get(i);
+            motsCles.computeIfAbsent(regle.champ, c -> new ArrayList<>()).add(regle.motCle);
+            rangs.computeIfAbsent(regle.champ, c -> new ArrayList<>()).add(i);
+        }
+        for (Map.Entry<Champ, List<String>> e : motsCles.entrySet()) {
+            automates.put(e.getKey(), new AutomateMotsCles(e.getValue()));
+            rangsRegles.put(e.getKey(), rangs.get(e.getKey()).stream().mapToInt(Integer::intValue).toArray());
+        }
+    }
+
+    /**
+     * Crée un moteur avec les règles historiques : steak pour un vin rouge, poisson pour un vin blanc.
+     *
+     * @return le moteur
+     */
+    public static MoteurAccords parDefaut() {
+        return new MoteurAccords(List.of(
+                new Regle(Champ.DESCRIPTION, "rouge", "Steak et vin rouge"),
+                new Regle(Champ.DESCRIPTION, "blanc", "Poisson et vin blanc")));
+    }
+
+    /**
+     * Charge une table de règles. Chaque ligne a la forme {@code attribut;mot-clé;accord}, où l'attribut
+     * vaut {@code description}, {@code cepage} ou {@code region} ; les lignes vides et celles
+     * commençant par {@code #} sont ignorées.
+     *
+     * @param fichier le fichier des règles, en UTF-8
+     * @return le moteur
+     * @throws IOException si le fichier ne peut pas être lu ou contient une ligne invalide
+     */
+    public static MoteurAccords charger(File fichier) throws IOException {
+        List<Regle> regles = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(fichier.toPath(), StandardCharsets.UTF_8)) {
+            String ligne;
+            int numero = 0;
+            while ((ligne = reader.readLine()) != null) {
+                numero++;
+                ligne = ligne.trim();
+                if (ligne.isEmpty() || ligne.startsWith("#")) {
+                    continue;
+                }
+                String[] parties = ligne.split(";", 3);
+                try {
+                    if (parties.length != 3) {
+                        throw new IllegalArgumentException("trois colonnes attendues");
+                    }
+                    Champ champ = Champ.valueOf(parties[0].trim().toUpperCase(Locale.ROOT));
+                    regles.add(new Regle(champ, parties[1].trim(), parties[2].trim()));
+                } catch (IllegalArgumentException e) {
+                    throw new IOException(fichier + ", ligne " + numero + " : " + e.getMessage(), e);
+                }
+            }
+        }
+        return new MoteurAccords(regles);
+    }
+
+    /**
+     * Retourne les règles du moteur.
+     *
+     * @return les règles, dans l'ordre de la table
+     */
+    public List<Regle> getRegles() {
+        return regles;
+    }
+
+    /**
+     * Calcule les accords d'un item, sans passer par le cache.
+     * Seuls les vins reçoivent des suggestions.
+     *
+     * @param item l'item
+     * @return les suggestions, dans l'ordre des règles et sans doublon
+     */
+    public List<String> calculer(Item item) {
+        if (!(item instanceof Vin)) {
+            return Collections.emptyList();
+        }
+        Vin vin = (Vin) item;
+        BitSet trouvees = new BitSet(regles.size());
+        rechercher(Champ.DESCRIPTION, vin.getDescription(), trouvees);
+        rechercher(Champ.CEPAGE, vin.getCepage(), trouvees);
+        rechercher(Champ.REGION, vin.getRegion(), trouvees);
+        if (trouvees.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> accords = new ArrayList<>(trouvees.cardinality());
+        for (int i = trouvees.nextSetBit(0); i >= 0; i = trouvees.nextSetBit(i + 1)) {
+            String suggestion = "Accord: " + regles.get(i).accord + " (" + vin.getDenomination() + ")";
+            if (!accords.contains(suggestion)) {
+                accords.add(suggestion);
+            }
+        }
+        return accords;
+    }
+
+    /**
+     * Recherche les mots-clés d'un attribut dans sa valeur.
+     *
+     * @param champ l'attribut
+     * @param texte sa valeur
+     * @param trouvees reçoit le rang des règles satisfaites
+     */
+    private void rechercher(Champ champ, String texte, BitSet trouvees) {
+        AutomateMotsCles automate = automates.get(champ);
+        if (automate == null || texte == null) {
+            return;
+        }
+        BitSet motsCles = new BitSet();
+        automate.rechercher(texte, motsCles);
+        int[] rangs = rangsRegles.get(champ);
+        for (int i = motsCles.nextSetBit(0); i >= 0; i = motsCles.nextSetBit(i + 1)) {
+            trouvees.set(rangs[i]);
+        }
+    }
+
+    /**
+     * Retourne les accords d'un item, calculés au premier appel puis gardés jusqu'à une modification.
+     *
+     * @param item l'item
+     * @return les suggestions
+     */
+    public synchronized List<String> accords(Item item) {
+        List<String> accords = parItem.get(item);
+        if (accords == null) {
+            accords = calculer(item);
+            // Un item déjà retiré du contenant ne serait jamais invalidé : il n'est pas gardé
+            if (item.getContenant() != null) {
+                parItem.put(item, accords);
+            }
+        }
+        return accords;
+    }
+
+    /**
+     * Retourne les suggestions de tous les items d'un contenant.
+     *
+     * @param contenu fournit les items du contenant
+     * @return les suggestions, dans l'ordre des items
+     */
+    List<String> suggestions(Supplier<List<Item>> contenu) {
+        long debut;
+        synchronized (this) {
+            if (suggestions != null) {
+                return suggestions;
+            }
+            debut = generation;
+        }
+        // Les items sont obtenus hors du verrou du moteur, que les notifications prennent
+        // alors qu'elles détiennent déjà celui du contenant
+        List<String> liste = new ArrayList<>();
+        for (Item item : contenu.get()) {
+            liste.addAll(accords(item));
+        }
+        liste = Collections.unmodifiableList(liste);
+        synchronized (this) {
+            if (generation == debut) {
+                suggestions = liste;
+            }
+        }
+        return liste;
+    }
+
+    /**
+     * Invalide les accords des items concernés par une modification du contenant.
+     *
+     * @param event la modification survenue
+     */
+    @Override
+    public synchronized void update(ContenantEvent event) {
+        switch (event.getType()) {
+            case AJOUT:
+                break;
+            case SUPPRESSION:
+                parItem.remove(event.getItem());
+                break;
+            case MODIFICATION:
+                if (Collections.disjoint(event.getChamps(), CHAMPS_SUIVIS)) {
+                    // Ni les accords ni l'ordre des items ne changent
+                    return;
+                }
+                parItem.remove(event.getItem());
+                break;
+            default:
+                parItem.clear();
+                break;
+        }
+        generation++;
+        suggestions = null;
+    }
+}
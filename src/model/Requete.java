@@ -0,0 +1,338 @@
+package model;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Requête sur les items d'un {@link Contenant}, obtenue par {@link Contenant#requete()}.
+ *
+ * <p>Les critères se combinent (ET logique) ; par exemple, les bordeaux de 2010 à 2016
+ * à moins de 200, du mieux au moins bien noté :</p>
+ * <pre>
+ * List&lt;Item&gt; vins = cave.requete()
+ *         .region("Bordeaux")
+ *         .annee(2010, 2016)
+ *         .prixMax(200)
+ *         .trierPar(Champ.NOTE, false)
+ *         .executer();
+ * </pre>
+ *
+ * <p>À l'exécution, le critère le plus sélectif est choisi d'après la taille de son index
+ * ({@link IndexSecondaires}) ; seuls ses items sont parcourus et testés sur les autres critères.
+ * Les comparaisons textuelles ignorent la casse et les espaces de bord.</p>
+ */
+public final class Requete {
+    /**
+     * Critère de la requête.
+     */
+    private abstract static class Critere {
+        /**
+         * Compte les items candidats de ce critère, en s'arrêtant au-delà d'une limite.
+         *
+         * @param limite le nombre au-delà duquel le comptage peut s'arrêter
+         * @return le nombre de candidats, ou une valeur supérieure à la limite
+         */
+        abstract int estimer(int limite);
+
+        /**
+         * Parcourt les items candidats de ce critère.
+         *
+         * @param action l'action appliquée à chaque candidat
+         */
+        abstract void parcourir(Consumer<Item> action);
+
+        /**
+         * Indique si un item satisfait ce critère.
+         *
+         * @param item l'item
+         * @return vrai si l'item satisfait le critère
+         */
+        abstract boolean accepte(Item item);
+
+        /**
+         * Retourne le coût relatif de l'estimation : 0 pour un index par valeur,
+         * 1 pour un index par plage, 2 sans index.
+         *
+         * @return le coût de l'estimation
+         */
+        abstract int cout();
+    }
+
+    /** Contenant interrogé. */
+    private final Contenant contenant;
+    /** Index du contenant. */
+    private final IndexSecondaires index;
+    /** Critères, combinés par ET logique. */
+    private final List<Critere> criteres = new ArrayList<>();
+    /** Ordre du résultat, ou null pour l'ordre de parcours. */
+    private Comparator<Item> ordre;
+
+    Requete(Contenant contenant, IndexSecondaires index) {
+        this.contenant = contenant;
+        this.index = index;
+    }
+
+    /**
+     * Restreint aux vins d'une région.
+     *
+     * @param region la région
+     * @return cette requête
+     */
+    public Requete region(String region) {
+        return egal(Champ.REGION, region);
+    }
+
+    /**
+     * Restreint aux vins d'un cépage.
+     *
+     * @param cepage le cépage
+     * @return cette requête
+     */
+    public Requete cepage(String cepage) {
+        return egal(Champ.CEPAGE, cepage);
+    }
+
+    /**
+     * Restreint aux items d'une position.
+     *
+     * @param position la position
+     * @return cette requête
+     */
+    public Requete position(String position) {
+        return egal(Champ.POSITION, position);
+    }
+
+    /**
+     * Restreint aux items dont l'année de production est dans une plage.
+     *
+     * @param min la première année, incluse
+     * @param max la dernière année, incluse
+     * @return cette requête
+     */
+    public Requete annee(int min, int max) {
+        return entre(Champ.ANNEE_PRODUCTION, min, true, max, true);
+    }
+
+    /**
+     * Restreint aux items dont le prix est dans une plage.
+     *
+     * @param min le prix minimal, inclus
+     * @param max le prix maximal, inclus
+     * @return cette requête
+     */
+    public Requete prix(double min, double max) {
+        return entre(Champ.PRIX, min, true, max, true);
+    }
+
+    /**
+     * Restreint aux items dont le prix est strictement inférieur à une valeur.
+     *
+     * @param max le prix plafond, exclu
+     * @return cette requête
+     */
+    public Requete prixMax(double max) {
+        return entre(Champ.PRIX, Double.NEGATIVE_INFINITY, true, max, false);
+    }
+
+    /**
+     * Restreint aux items dont la note est au moins égale à une valeur.
+     *
+     * @param min la note minimale, incluse
+     * @return cette requête
+     */
+    public Requete noteMin(double min) {
+        return entre(Champ.NOTE, min, true, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Restreint aux items dont un attribut textuel indexé (région, cépage, position) a une valeur donnée.
+     *
+     * @param champ l'attribut
+     * @param valeur la valeur recherchée
+     * @return cette requête
+     * @throws IllegalArgumentException si l'attribut n'est pas indexé par valeur
+     */
+    public Requete egal(Champ champ, String valeur) {
+        if (!IndexSecondaires.CHAMPS_TEXTE.contains(champ)) {
+            throw new IllegalArgumentException("attribut non indexé par valeur : " + champ);
+        }
+        criteres.add(new Critere() {
+            /** Items ayant la valeur recherchée, lus dans l'index à la première utilisation. */
+            private Set<Item> items;
+            @Override
+            int cout() {
+                return 0;
+            }
+
+            @Override
+            int estimer(int limite) {
+                items = index.egaux(champ, valeur);
+                return items.size();
+            }
+
+            @Override
+            void parcourir(Consumer<Item> action) {
+                items.forEach(action);
+            }
+
+            @Override
+            boolean accepte(Item item) {
+                // Appartenance à l'index : pas de normalisation de la valeur de chaque candidat
+                return items.contains(item);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Restreint aux items dont un attribut numérique indexé (année, prix, note) est dans une plage.
+     *
+     * @param champ l'attribut
+     * @param min la borne inférieure
+     * @param minInclus vrai si la borne inférieure est incluse
+     * @param max la borne supérieure
+     * @param maxInclus vrai si la borne supérieure est incluse
+     * @return cette requête
+     * @throws IllegalArgumentException si l'attribut n'est pas indexé par plage
+     */
+    public Requete entre(Champ champ, double min, boolean minInclus, double max, boolean maxInclus) {
+        if (!IndexSecondaires.CHAMPS_NUMERIQUES.contains(champ)) {
+            throw new IllegalArgumentException("attribut non indexé par plage : " + champ);
+        }
+        criteres.add(new Critere() {
+            @Override
+            int cout() {
+                return 1;
+            }
+
+            @Override
+            int estimer(int limite) {
+                int total = 0;
+                for (Set<Item> items : index.plage(champ, min, minInclus, max, maxInclus).values()) {
+                    total += items.size();
+                    if (total > limite) {
+                        break;
+                    }
+                }
+                return total;
+            }
+
+            @Override
+            void parcourir(Consumer<Item> action) {
+                for (Set<Item> items : index.plage(champ, min, minInclus, max, maxInclus).values()) {
+                    items.forEach(action);
+                }
+            }
+
+            @Override
+            boolean accepte(Item item) {
+                double v = IndexSecondaires.nombre(item, champ);
+                return (minInclus ? v >= min : v > min) && (maxInclus ? v <= max : v < max);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Ajoute un critère quelconque, évalué sur les items retenus par les critères indexés.
+     *
+     * @param filtre le critère
+     * @return cette requête
+     */
+    public Requete filtre(Predicate<Item> filtre) {
+        criteres.add(new Critere() {
+            @Override
+            int cout() {
+                return 2;
+            }
+
+            @Override
+            int estimer(int limite) {
+                return Integer.MAX_VALUE;
+            }
+
+            @Override
+            void parcourir(Consumer<Item> action) {
+                contenant.getItems().forEach(action);
+            }
+
+            @Override
+            boolean accepte(Item item) {
+                return filtre.test(item);
+            }
+        });
+        return this;
+    }
+
+    /**
+     * Trie le résultat selon un attribut numérique indexé ou la dénomination.
+     *
+     * @param champ l'attribut de tri
+     * @param croissant vrai pour l'ordre croissant
+     * @return cette requête
+     */
+    public Requete trierPar(Champ champ, boolean croissant) {
+        Comparator<Item> comparateur;
+        if (champ == Champ.DENOMINATION) {
+            comparateur = Comparator.comparing(Item::getDenomination, Comparator.nullsFirst(String.CASE_INSENSITIVE_ORDER));
+        } else if (IndexSecondaires.CHAMPS_NUMERIQUES.contains(champ)) {
+            comparateur = Comparator.comparingDouble(item -> IndexSecondaires.nombre(item, champ));
+        } else {
+            throw new IllegalArgumentException("tri non pris en charge : " + champ);
+        }
+        ordre = croissant ? comparateur : comparateur.reversed();
+        return this;
+    }
+
+    /**
+     * Exécute la requête.
+     *
+     * @return les items satisfaisant tous les critères, triés si un ordre a été demandé
+     */
+    public List<Item> executer() {
+        // Les index ne changent pas pendant l'exécution : les modifications attendent sa fin
+        List<Item> resultat = contenant.lire(this::selectionner);
+        if (ordre != null) {
+            resultat.sort(ordre);
+        }
+        return resultat;
+    }
+
+    /**
+     * Sélectionne les items satisfaisant tous les critères, sous le verrou de lecture du contenant.
+     *
+     * @return les items sélectionnés, dans un ordre quelconque
+     */
+    private List<Item> selectionner() {
+        List<Item> resultat = new ArrayList<>();
+        if (criteres.isEmpty()) {
+            resultat.addAll(contenant.getItems());
+        } else {
+            // Choix du critère le plus sélectif : son index fournit les candidats
+            // Les index par valeur donnent leur taille immédiatement : estimés en premier, ils bornent
+            // le comptage des plages, qui s'arrête dès qu'il dépasse le meilleur candidat
+            Critere meilleur = null;
+            int taille = Integer.MAX_VALUE;
+            List<Critere> parCout = new ArrayList<>(criteres);
+            parCout.sort(Comparator.comparingInt(Critere::cout));
+            for (Critere critere : parCout) {
+                int estimation = critere.estimer(taille);
+                if (meilleur == null || estimation < taille) {
+                    meilleur = critere;
+                    taille = estimation;
+                }
+            }
+            Critere pilote = meilleur;
+            pilote.parcourir(item -> {
+                for (Critere critere : criteres) {
+                    if (critere != pilote && !critere.accepte(item)) {
+                        return;
+                    }
+                }
+                resultat.add(item);
+            });
+        }
+        return resultat;
+    }
+}
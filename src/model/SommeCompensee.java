@@ -0,0 +1,47 @@
+package model;
+
+/**
+ * Somme de nombres à virgule flottante avec compensation de l'erreur d'arrondi
+ * (algorithme de Kahan-Babuška-Neumaier).
+ *
+ * <p>Utilisée pour les totaux tenus à jour au fil des ajouts et suppressions : sans compensation,
+ * les arrondis de chaque opération s'accumulent et le total dérive de la somme exacte.</p>
+ */
+final class SommeCompensee {
+    /** Somme courante. */
+    private double somme;
+    /** Erreur d'arrondi accumulée, à réintégrer à la somme. */
+    private double compensation;
+
+    /**
+     * Ajoute une valeur à la somme.
+     *
+     * @param valeur la valeur à ajouter (négative pour retrancher)
+     */
+    void ajouter(double valeur) {
+        double t = somme + valeur;
+        if (Math.abs(somme) >= Math.abs(valeur)) {
+            compensation += (somme - t) + valeur;
+        } else {
+            compensation += (valeur - t) + somme;
+        }
+        somme = t;
+    }
+
+    /**
+     * Remet la somme à zéro.
+     */
+    void reinitialiser() {
+        somme = 0;
+        compensation = 0;
+    }
+
+    /**
+     * Retourne la valeur de la somme.
+     *
+     * @return la somme compensée
+     */
+    double valeur() {
+        return somme + compensation;
+    }
+}
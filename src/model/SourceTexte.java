@@ -0,0 +1,20 @@
+package model;
+
+/**
+ * Interface pour les sources des champs textuels chargés à la demande.
+ *
+ * <p>Un item dont les textes volumineux (description, DLC, phase de vieillissement) sont différés
+ * ne garde qu'une référence dans la source ; le texte est lu lors de l'appel de son accesseur.
+ * Une source peut être appelée depuis plusieurs threads.</p>
+ */
+public interface SourceTexte {
+    /**
+     * Lit un champ textuel d'un item.
+     *
+     * @param reference la référence de l'item dans la source
+     * @param champ le champ à lire ({@link Champ#DESCRIPTION}, {@link Champ#DLC}
+     *              ou {@link Champ#PHASE_VIEILLISSEMENT})
+     * @return la valeur du champ, éventuellement null
+     */
+    String lire(long reference, Champ champ);
+}
@@ -37,14 +37,18 @@ public class Vin extends Item {
      * @return le cépage
      */
     public String getCepage() { return cepage; }
-    public void setCepage(String cepage) { this.cepage = cepage; }
+    public void setCepage(String cepage) {
+        modifier(Champ.CEPAGE, () -> this.cepage, () -> this.cepage = cepage);
+    }
     
     /**
      * Retourne la région d'origine du vin.
      * @return la région
      */
     public String getRegion() { return region; }
-    public void setRegion(String region) { this.region = region; }
+    public void setRegion(String region) {
+        modifier(Champ.REGION, () -> this.region, () -> this.region = region);
+    }
     
     /**
      * Affiche les informations complètes du vin, incluant les attributs spécifiques.
@@ -0,0 +1,282 @@
+package view;
+
+import metrics.Metriques;
+
+import javax.imageio.ImageIO;
+import javax.swing.ImageIcon;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Cache des miniatures des images des items, par chemin et par taille.
+ *
+ * <p>Une image n'est lue sur le disque et réduite qu'au premier affichage d'une taille donnée ;
+ * les affichages suivants, par exemple lors du défilement du tableau, réutilisent la miniature.
+ * Le cache est borné en mémoire : au-delà de sa capacité, exprimée en octets de pixels, les
+ * miniatures les moins récemment utilisées sont retirées. Les miniatures sont de plus tenues par
+ * des références souples, que le ramasse-miettes peut libérer si la mémoire vient à manquer.
+ * Les images illisibles ou absentes sont retenues comme telles, pour ne pas être relues à chaque
+ * dessin.</p>
+ *
+ * <p>Avec un {@link MiniaturesDisque}, les miniatures réduites sont aussi enregistrées sur le disque :
+ * aux lancements suivants, elles y sont relues au lieu de décoder les images d'origine.</p>
+ *
+ * <p>Le cache peut être utilisé depuis plusieurs threads ; le décodage se fait hors de son verrou.
+ * {@link ChargeurMiniatures} s'en sert pour décoder les images hors du thread de l'interface.</p>
+ */
+final class CacheMiniatures {
+    private static final Logger LOG = Logger.getLogger(CacheMiniatures.class.getName());
+    /** Octets par pixel d'une miniature (ARGB). */
+    private static final int OCTETS_PAR_PIXEL = 4;
+    /** Marque d'une image illisible ou absente. */
+    static final ImageIcon AUCUNE = new ImageIcon();
+    /** Place comptée pour une image absente, pour que leur nombre reste lui aussi borné. */
+    private static final long OCTETS_AUCUNE = 64;
+
+    /** Capacité en octets de pixels. */
+    private final long capacite;
+    /** Miniatures enregistrées sur le disque, ou null. */
+    private final MiniaturesDisque disque;
+    /** Miniatures, les moins récemment utilisées en premier. */
+    private final LinkedHashMap<Cle, Entree> entrees = new LinkedHashMap<>(64, 0.75f, true);
+    /** Reçoit les entrées dont la miniature a été libérée par le ramasse-miettes. */
+    private final ReferenceQueue<ImageIcon> liberees = new ReferenceQueue<>();
+    /** Octets de pixels des entrées présentes. */
+    private long occupation;
+
+    /**
+     * Crée un cache vide.
+     *
+     * @param capacite capacité en octets de pixels
+     * @param disque les miniatures enregistrées sur le disque, ou null pour ne rien enregistrer
+     */
+    CacheMiniatures(long capacite, MiniaturesDisque disque) {
+        this.capacite = capacite;
+        this.disque = disque;
+    }
+
+    /**
+     * Cherche une miniature dans le cache, sans la décoder. Une miniature trouvée est comptée.
+     *
+     * @param cle la clé
+     * @return la miniature, {@link #AUCUNE} si l'image est absente ou illisible, ou null si elle n'est pas en cache
+     */
+    synchronized ImageIcon enCache(Cle cle) {
+        purger();
+        Entree entree = entrees.get(cle);
+        ImageIcon icone = entree == null ? null : entree.get();
+        if (icone != null) {
+            Metriques.MINIATURES_TROUVEES.incrementer();
+        }
+        return icone;
+    }
+
+    /**
+     * Lit une miniature sur le disque, ou à défaut décode et réduit l'image, puis range la miniature
+     * dans le cache. La lecture, lente, se fait hors du verrou du cache ; elle est comptée comme une
+     * miniature manquée.
+     *
+     * @param cle la clé
+     * @return la miniature, ou {@link #AUCUNE} si l'image est absente ou illisible
+     */
+    ImageIcon charger(Cle cle) {
+        Metriques.MINIATURES_MANQUEES.incrementer();
+        long debut = System.nanoTime();
+        ImageIcon icone;
+        try {
+            BufferedImage miniature = disque == null ? null : disque.lire(cle.chemin, cle.largeur, cle.hauteur);
+            if (miniature != null) {
+                Metriques.MINIATURES_DISQUE.incrementer();
+            } else {
+                BufferedImage image = decoder(cle.chemin);
+                if (image != null) {
+                    miniature = reduire(image, cle.largeur, cle.hauteur);
+                    if (disque != null) {
+                        disque.ecrire(cle.chemin, cle.largeur, cle.hauteur, miniature);
+                    }
+                }
+            }
+            icone = miniature == null ? AUCUNE : new ImageIcon(miniature);
+        } finally {
+            Metriques.VUE_MINIATURE.enregistrerDepuis(debut);
+        }
+        ranger(cle, icone);
+        return icone;
+    }
+
+    /**
+     * Enregistre sur le disque les miniatures d'une image qui n'y sont pas encore, en ne décodant
+     * l'image qu'une fois pour toutes les dimensions. Les miniatures ne sont pas rangées dans le cache :
+     * elles seront relues du disque si elles sont affichées. Sans miniatures sur le disque, ne fait rien.
+     *
+     * @param chemin le chemin de l'image
+     * @param dimensions les dimensions des miniatures
+     */
+    void preparer(String chemin, Dimension... dimensions) {
+        if (disque == null) {
+            return;
+        }
+        BufferedImage image = null;
+        for (Dimension dimension : dimensions) {
+            if (disque.contient(chemin, dimension.width, dimension.height)) {
+                continue;
+            }
+            if (image == null) {
+                long debut = System.nanoTime();
+                image = decoder(chemin);
+                Metriques.VUE_MINIATURE.enregistrerDepuis(debut);
+                if (image == null) {
+                    return;
+                }
+            }
+            disque.ecrire(chemin, dimension.width, dimension.height, reduire(image, dimension.width, dimension.height));
+        }
+    }
+
+    /**
+     * Range une miniature et retire les moins récemment utilisées si la capacité est dépassée.
+     *
+     * @param cle la clé
+     * @param icone la miniature, ou {@link #AUCUNE}
+     */
+    private synchronized void ranger(Cle cle, ImageIcon icone) {
+        purger();
+        long octets = icone == AUCUNE ? OCTETS_AUCUNE : (long) icone.getIconWidth() * icone.getIconHeight() * OCTETS_PAR_PIXEL;
+        Entree ancienne = entrees.put(cle, new Entree(cle, icone, octets, liberees));
+        if (ancienne != null) {
+            occupation -= ancienne.octets;
+        }
+        occupation += octets;
+        Iterator<Entree> it = entrees.values().iterator();
+        while (occupation > capacite && it.hasNext()) {
+            Entree eldest = it.next();
+            if (eldest.cle.equals(cle)) {
+                break;
+            }
+            it.remove();
+            occupation -= eldest.octets;
+            Metriques.MINIATURES_EVINCEES.incrementer();
+        }
+    }
+
+    /**
+     * Retire les entrées dont la miniature a été libérée par le ramasse-miettes.
+     */
+    private void purger() {
+        Entree liberee;
+        while ((liberee = (Entree) liberees.poll()) != null) {
+            // L'entrée a pu être remplacée entre-temps : seule l'entrée courante est retirée
+            if (entrees.get(liberee.cle) == liberee) {
+                entrees.remove(liberee.cle);
+                occupation -= liberee.octets;
+                Metriques.MINIATURES_EVINCEES.incrementer();
+            }
+        }
+    }
+
+    /**
+     * Lit une image d'origine.
+     *
+     * @param chemin le chemin de l'image
+     * @return l'image, ou null si elle est absente ou illisible
+     */
+    private static BufferedImage decoder(String chemin) {
+        try {
+            BufferedImage image = ImageIO.read(new File(chemin));
+            if (image == null) {
+                LOG.fine(() -> "Format d'image non reconnu : " + chemin);
+            }
+            return image;
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Image illisible : " + chemin, e);
+            return null;
+        }
+    }
+
+    /**
+     * Réduit une image par divisions successives par deux, puis à la taille exacte : l'interpolation
+     * bilinéaire ne tient compte que des pixels voisins, et une seule réduction forte crénèlerait l'image.
+     *
+     * @param image l'image
+     * @param largeur la largeur voulue
+     * @param hauteur la hauteur voulue
+     * @return l'image réduite
+     */
+    static BufferedImage reduire(BufferedImage image, int largeur, int hauteur) {
+        BufferedImage courante = image;
+        int l = image.getWidth();
+        int h = image.getHeight();
+        do {
+            l = l / 2 >= largeur ? l / 2 : largeur;
+            h = h / 2 >= hauteur ? h / 2 : hauteur;
+            BufferedImage reduite = new BufferedImage(l, h, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = reduite.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(courante, 0, 0, l, h, null);
+            } finally {
+                g.dispose();
+            }
+            courante = reduite;
+        } while (l != largeur || h != hauteur);
+        return courante;
+    }
+
+    /**
+     * Clé d'une miniature : chemin de l'image et dimensions.
+     */
+    static final class Cle {
+        final String chemin;
+        final int largeur;
+        final int hauteur;
+
+        Cle(String chemin, int largeur, int hauteur) {
+            this.chemin = chemin;
+            this.largeur = largeur;
+            this.hauteur = hauteur;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Cle)) {
+                return false;
+            }
+            Cle autre = (Cle) o;
+            return largeur == autre.largeur && hauteur == autre.hauteur && chemin.equals(autre.chemin);
+        }
+
+        @Override
+        public int hashCode() {
+            return (chemin.hashCode() * 31 + largeur) * 31 + hauteur;
+        }
+    }
+
+    /**
+     * Entrée du cache : référence souple vers la miniature, avec sa clé et sa taille en octets.
+     */
+    private static final class Entree extends SoftReference<ImageIcon> {
+        private final Cle cle;
+        private final long octets;
+
+        Entree(Cle cle, ImageIcon icone, long octets, ReferenceQueue<ImageIcon> file) {
+            // La marque des images absentes n'est jamais libérée : l'entrée ne va pas dans la file
+            super(icone, icone == AUCUNE ? null : file);
+            this.cle = cle;
+            this.octets = octets;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package view;
+
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Décode les miniatures des images en arrière-plan, pour que le thread de l'interface ne lise
+ * jamais une image sur le disque.
+ *
+ * <p>Une miniature absente du {@link CacheMiniatures} est demandée à un petit groupe de threads ;
+ * en attendant, l'appelant affiche une {@linkplain #attente(int, int) image d'attente}. Les demandes
+ * les plus récentes passent en premier : ce sont celles des cellules qui viennent d'être dessinées,
+ * donc visibles. Les demandes devenues inutiles, par exemple pour des lignes sorties de la vue,
+ * sont {@linkplain #annuler(Predicate) annulées} avant leur décodage. Une demande prioritaire,
+ * comme l'image des détails d'un item, passe avant toutes les autres et n'est jamais annulée ainsi.
+ * Enfin, les miniatures des nouvelles images peuvent être {@linkplain #preparer(String) préparées} :
+ * elles sont enregistrées sur le disque, après toutes les demandes d'affichage.</p>
+ *
+ * <p>Les demandes et les rappels se font depuis le thread de l'interface ; les rappels y sont exécutés.</p>
+ */
+final class ChargeurMiniatures {
+    private static final Logger LOG = Logger.getLogger(ChargeurMiniatures.class.getName());
+
+    /** Rang des demandes prioritaires dans la file des décodeurs. */
+    private static final int PRIORITAIRE = 0;
+    /** Rang des demandes d'affichage. */
+    private static final int AFFICHAGE = 1;
+    /** Rang des préparations, décodées quand rien d'autre n'attend. */
+    private static final int PREPARATION = 2;
+
+    private final CacheMiniatures cache;
+    /** Dimensions des miniatures préparées. */
+    private final Dimension[] dimensions;
+    private final ThreadPoolExecutor decodeurs;
+    /** Demandes en attente ou en cours de décodage, par miniature. */
+    private final Map<CacheMiniatures.Cle, Demande> enCours = new HashMap<>();
+    /** Images en cours de préparation. */
+    private final Set<String> enPreparation = new HashSet<>();
+    /** Images d'attente, par dimensions. */
+    private final Map<Long, ImageIcon> attentes = new HashMap<>();
+    /** Numéro de la prochaine demande : les plus récentes passent en premier. */
+    private long sequence;
+
+    /**
+     * Crée un chargeur.
+     *
+     * @param cache le cache où ranger les miniatures décodées
+     * @param dimensions les dimensions des miniatures à {@linkplain #preparer(String) préparer}
+     */
+    ChargeurMiniatures(CacheMiniatures cache, Dimension... dimensions) {
+        this.cache = cache;
+        this.dimensions = dimensions.clone();
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        AtomicInteger numero = new AtomicInteger();
+        decodeurs = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new PriorityBlockingQueue<>(),
+                r -> {
+                    Thread thread = new Thread(r, "miniatures-" + numero.incrementAndGet());
+                    thread.setDaemon(true);
+                    // L'interface reste prioritaire sur le décodage
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+        decodeurs.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Retourne la miniature d'une image si elle est en cache, et sinon demande son décodage.
+     * Les demandes répétées d'une même miniature, le temps de son décodage, sont regroupées.
+     *
+     * @param chemin le chemin de l'image, éventuellement null ou vide
+     * @param largeur la largeur de la miniature
+     * @param hauteur la hauteur de la miniature
+     * @param prioritaire vrai pour passer avant les autres demandes et ne pas être annulée
+     * @param quandPrete appelée sur le thread de l'interface avec la miniature décodée,
+     *                   ou null si l'image est absente ou illisible ; une demande non prioritaire
+     *                   répétée garde le rappel de la première, qui doit donc valoir pour toutes
+     * @return la miniature, l'{@linkplain #attente(int, int) image d'attente} si elle est en cours
+     *         de décodage, ou null si l'image est absente ou illisible
+     */
+    ImageIcon demander(String chemin, int largeur, int hauteur, boolean prioritaire, Consumer<ImageIcon> quandPrete) {
+        if (chemin == null || chemin.isEmpty() || decodeurs.isShutdown()) {
+            return null;
+        }
+        CacheMiniatures.Cle cle = new CacheMiniatures.Cle(chemin, largeur, hauteur);
+        ImageIcon icone = cache.enCache(cle);
+        if (icone != null) {
+            return icone == CacheMiniatures.AUCUNE ? null : icone;
+        }
+        Demande demande = enCours.get(cle);
+        if (demande == null) {
+            demande = new Demande(cle, prioritaire ? PRIORITAIRE : AFFICHAGE, sequence++);
+            enCours.put(cle, demande);
+            demande.rappels.add(quandPrete);
+            decodeurs.execute(demande);
+        } else if (prioritaire) {
+            demande.rappels.add(quandPrete);
+            if (demande.rang != PRIORITAIRE && decodeurs.remove(demande)) {
+                // Pas encore commencée : reclassée en tête de file
+                Demande promue = new Demande(cle, PRIORITAIRE, sequence++);
+                promue.rappels.addAll(demande.rappels);
+                enCours.put(cle, promue);
+                decodeurs.execute(promue);
+            }
+        }
+        return attente(largeur, hauteur);
+    }
+
+    /**
+     * Annule les demandes non prioritaires pas encore commencées dont l'image n'est plus utile.
+     *
+     * @param inutile indique, d'après le chemin de l'image, si une demande peut être annulée
+     */
+    void annuler(Predicate<String> inutile) {
+        Iterator<Demande> it = enCours.values().iterator();
+        while (it.hasNext()) {
+            Demande demande = it.next();
+            if (demande.rang != PRIORITAIRE && inutile.test(demande.cle.chemin) && decodeurs.remove(demande)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Enregistre en arrière-plan les miniatures d'une image sur le disque, si elles n'y sont pas
+     * déjà, pour que leur premier affichage n'ait pas à décoder l'image. Les préparations passent
+     * après toutes les demandes d'affichage et ne sont pas annulées.
+     *
+     * @param chemin le chemin de l'image, éventuellement null ou vide
+     */
+    void preparer(String chemin) {
+        if (chemin == null || chemin.isEmpty() || decodeurs.isShutdown() || !enPreparation.add(chemin)) {
+            return;
+        }
+        decodeurs.execute(new Tache(PREPARATION, sequence++) {
+            @Override
+            public void run() {
+                try {
+                    cache.preparer(chemin, dimensions);
+                } catch (RuntimeException e) {
+                    LOG.log(Level.WARNING, "Préparation impossible : " + chemin, e);
+                } finally {
+                    SwingUtilities.invokeLater(() -> enPreparation.remove(chemin));
+                }
+            }
+        });
+    }
+
+    /**
+     * Retourne l'image d'attente des miniatures en cours de décodage : un cadre gris.
+     *
+     * @param largeur la largeur
+     * @param hauteur la hauteur
+     * @return l'image d'attente, partagée
+     */
+    ImageIcon attente(int largeur, int hauteur) {
+        return attentes.computeIfAbsent(((long) largeur << 32) | hauteur, d -> {
+            BufferedImage image = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = image.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                g.setColor(new Color(235, 235, 235));
+                g.fillRoundRect(1, 1, largeur - 2, hauteur - 2, 8, 8);
+                g.setColor(Color.LIGHT_GRAY);
+                g.setStroke(new BasicStroke(1f));
+                g.drawRoundRect(1, 1, largeur - 3, hauteur - 3, 8, 8);
+            } finally {
+                g.dispose();
+            }
+            return new ImageIcon(image);
+        });
+    }
+
+    /**
+     * Arrête les threads de décodage ; les demandes en attente sont abandonnées.
+     */
+    void fermer() {
+        decodeurs.shutdownNow();
+        enCours.clear();
+        enPreparation.clear();
+    }
+
+    /**
+     * Tâche de la file des décodeurs, classée par rang puis de la plus récente à la plus ancienne.
+     */
+    private abstract static class Tache implements Runnable, Comparable<Tache> {
+        final int rang;
+        private final long numero;
+
+        Tache(int rang, long numero) {
+            this.rang = rang;
+            this.numero = numero;
+        }
+
+        @Override
+        public int compareTo(Tache autre) {
+            if (rang != autre.rang) {
+                return Integer.compare(rang, autre.rang);
+            }
+            return Long.compare(autre.numero, numero);
+        }
+    }
+
+    /**
+     * Décodage d'une miniature à afficher.
+     */
+    private final class Demande extends Tache {
+        private final CacheMiniatures.Cle cle;
+        /** Rappels à exécuter une fois la miniature décodée (thread de l'interface uniquement). */
+        private final List<Consumer<ImageIcon>> rappels = new ArrayList<>(1);
+
+        Demande(CacheMiniatures.Cle cle, int rang, long numero) {
+            super(rang, numero);
+            this.cle = cle;
+        }
+
+        @Override
+        public void run() {
+            ImageIcon icone = CacheMiniatures.AUCUNE;
+            try {
+                icone = cache.charger(cle);
+            } catch (RuntimeException e) {
+                LOG.log(Level.WARNING, "Décodage impossible : " + cle.chemin, e);
+            } finally {
+                // Toujours terminée, même après une erreur, pour que la cellule ne reste pas en attente
+                terminer(icone == CacheMiniatures.AUCUNE ? null : icone);
+            }
+        }
+
+        /**
+         * Retire la demande et exécute ses rappels, sur le thread de l'interface.
+         *
+         * @param resultat la miniature, ou null
+         */
+        private void terminer(ImageIcon resultat) {
+            SwingUtilities.invokeLater(() -> {
+                // Abandonnée entre-temps par fermer()
+                if (enCours.get(cle) == this) {
+                    enCours.remove(cle);
+                    for (Consumer<ImageIcon> rappel : rappels) {
+                        rappel.accept(resultat);
+                    }
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package view;
+
+import model.Champ;
+import model.ContenantEvent;
+import model.Item;
+
+import javax.swing.table.AbstractTableModel;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Modèle du tableau des items d'un contenant, qui lit les valeurs des cellules directement
+ * dans les items.
+ *
+ * <p>Le modèle ne garde qu'une référence par ligne, dans l'ordre des rangs du contenant, tenue à jour
+ * par les événements du contenant : aucune ligne n'est recopiée, et seules les cellules affichées
+ * sont lues, ce qui ne coûte qu'en proportion des lignes visibles. Les textes différés des items ne
+ * sont ainsi chargés que pour les lignes affichées. Les dates formatées sont gardées dans un petit
+ * cache, borné, pour ne pas reformater les mêmes dates à chaque dessin.</p>
+ *
+ * <p>Comme tout modèle Swing, il ne s'utilise que depuis le thread de l'interface.</p>
+ */
+public class ContenantTableModel extends AbstractTableModel {
+    private static final long serialVersionUID = 1L;
+
+    /** En-têtes des colonnes du tableau, avec une colonne Image en première position. */
+    static final String[] COLUMN_NAMES = {"Image", "Dénomination", "Description", "Quantité", "Prix", "Année", "Date d'ajout"};
+    /** Colonne de l'image. */
+    static final int COLONNE_IMAGE = 0;
+    /** Attributs affichés dans le tableau : leur modification impose de redessiner la ligne. */
+    static final Set<Champ> CHAMPS_AFFICHES = EnumSet.of(Champ.IMAGE, Champ.DENOMINATION,
+            Champ.DESCRIPTION, Champ.QUANTITE, Champ.PRIX, Champ.ANNEE_PRODUCTION, Champ.DATE_AJOUT);
+    /** Nombre de dates formatées gardées en cache. */
+    private static final int DATES_EN_CACHE = 256;
+
+    /** Items affichés, au rang qu'ils occupent dans le contenant. */
+    private final List<Item> items = new ArrayList<>();
+    private final SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MM/yyyy");
+    /** Dates formatées, par instant, les moins récemment utilisées en premier. */
+    private final Map<Long, String> datesFormatees = new LinkedHashMap<Long, String>(DATES_EN_CACHE * 4 / 3 + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+            return size() > DATES_EN_CACHE;
+        }
+    };
+
+    @Override
+    public int getRowCount() {
+        return items.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        Item item = items.get(row);
+        switch (column) {
+            case 0: return item.getImage();
+            case 1: return item.getDenomination();
+            case 2: return item.getDescription();
+            case 3: return item.getQuantite();
+            case 4: return item.getPrix();
+            case 5: return item.getAnneeProduction();
+            case 6: return formater(item.getDateAjout());
+            default: throw new IndexOutOfBoundsException("colonne " + column);
+        }
+    }
+
+    /**
+     * Retourne l'item d'une ligne du modèle.
+     *
+     * @param row l'indice de la ligne dans le modèle
+     * @return l'item
+     */
+    public Item getItem(int row) {
+        return items.get(row);
+    }
+
+    /**
+     * Formate une date d'ajout, en passant par le cache.
+     *
+     * @param date la date, éventuellement null
+     * @return la date formatée
+     */
+    private String formater(Date date) {
+        if (date == null) {
+            return "";
+        }
+        return datesFormatees.computeIfAbsent(date.getTime(), t -> dateFormat.format(date));
+    }
+
+    /**
+     * Remplace toutes les lignes par le contenu d'un instantané du contenant.
+     *
+     * @param contenu les items, dans l'ordre de leurs rangs
+     */
+    public void remplacer(List<Item> contenu) {
+        items.clear();
+        items.addAll(contenu);
+        fireTableDataChanged();
+    }
+
+    /**
+     * Reporte une modification du contenant sur les lignes et prévient le tableau.
+     * Une modification d'attributs non affichés ne produit aucune notification.
+     *
+     * @param event la modification survenue
+     */
+    public void appliquer(ContenantEvent event) {
+        int rang = event.getRang();
+        switch (event.getType()) {
+            case AJOUT:
+                items.addAll(event.getItems());
+                fireTableRowsInserted(rang, rang + event.getItems().size() - 1);
+                break;
+            case SUPPRESSION:
+                int dernier = items.size() - 1;
+                // Le dernier item a pris la place de l'item supprimé
+                Item deplace = items.remove(dernier);
+                fireTableRowsDeleted(dernier, dernier);
+                if (event.getRangDeplace() >= 0) {
+                    items.set(rang, deplace);
+                    fireTableRowsUpdated(rang, rang);
+                }
+                break;
+            case MODIFICATION:
+                if (!Collections.disjoint(event.getChamps(), CHAMPS_AFFICHES)) {
+                    fireTableRowsUpdated(rang, rang);
+                }
+                break;
+            default:
+                remplacer(event.getItems());
+                break;
+        }
+    }
+}
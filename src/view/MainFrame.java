@@ -1,18 +1,34 @@
 package view;
 
+import dao.Change;
+import dao.ItemDAO;
+import dao.ItemStore;
+import dao.PersistenceService;
+import metrics.Metriques;
+import model.Champ;
 import model.Contenant;
+import model.ContenantEvent;
 import model.ContenantObserver;
 import model.Item;
 import model.Vin;
 
 import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
 import javax.swing.table.DefaultTableCellRenderer;
-import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
 import java.awt.*;
 import java.awt.event.*;
+import java.nio.file.Paths;
 import java.text.SimpleDateFormat;
+import java.util.Collections;
 import java.util.Date;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Classe principale de l'interface graphique pour la gestion des denrées.
@@ -22,12 +38,44 @@ import java.util.List;
  * et d'afficher leurs détails (y compris l'image) via un double-clic sur une ligne.</p>
  */
 public class MainFrame extends JFrame implements ContenantObserver {
+    private static final Logger LOG = Logger.getLogger(MainFrame.class.getName());
+    /** Côté des miniatures du tableau, en pixels. */
+    private static final int TAILLE_MINIATURE = 50;
+    /** Côté de l'image des détails d'un item, en pixels. */
+    private static final int TAILLE_DETAILS = 200;
+    /** Dossier des miniatures enregistrées, modifiable par {@code -Dminiatures.dossier=<chemin>}. */
+    private static final String DOSSIER_MINIATURES = System.getProperty("miniatures.dossier", "miniatures");
+
+    /** Attributs couverts par la recherche : leur modification peut faire entrer ou sortir une ligne du filtre. */
+    private static final Set<Champ> CHAMPS_RECHERCHES = EnumSet.of(Champ.DENOMINATION,
+            Champ.DESCRIPTION, Champ.CEPAGE, Champ.REGION);
+
     private Contenant contenant;
+    /** Stockage partagé pour toute la durée de vie de la fenêtre. */
+    private ItemStore itemDao;
+    /** Écriture en arrière-plan des modifications, pour ne pas bloquer l'interface sur le disque. */
+    private PersistenceService persistence;
     private JTable table;
-    private DefaultTableModel tableModel;
+    private ContenantTableModel tableModel;
+    /** Trieur du tableau, qui porte le filtre de recherche. */
+    private TableRowSorter<ContenantTableModel> sorter;
+    private JTextField txtRecherche;
+    /** Items trouvés par la recherche en cours, ou null si aucun filtre n'est appliqué. */
+    private Set<Item> resultatsRecherche;
     private JLabel lblTotalValue;
     private JLabel lblAveragePrice;
     private JTextArea txtPairings;
+    private JLabel lblPersistence;
+    /** Progression du chargement de l'inventaire, visible pendant le chargement. */
+    private JProgressBar progressionChargement;
+    /** Miniatures des images, partagées par le tableau et les détails (16 Mo de pixels), enregistrées sur le disque. */
+    private final CacheMiniatures miniatures = new CacheMiniatures(16L << 20,
+            new MiniaturesDisque(Paths.get(DOSSIER_MINIATURES)));
+    /** Décodage des miniatures en arrière-plan ; les nouvelles images sont préparées aux deux tailles. */
+    private final ChargeurMiniatures chargeur = new ChargeurMiniatures(miniatures,
+            new Dimension(TAILLE_MINIATURE, TAILLE_MINIATURE), new Dimension(TAILLE_DETAILS, TAILLE_DETAILS));
+    /** Version du contenant déjà reflétée par le tableau. */
+    private long versionAffichee = -1;
 
     /**
      * Constructeur de MainFrame.
@@ -35,10 +83,24 @@ public class MainFrame extends JFrame implements ContenantObserver {
      * @param contenant le contenant à gérer
      */
     public MainFrame(Contenant contenant) {
+        this(contenant, new ItemDAO());
+    }
+
+    /**
+     * Constructeur de MainFrame avec un stockage existant, dont le cache est alors réutilisé.
+     *
+     * @param contenant le contenant à gérer
+     * @param dao le stockage des items, {@link ItemDAO} ou {@link dao.ShardedItemStore}
+     */
+    public MainFrame(Contenant contenant, ItemStore dao) {
         this.contenant = contenant;
+        this.itemDao = dao;
+        this.persistence = new PersistenceService(dao);
         this.contenant.addObserver(this);
         initUI();
-        update(); // Mise à jour initiale de l'affichage
+        persistence.addObserver((enAttente, echecs, derniereErreur) ->
+                SwingUtilities.invokeLater(() -> updatePersistenceStatus(enAttente, echecs, derniereErreur)));
+        refreshAll(contenant.getInstantane()); // Mise à jour initiale de l'affichage
     }
 
     /**
@@ -49,6 +111,14 @@ public class MainFrame extends JFrame implements ContenantObserver {
         setSize(800, 600);
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
         setLocationRelativeTo(null);
+        // Écriture des modifications encore en attente avant la sortie
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                chargeur.fermer();
+                persistence.close();
+            }
+        });
 
         // Titre stylisé
         JLabel lblTitle = new JLabel("<html><center><h1>Cave à vin</h1></center></html>");
@@ -59,25 +129,41 @@ public class MainFrame extends JFrame implements ContenantObserver {
         // Panel principal avec BorderLayout
         JPanel mainPanel = new JPanel(new BorderLayout());
         getContentPane().add(mainPanel);
-        mainPanel.add(lblTitle, BorderLayout.NORTH);
 
-        // Création du tableau avec une colonne Image en première position
-        String[] columnNames = {"Image", "Dénomination", "Description", "Quantité", "Prix", "Année", "Date d'ajout"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
+        // Champ de recherche : filtre le tableau à chaque frappe
+        txtRecherche = new JTextField(30);
+        txtRecherche.setToolTipText("Mots de la dénomination, de la description, du cépage ou de la région");
+        txtRecherche.getDocument().addDocumentListener(new DocumentListener() {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+            public void insertUpdate(DocumentEvent e) { rechercher(); }
+            @Override
+            public void removeUpdate(DocumentEvent e) { rechercher(); }
+            @Override
+            public void changedUpdate(DocumentEvent e) { rechercher(); }
+        });
+        JPanel searchPanel = new JPanel();
+        searchPanel.add(new JLabel("Rechercher :"));
+        searchPanel.add(txtRecherche);
+        JPanel northPanel = new JPanel(new BorderLayout());
+        northPanel.add(lblTitle, BorderLayout.NORTH);
+        northPanel.add(searchPanel, BorderLayout.SOUTH);
+        mainPanel.add(northPanel, BorderLayout.NORTH);
+
+        // Création du tableau avec une colonne Image en première position
+        tableModel = new ContenantTableModel();
         table = new JTable(tableModel);
+        sorter = new TableRowSorter<>(tableModel);
+        table.setRowSorter(sorter);
         table.setRowHeight(60); // Hauteur adaptée pour afficher les images
         table.setFont(new Font("SansSerif", Font.PLAIN, 14));
         table.getTableHeader().setFont(new Font("SansSerif", Font.BOLD, 14));
 
-        // Affectation d'un renderer personnalisé pour la colonne Image (indice 0)
-        table.getColumnModel().getColumn(0).setCellRenderer(new ImageRenderer());
+        // Affectation d'un renderer personnalisé pour la colonne Image
+        table.getColumnModel().getColumn(ContenantTableModel.COLONNE_IMAGE).setCellRenderer(new ImageRenderer());
 
         JScrollPane tableScroll = new JScrollPane(table);
+        // Les miniatures des lignes sorties de la vue ne sont plus décodées
+        tableScroll.getViewport().addChangeListener(e -> annulerMiniaturesInvisibles());
         mainPanel.add(tableScroll, BorderLayout.CENTER);
 
         // Ajout d'un MouseListener pour détecter le double-clic sur une ligne
@@ -87,18 +173,8 @@ public class MainFrame extends JFrame implements ContenantObserver {
                 if (e.getClickCount() == 2) { // Double-clic
                     int selectedRow = table.getSelectedRow();
                     if (selectedRow >= 0) {
-                        // Récupère la dénomination depuis la deuxième colonne (indice 1)
-                        String denomination = (String) tableModel.getValueAt(selectedRow, 1);
-                        Item selectedItem = null;
-                        for (Item item : contenant.getItems()) {
-                            if (item.getDenomination().equals(denomination)) {
-                                selectedItem = item;
-                                break;
-                            }
-                        }
-                        if (selectedItem != null) {
-                            showItemDetails(selectedItem);
-                        }
+                        // La vue peut être filtrée : l'indice de la ligne est converti vers le modèle
+                        showItemDetails(tableModel.getItem(table.convertRowIndexToModel(selectedRow)));
                     }
                 }
             }
@@ -129,7 +205,7 @@ public class MainFrame extends JFrame implements ContenantObserver {
         btnAdd.addActionListener(e -> addItemDialog());
         btnModify.addActionListener(e -> modifySelectedItem());
         btnRemove.addActionListener(e -> removeSelectedItem());
-        btnRefresh.addActionListener(e -> update());
+        btnRefresh.addActionListener(e -> refreshAll(contenant.getInstantane()));
 
         buttonPanel.add(btnAdd);
         buttonPanel.add(btnModify);
@@ -137,14 +213,66 @@ public class MainFrame extends JFrame implements ContenantObserver {
         buttonPanel.add(btnRefresh);
         buttonPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
 
+        // État des sauvegardes en arrière-plan
+        lblPersistence = new JLabel("Modifications enregistrées");
+        lblPersistence.setAlignmentX(Component.CENTER_ALIGNMENT);
+        lblPersistence.setBorder(BorderFactory.createEmptyBorder(0, 0, 5, 0));
+
         // Panel regroupant les statistiques et les boutons, placé en bas (SOUTH)
         JPanel southPanel = new JPanel();
         southPanel.setLayout(new BoxLayout(southPanel, BoxLayout.Y_AXIS));
         southPanel.add(statsPanel);
         southPanel.add(buttonPanel);
+        southPanel.add(lblPersistence);
+        progressionChargement = new JProgressBar();
+        progressionChargement.setIndeterminate(true);
+        progressionChargement.setStringPainted(true);
+        progressionChargement.setVisible(false);
+        southPanel.add(progressionChargement);
         mainPanel.add(southPanel, BorderLayout.SOUTH);
     }
 
+    /**
+     * Affiche l'état des sauvegardes en arrière-plan.
+     *
+     * @param enAttente le nombre de modifications pas encore écrites
+     * @param echecs le nombre d'écritures en échec
+     * @param derniereErreur l'erreur d'écriture du dernier lot, ou null s'il a été écrit
+     */
+    private void updatePersistenceStatus(int enAttente, int echecs, Exception derniereErreur) {
+        String texte = enAttente > 0 ? "Enregistrement en cours (" + enAttente + " modification(s))"
+                : "Modifications enregistrées";
+        if (derniereErreur != null) {
+            String message = derniereErreur.getMessage() != null ? derniereErreur.getMessage()
+                    : derniereErreur.getClass().getSimpleName();
+            texte += " — " + echecs + " échec(s) d'écriture : " + message;
+            lblPersistence.setForeground(Color.RED);
+        } else {
+            // Les écritures ont repris : couleur normale
+            lblPersistence.setForeground(UIManager.getColor("Label.foreground"));
+        }
+        lblPersistence.setText(texte);
+    }
+
+    /**
+     * Affiche la progression du chargement de l'inventaire. Peut être appelée depuis n'importe quel thread.
+     *
+     * @param nombre le nombre d'items déjà chargés
+     */
+    public void chargementEnCours(int nombre) {
+        SwingUtilities.invokeLater(() -> {
+            progressionChargement.setString("Chargement de l'inventaire : " + nombre + " vin(s)");
+            progressionChargement.setVisible(true);
+        });
+    }
+
+    /**
+     * Masque la progression du chargement de l'inventaire, terminé. Peut être appelée depuis n'importe quel thread.
+     */
+    public void chargementTermine() {
+        SwingUtilities.invokeLater(() -> progressionChargement.setVisible(false));
+    }
+
     /**
      * Affiche une boîte de dialogue pour ajouter un nouveau vin.
      */
@@ -197,7 +325,7 @@ public class MainFrame extends JFrame implements ContenantObserver {
                 String denom = txtDenom.getText();
                 String desc = txtDesc.getText();
                 int quantite = Integer.parseInt(txtQuantite.getText());
-                double prix = Double.parseDouble(txtPrix.getText());
+                double prix = lireDecimal(txtPrix);
                 int annee = Integer.parseInt(txtAnnee.getText());
                 String cepage = txtCepage.getText();
                 String region = txtRegion.getText();
@@ -205,7 +333,7 @@ public class MainFrame extends JFrame implements ContenantObserver {
                 String imagePath = txtImage.getText();
                 String position = txtPosition.getText();
                 String phase = txtPhase.getText();
-                double note = Double.parseDouble(txtNote.getText());
+                double note = lireDecimal(txtNote);
                 
                 // Création d'un Vin avec la date d'ajout actuelle
                 Vin newVin = new Vin(denom, desc, quantite, annee, new Date(), prix, cepage, region);
@@ -218,12 +346,11 @@ public class MainFrame extends JFrame implements ContenantObserver {
                 // Ajout dans le Contenant (gestion en mémoire)
                 contenant.ajouterItem(newVin);
                 
-                // Sauvegarde dans le fichier JSON via le DAO
+                // Sauvegarde dans le fichier JSON, en arrière-plan
                 try {
-                    dao.ItemDAO jsonDao = new dao.ItemDAO();
-                    jsonDao.insertItem(newVin);
+                    persistence.submit(Change.insert(newVin));
                 } catch (Exception ex) {
-                    ex.printStackTrace();
+                    LOG.log(Level.SEVERE, "Persistance de la modification impossible", ex);
                 }
                 
             } catch (NumberFormatException ex) {
@@ -241,16 +368,8 @@ public class MainFrame extends JFrame implements ContenantObserver {
             JOptionPane.showMessageDialog(this, "Veuillez sélectionner un vin à modifier.", "Avertissement", JOptionPane.WARNING_MESSAGE);
             return;
         }
-        // Récupérer la dénomination depuis la colonne "Dénomination" (indice 1)
-        String denomination = (String) tableModel.getValueAt(selectedRow, 1);
-        Item itemToModify = null;
-        for (Item item : contenant.getItems()) {
-            if (item.getDenomination().equals(denomination)) {
-                itemToModify = item;
-                break;
-            }
-        }
-        if (itemToModify == null) {
+        Item itemToModify = tableModel.getItem(table.convertRowIndexToModel(selectedRow));
+        if (!contenant.contient(itemToModify)) {
             JOptionPane.showMessageDialog(this, "Vin introuvable.", "Erreur", JOptionPane.ERROR_MESSAGE);
             return;
         }
@@ -296,28 +415,33 @@ public class MainFrame extends JFrame implements ContenantObserver {
             int option = JOptionPane.showConfirmDialog(this, message, "Modifier le vin", JOptionPane.OK_CANCEL_OPTION);
             if (option == JOptionPane.OK_OPTION) {
                 try {
-                    vin.setDenomination(txtDenom.getText());
-                    vin.setDescription(txtDesc.getText());
-                    vin.setQuantite(Integer.parseInt(txtQuantite.getText()));
-                    vin.setPrix(Double.parseDouble(txtPrix.getText()));
-                    vin.setAnneeProduction(Integer.parseInt(txtAnnee.getText()));
-                    vin.setCepage(txtCepage.getText());
-                    vin.setRegion(txtRegion.getText());
-                    vin.setDlc(txtDLC.getText());
-                    vin.setImage(txtImage.getText());
-                    vin.setPosition(txtPosition.getText());
-                    vin.setPhaseVieillissement(txtPhase.getText());
-                    vin.setNote(Double.parseDouble(txtNote.getText()));
+                    // Champs numériques lus avant toute modification : une saisie invalide ne modifie rien
+                    int quantite = Integer.parseInt(txtQuantite.getText());
+                    double prix = lireDecimal(txtPrix);
+                    int annee = Integer.parseInt(txtAnnee.getText());
+                    double note = lireDecimal(txtNote);
+                    // Une seule notification pour l'ensemble des attributs modifiés
+                    contenant.batch(() -> {
+                        vin.setDenomination(txtDenom.getText());
+                        vin.setDescription(txtDesc.getText());
+                        vin.setQuantite(quantite);
+                        vin.setPrix(prix);
+                        vin.setAnneeProduction(annee);
+                        vin.setCepage(txtCepage.getText());
+                        vin.setRegion(txtRegion.getText());
+                        vin.setDlc(txtDLC.getText());
+                        vin.setImage(txtImage.getText());
+                        vin.setPosition(txtPosition.getText());
+                        vin.setPhaseVieillissement(txtPhase.getText());
+                        vin.setNote(note);
+                    });
                     
-                    // Mise à jour dans le fichier JSON via le DAO
+                    // Mise à jour dans le fichier JSON, en arrière-plan
                     try {
-                        dao.ItemDAO jsonDao = new dao.ItemDAO();
-                        jsonDao.updateItem(vin);
+                        persistence.submit(Change.update(vin));
                     } catch (Exception ex) {
-                        ex.printStackTrace();
+                        LOG.log(Level.SEVERE, "Persistance de la modification impossible", ex);
                     }
-                    
-                    update();
                 } catch (NumberFormatException ex) {
                     JOptionPane.showMessageDialog(this, "Erreur de format dans les champs numériques.", "Erreur", JOptionPane.ERROR_MESSAGE);
                 }
@@ -327,29 +451,38 @@ public class MainFrame extends JFrame implements ContenantObserver {
         }
     }
 
+    /**
+     * Lit un champ décimal saisi : {@code NaN} et les infinis, que {@link Double#parseDouble(String)}
+     * accepte, sont refusés comme une erreur de format.
+     *
+     * @param champ le champ de saisie
+     * @return la valeur saisie, finie
+     * @throws NumberFormatException si la saisie n'est pas un nombre fini
+     */
+    private static double lireDecimal(JTextField champ) {
+        double valeur = Double.parseDouble(champ.getText());
+        if (!Double.isFinite(valeur)) {
+            throw new NumberFormatException("nombre non fini : " + champ.getText());
+        }
+        return valeur;
+    }
+
     /**
      * Supprime le vin sélectionné dans le tableau.
      */
     private void removeSelectedItem() {
         int selectedRow = table.getSelectedRow();
         if (selectedRow >= 0) {
-            String denomination = (String) tableModel.getValueAt(selectedRow, 1);
-            Item toRemove = null;
-            for (Item item : contenant.getItems()) {
-                if (item.getDenomination().equals(denomination)) {
-                    toRemove = item;
-                    break;
-                }
-            }
-            if (toRemove != null) {
+            Item toRemove = tableModel.getItem(table.convertRowIndexToModel(selectedRow));
+            // La ligne peut refléter un item déjà retiré par un autre thread
+            if (contenant.contient(toRemove)) {
                 // Supprime l'item de la mémoire
                 contenant.supprimerItem(toRemove);
-                // Supprime l'item du fichier JSON via le DAO
+                // Supprime l'item du fichier JSON, en arrière-plan
                 try {
-                    dao.ItemDAO jsonDao = new dao.ItemDAO();
-                    jsonDao.deleteItem(toRemove);
+                    persistence.submit(Change.delete(toRemove));
                 } catch (Exception ex) {
-                    ex.printStackTrace();
+                    LOG.log(Level.SEVERE, "Persistance de la modification impossible", ex);
                 }
             }
         } else {
@@ -373,7 +506,9 @@ public class MainFrame extends JFrame implements ContenantObserver {
         details.append("Quantité : ").append(item.getQuantite()).append("\n");
         details.append("Prix : ").append(item.getPrix()).append("\n");
         details.append("Année de production : ").append(item.getAnneeProduction()).append("\n");
-        details.append("Date d'ajout : ").append(new SimpleDateFormat("dd/MM/yyyy").format(item.getDateAjout())).append("\n");
+        Date dateAjout = item.getDateAjout();
+        details.append("Date d'ajout : ")
+               .append(dateAjout != null ? new SimpleDateFormat("dd/MM/yyyy").format(dateAjout) : "non renseignée").append("\n");
         details.append("DLC : ").append(item.getDlc()).append("\n");
         details.append("Position : ").append(item.getPosition()).append("\n");
         details.append("Phase de vieillissement : ").append(item.getPhaseVieillissement()).append("\n");
@@ -386,10 +521,8 @@ public class MainFrame extends JFrame implements ContenantObserver {
         detailsArea.setText(details.toString());
 
         // Affichage de l'image dans un JLabel redimensionné
-        ImageIcon icon = new ImageIcon(item.getImage());
-        Image img = icon.getImage().getScaledInstance(200, 200, Image.SCALE_SMOOTH);
-        icon = new ImageIcon(img);
-        JLabel imgLabel = new JLabel(icon);
+        JLabel imgLabel = new JLabel();
+        imgLabel.setIcon(chargeur.demander(item.getImage(), TAILLE_DETAILS, TAILLE_DETAILS, true, imgLabel::setIcon));
         imgLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
 
         panel.add(new JScrollPane(detailsArea), BorderLayout.CENTER);
@@ -399,26 +532,183 @@ public class MainFrame extends JFrame implements ContenantObserver {
     }
 
     /**
-     * Met à jour le tableau et les statistiques à partir du contenu du contenant.
+     * Reçoit une modification du contenant, qui peut venir de n'importe quel thread,
+     * et la transmet au thread de l'interface.
+     *
+     * @param event la modification survenue
      */
     @Override
-    public void update() {
-        tableModel.setRowCount(0);
-        SimpleDateFormat sdf = new SimpleDateFormat("dd/MM/yyyy");
-        for (Item item : contenant.getItems()) {
-            Object[] row = {
-                item.getImage(),            // Colonne Image
-                item.getDenomination(),
-                item.getDescription(),
-                item.getQuantite(),
-                item.getPrix(),
-                item.getAnneeProduction(),
-                sdf.format(item.getDateAjout())
-            };
-            tableModel.addRow(row);
+    public void update(ContenantEvent event) {
+        // Toujours différé, même depuis le thread de l'interface : l'ordre des événements est conservé
+        // et l'observateur ne travaille pas sous le verrou du contenant
+        SwingUtilities.invokeLater(() -> appliquer(event));
+    }
+
+    /**
+     * Applique une modification du contenant à l'affichage : seules les lignes concernées
+     * du tableau sont mises à jour, ainsi que les statistiques et suggestions si nécessaire.
+     * Les modifications déjà prises en compte par le dernier instantané affiché sont ignorées.
+     *
+     * @param event la modification survenue
+     */
+    private void appliquer(ContenantEvent event) {
+        if (event.getVersion() <= versionAffichee) {
+            return;
+        }
+        long debut = System.nanoTime();
+        mettreAJour(event);
+        Metriques.VUE_RAFRAICHISSEMENT.enregistrerDepuis(debut);
+    }
+
+    /**
+     * Met à jour le tableau, les statistiques et les suggestions après une modification.
+     *
+     * @param event la modification survenue
+     */
+    private void mettreAJour(ContenantEvent event) {
+        versionAffichee = event.getVersion();
+        if (event.getType() == ContenantEvent.Type.REINITIALISATION) {
+            refreshAll(event);
+            return;
+        }
+        Set<Champ> champs = event.getChamps();
+        boolean filtre = resultatsRecherche != null;
+        if (filtre && (event.getType() != ContenantEvent.Type.MODIFICATION
+                || !Collections.disjoint(champs, CHAMPS_RECHERCHES))) {
+            // Le filtre doit être à jour avant que le trieur ne réévalue les lignes touchées
+            resultatsRecherche = resultatsCourants();
+        }
+        tableModel.appliquer(event);
+        // Miniatures des nouvelles images enregistrées d'avance, pour leur premier affichage
+        if (event.getType() == ContenantEvent.Type.AJOUT) {
+            for (Item item : event.getItems()) {
+                chargeur.preparer(item.getImage());
+            }
+        } else if (champs.contains(Champ.IMAGE)) {
+            chargeur.preparer(event.getItem().getImage());
+        }
+        if (event.getType() == ContenantEvent.Type.MODIFICATION && filtre
+                && Collections.disjoint(champs, ContenantTableModel.CHAMPS_AFFICHES)
+                && !Collections.disjoint(champs, CHAMPS_RECHERCHES)) {
+            // Ligne inchangée, mais elle peut entrer dans le filtre ou en sortir
+            tableModel.fireTableRowsUpdated(event.getRang(), event.getRang());
+        }
+        if (event.getType() != ContenantEvent.Type.MODIFICATION
+                || champs.contains(Champ.PRIX) || champs.contains(Champ.QUANTITE)) {
+            updateStatistics();
+        }
+        if (event.getType() != ContenantEvent.Type.MODIFICATION
+                || champs.contains(Champ.DESCRIPTION) || champs.contains(Champ.DENOMINATION)
+                || champs.contains(Champ.CEPAGE) || champs.contains(Champ.REGION)) {
+            // Seuls les accords des vins modifiés sont recalculés
+            updatePairings();
+        }
+    }
+
+    /**
+     * Reconstruit entièrement le tableau, les statistiques et les suggestions.
+     *
+     * @param instantane le contenu du contenant et sa version, obtenus par {@link Contenant#getInstantane()}
+     */
+    private void refreshAll(ContenantEvent instantane) {
+        long debut = System.nanoTime();
+        versionAffichee = instantane.getVersion();
+        if (resultatsRecherche != null) {
+            resultatsRecherche = resultatsCourants();
+        }
+        tableModel.remplacer(instantane.getItems());
+        updateStatistics();
+        updatePairings();
+        Metriques.VUE_RAFRAICHISSEMENT.enregistrerDepuis(debut);
+    }
+
+    /**
+     * Filtre le tableau selon le texte du champ de recherche.
+     */
+    private void rechercher() {
+        resultatsRecherche = resultatsCourants();
+        if (resultatsRecherche == null) {
+            sorter.setRowFilter(null);
+        } else {
+            sorter.setRowFilter(new RowFilter<ContenantTableModel, Integer>() {
+                @Override
+                public boolean include(Entry<? extends ContenantTableModel, ? extends Integer> entry) {
+                    // Lit le champ à chaque appel : il est mis à jour sans remplacer le filtre
+                    Set<Item> resultats = resultatsRecherche;
+                    return resultats == null || resultats.contains(entry.getModel().getItem(entry.getIdentifier()));
+                }
+            });
+        }
+    }
+
+    /**
+     * Interroge l'index de recherche du contenant avec le texte du champ de recherche.
+     *
+     * @return les items trouvés, ou null si le champ ne contient aucun mot
+     */
+    private Set<Item> resultatsCourants() {
+        return contenant.rechercher(txtRecherche.getText());
+    }
+
+    /**
+     * Retourne les lignes du tableau visibles dans la vue.
+     *
+     * @return la première et la dernière ligne visibles, en indices de la vue, ou null si aucune
+     */
+    private int[] lignesVisibles() {
+        Rectangle visible = table.getVisibleRect();
+        int premiere = table.rowAtPoint(visible.getLocation());
+        if (premiere < 0) {
+            return null;
+        }
+        int derniere = table.rowAtPoint(new Point(visible.x, visible.y + visible.height - 1));
+        return new int[] {premiere, derniere < 0 ? table.getRowCount() - 1 : derniere};
+    }
+
+    /**
+     * Redessine les cellules visibles qui affichent une image, une fois sa miniature décodée.
+     *
+     * @param chemin le chemin de l'image
+     */
+    private void repeindreMiniature(String chemin) {
+        int[] lignes = lignesVisibles();
+        int colonne = table.convertColumnIndexToView(ContenantTableModel.COLONNE_IMAGE);
+        if (lignes == null || colonne < 0) {
+            return;
+        }
+        for (int row = lignes[0]; row <= lignes[1]; row++) {
+            if (chemin.equals(tableModel.getItem(table.convertRowIndexToModel(row)).getImage())) {
+                table.repaint(table.getCellRect(row, colonne, false));
+            }
+        }
+    }
+
+    /**
+     * Annule le décodage des miniatures qu'aucune ligne visible n'affiche.
+     */
+    private void annulerMiniaturesInvisibles() {
+        int[] lignes = lignesVisibles();
+        Set<String> visibles = new HashSet<>();
+        if (lignes != null) {
+            for (int row = lignes[0]; row <= lignes[1]; row++) {
+                visibles.add(tableModel.getItem(table.convertRowIndexToModel(row)).getImage());
+            }
         }
+        chargeur.annuler(chemin -> !visibles.contains(chemin));
+    }
+
+    /**
+     * Met à jour les statistiques (lectures en temps constant).
+     */
+    private void updateStatistics() {
         lblTotalValue.setText("Valeur Totale: " + contenant.getValeurTotale());
         lblAveragePrice.setText("Prix Moyen: " + contenant.getPrixMoyen());
+    }
+
+    /**
+     * Met à jour les suggestions d'accords.
+     */
+    private void updatePairings() {
         List<String> suggestions = contenant.getPairingSuggestions();
         StringBuilder sb = new StringBuilder();
         for (String s : suggestions) {
@@ -429,21 +719,24 @@ public class MainFrame extends JFrame implements ContenantObserver {
 
     /**
      * Renderer personnalisé pour afficher une image dans une cellule du tableau.
+     * Le même composant sert à toutes les cellules ; les miniatures viennent du cache, et une image
+     * d'attente est affichée pendant leur décodage en arrière-plan.
      */
     class ImageRenderer extends DefaultTableCellRenderer {
+        ImageRenderer() {
+            setHorizontalAlignment(JLabel.CENTER);
+        }
+
         @Override
         public Component getTableCellRendererComponent(JTable table, Object value,
                                                        boolean isSelected, boolean hasFocus,
                                                        int row, int column) {
-            JLabel label = new JLabel();
-            label.setHorizontalAlignment(JLabel.CENTER);
-            if (value != null) {
-                ImageIcon icon = new ImageIcon((String) value);
-                Image img = icon.getImage();
-                Image scaled = img.getScaledInstance(50, 50, Image.SCALE_SMOOTH);
-                label.setIcon(new ImageIcon(scaled));
-            }
-            return label;
+            // Couleurs de sélection et bordure de focus ; le chemin de l'image n'est pas affiché
+            super.getTableCellRendererComponent(table, null, isSelected, hasFocus, row, column);
+            String chemin = (String) value;
+            setIcon(chargeur.demander(chemin, TAILLE_MINIATURE, TAILLE_MINIATURE, false,
+                    icone -> repeindreMiniature(chemin)));
+            return this;
         }
     }
 }
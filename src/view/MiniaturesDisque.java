@@ -0,0 +1,187 @@
+package view;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Miniatures enregistrées sur le disque, pour ne pas réduire à nouveau les images à chaque lancement.
+ *
+ * <p>Chaque miniature est un petit fichier PNG du dossier, nommé d'après l'image d'origine et les
+ * dimensions : {@code <empreinte du chemin>-<largeur>x<hauteur>-<date de modification>-<taille>.png}.
+ * La date de modification et la taille de l'image d'origine font partie du nom : une image modifiée
+ * ne retrouve donc pas son ancienne miniature, qui est supprimée lorsque la nouvelle est écrite.</p>
+ *
+ * <p>Les fichiers sont écrits sous un nom temporaire puis renommés, pour qu'une miniature à moitié
+ * écrite ne soit jamais lue. Plusieurs threads peuvent utiliser le même dossier.</p>
+ */
+final class MiniaturesDisque {
+    private static final Logger LOG = Logger.getLogger(MiniaturesDisque.class.getName());
+    private static final char[] HEXA = "0123456789abcdef".toCharArray();
+
+    private final Path dossier;
+
+    /**
+     * Crée le magasin d'un dossier, créé au besoin à la première écriture.
+     *
+     * @param dossier le dossier des miniatures
+     */
+    MiniaturesDisque(Path dossier) {
+        this.dossier = dossier;
+    }
+
+    /**
+     * Lit la miniature d'une image, si elle a été enregistrée depuis la dernière modification de l'image.
+     *
+     * @param chemin le chemin de l'image d'origine
+     * @param largeur la largeur de la miniature
+     * @param hauteur la hauteur de la miniature
+     * @return la miniature, ou null si elle est absente, périmée ou illisible
+     */
+    BufferedImage lire(String chemin, int largeur, int hauteur) {
+        Path fichier = fichier(chemin, largeur, hauteur);
+        if (fichier == null || !Files.isRegularFile(fichier)) {
+            return null;
+        }
+        try {
+            BufferedImage image = ImageIO.read(fichier.toFile());
+            if (image != null && image.getWidth() == largeur && image.getHeight() == hauteur) {
+                return image;
+            }
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Miniature illisible : " + fichier, e);
+        }
+        return null;
+    }
+
+    /**
+     * Indique si la miniature d'une image est enregistrée et à jour.
+     *
+     * @param chemin le chemin de l'image d'origine
+     * @param largeur la largeur de la miniature
+     * @param hauteur la hauteur de la miniature
+     * @return vrai si la miniature est à jour
+     */
+    boolean contient(String chemin, int largeur, int hauteur) {
+        Path fichier = fichier(chemin, largeur, hauteur);
+        return fichier != null && Files.isRegularFile(fichier);
+    }
+
+    /**
+     * Enregistre la miniature d'une image et supprime les miniatures périmées de mêmes dimensions.
+     * Un échec est seulement journalisé : la miniature sera recalculée au prochain lancement.
+     *
+     * @param chemin le chemin de l'image d'origine
+     * @param largeur la largeur de la miniature
+     * @param hauteur la hauteur de la miniature
+     * @param miniature la miniature
+     */
+    void ecrire(String chemin, int largeur, int hauteur, BufferedImage miniature) {
+        Path fichier = fichier(chemin, largeur, hauteur);
+        if (fichier == null) {
+            return;
+        }
+        Path temporaire = null;
+        try {
+            Files.createDirectories(dossier);
+            temporaire = Files.createTempFile(dossier, "miniature", ".tmp");
+            ImageIO.write(miniature, "png", temporaire.toFile());
+            try {
+                Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING);
+            }
+            temporaire = null;
+            supprimerPerimees(fichier);
+        } catch (IOException e) {
+            LOG.log(Level.WARNING, "Miniature non enregistrée : " + fichier, e);
+        } finally {
+            if (temporaire != null) {
+                try {
+                    Files.deleteIfExists(temporaire);
+                } catch (IOException e) {
+                    LOG.log(Level.FINE, "Fichier temporaire non supprimé : " + temporaire, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Supprime les anciennes miniatures de la même image et des mêmes dimensions.
+     *
+     * @param fichier la miniature à jour
+     */
+    private void supprimerPerimees(Path fichier) throws IOException {
+        String nom = fichier.getFileName().toString();
+        // Préfixe commun : empreinte du chemin et dimensions
+        String prefixe = nom.substring(0, nom.indexOf('-', nom.indexOf('-') + 1) + 1);
+        try (DirectoryStream<Path> anciennes = Files.newDirectoryStream(dossier, prefixe + "*.png")) {
+            for (Path ancienne : anciennes) {
+                if (!ancienne.getFileName().toString().equals(nom)) {
+                    Files.deleteIfExists(ancienne);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retourne le fichier de la miniature d'une image dans son état actuel.
+     *
+     * @param chemin le chemin de l'image d'origine
+     * @param largeur la largeur de la miniature
+     * @param hauteur la hauteur de la miniature
+     * @return le fichier, ou null si l'image d'origine n'existe pas
+     */
+    private Path fichier(String chemin, int largeur, int hauteur) {
+        try {
+            Path source = Paths.get(chemin).toAbsolutePath().normalize();
+            BasicFileAttributes attributs = Files.readAttributes(source, BasicFileAttributes.class);
+            if (!attributs.isRegularFile()) {
+                return null;
+            }
+            return dossier.resolve(empreinte(source.toString()) + "-" + largeur + "x" + hauteur + "-"
+                    + Long.toHexString(attributs.lastModifiedTime().toMillis()) + "-"
+                    + Long.toHexString(attributs.size()) + ".png");
+        } catch (NoSuchFileException | InvalidPathException e) {
+            return null;
+        } catch (IOException e) {
+            LOG.log(Level.FINE, "Image inaccessible : " + chemin, e);
+            return null;
+        }
+    }
+
+    /**
+     * Empreinte d'un chemin, utilisable dans un nom de fichier : les 16 premiers octets de son SHA-256.
+     *
+     * @param chemin le chemin absolu
+     * @return l'empreinte en hexadécimal
+     */
+    private static String empreinte(String chemin) {
+        try {
+            byte[] octets = MessageDigest.getInstance("SHA-256").digest(chemin.getBytes(StandardCharsets.UTF_8));
+            char[] hexa = new char[32];
+            for (int i = 0; i < 16; i++) {
+                hexa[2 * i] = HEXA[(octets[i] >> 4) & 0xF];
+                hexa[2 * i + 1] = HEXA[octets[i] & 0xF];
+            }
+            return new String(hexa);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 fait partie des algorithmes que toute JVM doit fournir
+            throw new IllegalStateException(e);
+        }
+    }
+}